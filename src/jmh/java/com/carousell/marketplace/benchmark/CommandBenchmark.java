@@ -0,0 +1,185 @@
+package com.carousell.marketplace.benchmark;
+
+import com.carousell.marketplace.command.Command;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded latency of every command against a pre-populated repository.
+ * Commands are invoked directly with the argument arrays the shell controller would build.
+ * Writes are paired (create then delete) so the repository size stays at the parameter across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+public class CommandBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int listings;
+
+    private MarketplaceFixture fixture;
+    private Command register;
+    private Command createListing;
+    private Command deleteListing;
+    private Command getListing;
+    private Command getCategory;
+    private Command getTopCategory;
+    private Command getTopCategories;
+    private Command search;
+    private Command getListingCached;
+    private Command getCategoryCached;
+
+    private final SplittableRandom random = new SplittableRandom(7);
+    private long registrations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new MarketplaceFixture(listings);
+        register = fixture.command("REGISTER");
+        createListing = fixture.command("CREATE_LISTING");
+        deleteListing = fixture.command("DELETE_LISTING");
+        getListing = fixture.command("GET_LISTING");
+        getCategory = fixture.command("GET_CATEGORY");
+        getTopCategory = fixture.command("GET_TOP_CATEGORY");
+        getTopCategories = fixture.command("GET_TOP_CATEGORIES");
+        search = fixture.command("SEARCH");
+        getListingCached = fixture.command("GET_LISTING_CACHED");
+        getCategoryCached = fixture.command("GET_CATEGORY_CACHED");
+    }
+
+    @Benchmark
+    public String register() {
+        return register.execute(new String[]{"REGISTER", "bench" + registrations++});
+    }
+
+    @Benchmark
+    public String createAndDeleteListing() {
+        String user = MarketplaceFixture.user(random.nextInt(MarketplaceFixture.USERS));
+        String id = createListing.execute(new String[]{"CREATE_LISTING", user, "'Bench item'", "'Bench description'",
+                "42", "'" + MarketplaceFixture.category(random.nextInt(MarketplaceFixture.CATEGORIES)) + "'"});
+        return deleteListing.execute(new String[]{"DELETE_LISTING", user, id});
+    }
+
+    @Benchmark
+    public String getListing() {
+        return getListing.execute(new String[]{"GET_LISTING", "user0", String.valueOf(randomListingId())});
+    }
+
+    @Benchmark
+    public String getCategoryPage() {
+        return getCategory.execute(new String[]{"GET_CATEGORY", "user0", "'" + randomCategory() + "'",
+                "sort_price", "dsc", "offset=0", "limit=50"});
+    }
+
+    /**
+     * Renders a whole category: listings / {@value MarketplaceFixture#CATEGORIES} rows per call.
+     */
+    @Benchmark
+    public String getCategoryFull() {
+        return getCategory.execute(new String[]{"GET_CATEGORY", "user0", "'" + randomCategory() + "'", "sort_time", "asc"});
+    }
+
+    /**
+     * A 1% price band read in price order: a sub-range of the price index, no filtering scan.
+     */
+    @Benchmark
+    public String getCategoryPriceRange() {
+        int low = 1 + random.nextInt(99_000);
+        return getCategory.execute(new String[]{"GET_CATEGORY", "user0", "'" + randomCategory() + "'",
+                "sort_price", "asc", "min_price=" + low, "max_price=" + (low + 1_000), "limit=50"});
+    }
+
+    /**
+     * An hour of creation times read in price order: the time index sub-range is collected and sorted.
+     */
+    @Benchmark
+    public String getCategoryTimeWindow() {
+        int hour = random.nextInt(23);
+        return getCategory.execute(new String[]{"GET_CATEGORY", "user0", "'" + randomCategory() + "'",
+                "sort_price", "asc", String.format("created_after='2024-01-01 %02d:00:00'", hour),
+                String.format("created_before='2024-01-01 %02d:00:00'", hour + 1), "limit=50"});
+    }
+
+    /**
+     * Skewed reads through the response cache: the same 1,000 hot listings, mostly served without formatting.
+     */
+    @Benchmark
+    public String getListingCached() {
+        return getListingCached.execute(new String[]{"GET_LISTING", "user0",
+                String.valueOf(MarketplaceFixture.FIRST_ID + random.nextInt(Math.min(1_000, listings)))});
+    }
+
+    /**
+     * Skewed reads through the response cache: first pages of 10 hot categories, served as stored strings.
+     */
+    @Benchmark
+    public String getCategoryPageCached() {
+        return getCategoryCached.execute(new String[]{"GET_CATEGORY", "user0",
+                "'" + MarketplaceFixture.category(random.nextInt(10)) + "'", "sort_price", "dsc", "offset=0", "limit=50"});
+    }
+
+    @Benchmark
+    public String getTopCategory() {
+        return getTopCategory.execute(new String[]{"GET_TOP_CATEGORY", "user0"});
+    }
+
+    @Benchmark
+    public String getTopCategories() {
+        return getTopCategories.execute(new String[]{"GET_TOP_CATEGORIES", "user0", "10"});
+    }
+
+    /**
+     * Two title terms: about listings / 4096 matches, fetched and sorted.
+     */
+    @Benchmark
+    public String searchTwoTerms() {
+        return search.execute(new String[]{"SEARCH", "user0", "'" + randomAdjective() + " " + randomNoun() + "'",
+                "sort_price", "asc", "limit=50"});
+    }
+
+    /**
+     * One title term: about listings / 64 matches, paged from the merged category indexes.
+     */
+    @Benchmark
+    public String searchOneTermPage() {
+        return search.execute(new String[]{"SEARCH", "user0", "'" + randomAdjective() + "'", "sort_time", "dsc", "limit=50"});
+    }
+
+    @Benchmark
+    public String searchInCategory() {
+        return search.execute(new String[]{"SEARCH", "user0", "'" + randomNoun() + "'", "sort_price", "dsc",
+                "category='" + randomCategory() + "'", "limit=50"});
+    }
+
+    private String randomAdjective() {
+        return MarketplaceFixture.adjective(random.nextInt(MarketplaceFixture.ADJECTIVES));
+    }
+
+    private String randomNoun() {
+        return MarketplaceFixture.noun(random.nextInt(MarketplaceFixture.NOUNS));
+    }
+
+    private int randomListingId() {
+        return MarketplaceFixture.FIRST_ID + random.nextInt(listings);
+    }
+
+    private String randomCategory() {
+        return MarketplaceFixture.category(random.nextInt(MarketplaceFixture.CATEGORIES));
+    }
+}
@@ -0,0 +1,117 @@
+package com.carousell.marketplace.benchmark;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.CreateListingCommand;
+import com.carousell.marketplace.command.DeleteListingCommand;
+import com.carousell.marketplace.command.GetCategoryCommand;
+import com.carousell.marketplace.command.GetListingCommand;
+import com.carousell.marketplace.command.GetTopCategoriesCommand;
+import com.carousell.marketplace.command.GetTopCategoryCommand;
+import com.carousell.marketplace.command.RegisterCommand;
+import com.carousell.marketplace.command.SearchCommand;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.repository.MarketplaceWriter;
+import com.carousell.marketplace.repository.ShardedMarketplaceRepository;
+import com.carousell.marketplace.util.Timestamps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Pre-populated repository plus the command beans wired to it, without Spring or the shell.
+ * Listings are spread over {@link #CATEGORIES} categories and {@link #USERS} users, with titles drawn from
+ * a small vocabulary for SEARCH, and loaded through
+ * the bulk writer, so even the 10M fixture builds in minutes.
+ */
+final class MarketplaceFixture {
+
+    static final int USERS = 1_000;
+    static final int CATEGORIES = 100;
+    static final int FIRST_ID = 100001;
+    // Titles combine one of each, so a single title term matches 1/64 of the listings and a pair 1/4096
+    static final int ADJECTIVES = 64;
+    static final int NOUNS = 64;
+
+    // Creation times cycle through the seconds of one day
+    static final long FIRST_DAY = Timestamps.toEpochMillis("2024-01-01 00:00:00");
+
+    private static final int LOAD_BATCH = 10_000;
+
+    final Map<String, Command> commands = new HashMap<>();
+    final ResponseCache cache = new ResponseCache(64L << 20);
+
+    MarketplaceFixture(int listings) {
+        this(listings, new MarketplaceRepository());
+    }
+
+    /**
+     * @param storage "heap" for the single repository, "sharded" for one shard per available processor.
+     */
+    MarketplaceFixture(int listings, String storage) {
+        this(listings, "sharded".equals(storage) ? new ShardedMarketplaceRepository(0) : new MarketplaceRepository());
+    }
+
+    private <R extends MarketplaceReader & MarketplaceWriter> MarketplaceFixture(int listings, R repository) {
+        commands.put("REGISTER", new RegisterCommand(repository, repository));
+        commands.put("CREATE_LISTING", new CreateListingCommand(repository, repository));
+        commands.put("DELETE_LISTING", new DeleteListingCommand(repository, repository));
+        commands.put("GET_LISTING", new GetListingCommand(repository, ResponseCache.disabled()));
+        commands.put("GET_CATEGORY", new GetCategoryCommand(repository, ResponseCache.disabled()));
+        // Read-through variants sharing one cache with the default budget, for the skewed-read benchmarks
+        commands.put("GET_LISTING_CACHED", new GetListingCommand(repository, cache));
+        commands.put("GET_CATEGORY_CACHED", new GetCategoryCommand(repository, cache));
+        commands.put("GET_TOP_CATEGORY", new GetTopCategoryCommand(repository));
+        commands.put("GET_TOP_CATEGORIES", new GetTopCategoriesCommand(repository));
+        commands.put("SEARCH", new SearchCommand(repository));
+
+        for (int u = 0; u < USERS; u++) {
+            repository.registerUser(user(u));
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<Listing> drafts = new ArrayList<>(LOAD_BATCH);
+        for (int i = 0; i < listings; i++) {
+            drafts.add(Listing.builder()
+                    .owner(user(i % USERS))
+                    .title(adjective(random.nextInt(ADJECTIVES)) + " " + noun(random.nextInt(NOUNS)))
+                    .description("A reasonably short listing description")
+                    .price(1 + random.nextInt(100_000))
+                    .category(category(random.nextInt(CATEGORIES)))
+                    .createdAt(FIRST_DAY + (i % 86_400) * 1000L)
+                    .build());
+            if (drafts.size() == LOAD_BATCH) {
+                repository.addListings(drafts);
+                drafts.clear();
+            }
+        }
+        if (!drafts.isEmpty()) {
+            repository.addListings(drafts);
+        }
+    }
+
+    Command command(String name) {
+        return commands.get(name);
+    }
+
+    static String user(int index) {
+        return "user" + index;
+    }
+
+    static String adjective(int index) {
+        return "adj" + index;
+    }
+
+    static String noun(int index) {
+        return "thing" + index;
+    }
+
+    static String category(int index) {
+        return "Category" + index;
+    }
+}
@@ -0,0 +1,109 @@
+package com.carousell.marketplace.benchmark;
+
+import com.carousell.marketplace.command.Command;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a read-heavy command mix against a shared repository.
+ * {@code mixed} runs the 90/10 read/write mix on one thread; {@code contended} runs three reader threads
+ * against one writer thread, which exercises the lock-free ranking and indexes under concurrent writes.
+ * {@code writes} runs create/delete pairs on one thread per core, comparing how the heap and sharded
+ * repositories scale; run it with {@code -t 1,2,4,...} to chart the curve.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+public class MixedWorkloadBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int listings;
+
+    @Param({"heap", "sharded"})
+    public String storage;
+
+    private MarketplaceFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new MarketplaceFixture(listings, storage);
+    }
+
+    /**
+     * Per-thread random source, so threads do not contend on it.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String mixed(Client client) {
+        int roll = client.random.nextInt(100);
+        if (roll < 10) return write(client);
+        return read(client, roll);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public String contendedReads(Client client) {
+        return read(client, client.random.nextInt(100));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public String contendedWrites(Client client) {
+        return write(client);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String writes(Client client) {
+        return write(client);
+    }
+
+    private String read(Client client, int roll) {
+        SplittableRandom random = client.random;
+        if (roll < 60) {
+            int id = MarketplaceFixture.FIRST_ID + random.nextInt(listings);
+            return fixture.command("GET_LISTING").execute(new String[]{"GET_LISTING", "user0", String.valueOf(id)});
+        }
+        if (roll < 85) {
+            String category = MarketplaceFixture.category(random.nextInt(MarketplaceFixture.CATEGORIES));
+            return fixture.command("GET_CATEGORY").execute(new String[]{"GET_CATEGORY", "user0", "'" + category + "'",
+                    "sort_price", "asc", "offset=0", "limit=20"});
+        }
+        return fixture.command("GET_TOP_CATEGORY").execute(new String[]{"GET_TOP_CATEGORY", "user0"});
+    }
+
+    private String write(Client client) {
+        SplittableRandom random = client.random;
+        String user = MarketplaceFixture.user(random.nextInt(MarketplaceFixture.USERS));
+        String category = MarketplaceFixture.category(random.nextInt(MarketplaceFixture.CATEGORIES));
+        String id = fixture.command("CREATE_LISTING").execute(new String[]{"CREATE_LISTING", user, "'Mixed item'",
+                "'Mixed description'", "15", "'" + category + "'"});
+        return fixture.command("DELETE_LISTING").execute(new String[]{"DELETE_LISTING", user, id});
+    }
+}
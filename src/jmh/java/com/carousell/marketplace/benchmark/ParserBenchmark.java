@@ -0,0 +1,81 @@
+package com.carousell.marketplace.benchmark;
+
+import com.carousell.marketplace.util.CommandLine;
+import com.carousell.marketplace.util.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizing a CREATE_LISTING line: the former lookahead-regex split against {@link Parser} and a reused
+ * {@link CommandLine}. The description length is varied because the regex rescans the rest of the line
+ * at every space.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    // The implementation Parser used before the single-pass tokenizer
+    private static final String LEGACY_SPLIT_REGEX = " +(?=(?:[^']*'[^']*')*[^']*$)";
+
+    @Param({"16", "256", "4096"})
+    public int descriptionLength;
+
+    private String input;
+    private final CommandLine line = new CommandLine();
+
+    @Setup
+    public void setUp() {
+        StringBuilder description = new StringBuilder(descriptionLength);
+        while (description.length() < descriptionLength) {
+            description.append("words ");
+        }
+        description.setLength(descriptionLength);
+        input = "CREATE_LISTING user1 'Vintage camera' '" + description.toString().trim() + "' 250 'Electronics'";
+    }
+
+    @Benchmark
+    public void legacyRegex(Blackhole blackhole) {
+        String[] args = input.trim().split(LEGACY_SPLIT_REGEX);
+        blackhole.consume(args[1]);
+        blackhole.consume(args[2].replaceAll("^'|'$", ""));
+        blackhole.consume(args[3].replaceAll("^'|'$", ""));
+        blackhole.consume(args[4]);
+        blackhole.consume(args[5].replaceAll("^'|'$", ""));
+    }
+
+    @Benchmark
+    public void parser(Blackhole blackhole) {
+        String[] args = Parser.parse(input);
+        blackhole.consume(args[1]);
+        blackhole.consume(Parser.stripQuotes(args[2]));
+        blackhole.consume(Parser.stripQuotes(args[3]));
+        blackhole.consume(args[4]);
+        blackhole.consume(Parser.stripQuotes(args[5]));
+    }
+
+    @Benchmark
+    public void commandLineViews(Blackhole blackhole) {
+        line.parse(input);
+        blackhole.consume(line.get(1).length());
+        blackhole.consume(line.unquoted(2).length());
+        blackhole.consume(line.unquoted(3).length());
+        blackhole.consume(line.intValue(4));
+        blackhole.consume(line.unquoted(5).length());
+    }
+}
@@ -0,0 +1,77 @@
+package com.carousell.marketplace.benchmark;
+
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.repository.MarketplaceStatistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cross-checks a quiescent repository's derived state against its listings: per-category counts in the
+ * ranking and the category indexes, the listing count, and that the top category holds the maximum count.
+ * Only meaningful once every writer has stopped.
+ */
+final class RepositoryInvariants {
+
+    private RepositoryInvariants() {
+    }
+
+    /**
+     * @return One message per violated invariant; empty if the repository is consistent.
+     */
+    static <R extends MarketplaceReader & MarketplaceStatistics> List<String> check(R repository) {
+        List<String> violations = new ArrayList<>();
+
+        List<Listing> listings = repository.getAllListings();
+        Map<String, Integer> expected = new HashMap<>();
+        Map<String, String> names = new HashMap<>();
+        for (Listing listing : listings) {
+            String key = listing.getCategory().toLowerCase(Locale.ROOT);
+            expected.merge(key, 1, Integer::sum);
+            names.putIfAbsent(key, listing.getCategory());
+        }
+        if (repository.listingCount() != listings.size()) {
+            violations.add("listing count " + repository.listingCount() + " but " + listings.size() + " listings");
+        }
+
+        Map<String, Integer> ranked = new HashMap<>();
+        int max = 0;
+        for (CategoryCount entry : repository.getTopCategories(Integer.MAX_VALUE)) {
+            ranked.put(entry.getName().toLowerCase(Locale.ROOT), entry.getCount());
+            max = Math.max(max, entry.getCount());
+        }
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            int count = ranked.getOrDefault(entry.getKey(), 0);
+            if (count != entry.getValue()) {
+                violations.add("category " + names.get(entry.getKey()) + " ranked with " + count + " but has " + entry.getValue() + " listings");
+            }
+            int indexed = repository.getListingsByCategory(names.get(entry.getKey())).size();
+            if (indexed != entry.getValue()) {
+                violations.add("category " + names.get(entry.getKey()) + " indexes " + indexed + " of " + entry.getValue() + " listings");
+            }
+        }
+        for (Map.Entry<String, Integer> entry : ranked.entrySet()) {
+            if (!expected.containsKey(entry.getKey())) {
+                violations.add("category " + entry.getKey() + " ranked with " + entry.getValue() + " but has no listings");
+            }
+        }
+
+        String top = repository.getCachedTopCategory();
+        if (listings.isEmpty()) {
+            if (top != null && !top.isEmpty()) {
+                violations.add("top category " + top + " without any listings");
+            }
+        } else {
+            int topCount = top == null ? 0 : expected.getOrDefault(top.toLowerCase(Locale.ROOT), 0);
+            if (topCount != max) {
+                violations.add("top category " + top + " has " + topCount + " listings but the maximum is " + max);
+            }
+        }
+        return violations;
+    }
+}
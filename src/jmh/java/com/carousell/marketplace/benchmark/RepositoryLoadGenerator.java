@@ -0,0 +1,261 @@
+package com.carousell.marketplace.benchmark;
+
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.repository.MarketplaceStatistics;
+import com.carousell.marketplace.repository.MarketplaceWriter;
+import com.carousell.marketplace.repository.ShardedMarketplaceRepository;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Contention harness for the repository itself, without commands or I/O. For each thread count, every
+ * thread runs a random mix of register, add, delete and top-category calls against one fresh repository.
+ * Deletes pick ids recently added by any thread, so threads regularly race to delete the same listing.
+ * <p>
+ * While running, every top category read must name a category that exists. Once the writers stop, the
+ * repository is checked with {@link RepositoryInvariants}. Throughput and per-operation latency percentiles
+ * are printed per thread count, and the process exits with status 1 if any invariant was violated.
+ * <p>
+ * Options, as {@code key=value}: threads (1,2,4,8), seconds (10), warmup (2 seconds), storage (heap or
+ * sharded), users (1000), categories (20), preload (10000 listings), registers (5), adds (40) and deletes
+ * (35) as percent of operations; the rest read the top category.
+ */
+public final class RepositoryLoadGenerator {
+
+    private static final String[] OPERATIONS = {"register", "add", "delete", "top"};
+    private static final int REGISTER = 0;
+    private static final int ADD = 1;
+    private static final int DELETE = 2;
+    private static final int TOP = 3;
+    private static final int RECENT_IDS = 1 << 16;
+    private static final long CREATED_AT = MarketplaceFixture.FIRST_DAY;
+
+    private final int[] threadCounts;
+    private final int seconds;
+    private final int warmupSeconds;
+    private final String storage;
+    private final int users;
+    private final int categories;
+    private final int preload;
+    private final int registerPercent;
+    private final int addPercent;
+    private final int deletePercent;
+
+    private RepositoryLoadGenerator(Map<String, String> options) {
+        threadCounts = Arrays.stream(options.getOrDefault("threads", "1,2,4,8").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "2"));
+        storage = options.getOrDefault("storage", "heap");
+        users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        categories = Integer.parseInt(options.getOrDefault("categories", "20"));
+        preload = Integer.parseInt(options.getOrDefault("preload", "10000"));
+        registerPercent = Integer.parseInt(options.getOrDefault("registers", "5"));
+        addPercent = Integer.parseInt(options.getOrDefault("adds", "40"));
+        deletePercent = Integer.parseInt(options.getOrDefault("deletes", "35"));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        boolean consistent = new RepositoryLoadGenerator(options).run();
+        System.exit(consistent ? 0 : 1);
+    }
+
+    private boolean run() throws InterruptedException {
+        System.out.printf("storage=%s mix=register:%d%%,add:%d%%,delete:%d%%,top:%d%% duration=%ds%n", storage,
+                registerPercent, addPercent, deletePercent, 100 - registerPercent - addPercent - deletePercent, seconds);
+        boolean consistent = true;
+        for (int threads : threadCounts) {
+            consistent &= run(threads);
+        }
+        return consistent;
+    }
+
+    private boolean run(int threads) throws InterruptedException {
+        if ("sharded".equals(storage)) {
+            ShardedMarketplaceRepository repository = new ShardedMarketplaceRepository(0);
+            try {
+                return run(threads, new Target<>(repository));
+            } finally {
+                repository.close();
+            }
+        }
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            return run(threads, new Target<>(repository));
+        } finally {
+            repository.close();
+        }
+    }
+
+    private boolean run(int threads, Target<?> target) throws InterruptedException {
+        for (int u = 0; u < users; u++) {
+            target.repository.registerUser(user(u));
+        }
+        AtomicIntegerArray recent = new AtomicIntegerArray(RECENT_IDS);
+        SplittableRandom seed = new SplittableRandom(42);
+        for (int i = 0; i < preload; i++) {
+            recent.set(i & (RECENT_IDS - 1), target.add(seed, users, categories));
+        }
+        Set<String> knownCategories = new HashSet<>();
+        for (int c = 0; c < categories; c++) {
+            knownCategories.add(category(c));
+        }
+
+        List<Worker> workers = new ArrayList<>(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Worker worker = new Worker(target, recent, knownCategories, new SplittableRandom(t), done);
+            workers.add(worker);
+            Thread thread = new Thread(worker, "repository-load-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        workers.forEach(worker -> worker.measuring = true);
+        TimeUnit.SECONDS.sleep(seconds);
+        workers.forEach(worker -> worker.running = false);
+        done.await();
+
+        Histogram[] latency = new Histogram[OPERATIONS.length];
+        long completed = 0;
+        long anomalies = 0;
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            latency[op] = new Histogram(TimeUnit.SECONDS.toNanos(10), 3);
+            for (Worker worker : workers) {
+                latency[op].add(worker.latency[op]);
+            }
+            completed += latency[op].getTotalCount();
+        }
+        for (Worker worker : workers) {
+            anomalies += worker.anomalies;
+        }
+
+        System.out.printf("threads=%d throughput: %.0f ops/s (%d ops)%n", threads, completed / (double) seconds, completed);
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            Histogram histogram = latency[op];
+            System.out.printf("  %-8s ops=%d p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n", OPERATIONS[op],
+                    histogram.getTotalCount(), histogram.getValueAtPercentile(50) / 1e3,
+                    histogram.getValueAtPercentile(99) / 1e3, histogram.getValueAtPercentile(99.9) / 1e3,
+                    histogram.getMaxValue() / 1e3);
+        }
+
+        List<String> violations = RepositoryInvariants.check(target.repository);
+        if (anomalies > 0) {
+            violations.add(anomalies + " top category reads named an unknown category");
+        }
+        violations.forEach(violation -> System.out.println("  VIOLATION: " + violation));
+        System.out.printf("  invariants: %s (%d listings)%n", violations.isEmpty() ? "ok" : "VIOLATED", target.repository.listingCount());
+        return violations.isEmpty();
+    }
+
+    private String user(int index) {
+        return "stress" + index;
+    }
+
+    private String category(int index) {
+        return "Category" + index;
+    }
+
+    /**
+     * The repository under test, typed so the same calls work for every store.
+     */
+    private final class Target<R extends MarketplaceReader & MarketplaceWriter & MarketplaceStatistics> {
+        final R repository;
+
+        Target(R repository) {
+            this.repository = repository;
+        }
+
+        int add(SplittableRandom random, int userCount, int categoryCount) {
+            return repository.addListing(user(random.nextInt(userCount)), "Stress title", "Stress description",
+                    1 + random.nextInt(100_000), category(random.nextInt(categoryCount)), CREATED_AT);
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final Target<?> target;
+        final AtomicIntegerArray recent;
+        final Set<String> knownCategories;
+        final SplittableRandom random;
+        final CountDownLatch done;
+        final Histogram[] latency = new Histogram[OPERATIONS.length];
+        volatile boolean measuring;
+        volatile boolean running = true;
+        long anomalies;
+
+        Worker(Target<?> target, AtomicIntegerArray recent, Set<String> knownCategories, SplittableRandom random, CountDownLatch done) {
+            this.target = target;
+            this.recent = recent;
+            this.knownCategories = knownCategories;
+            this.random = random;
+            this.done = done;
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                latency[op] = new Histogram(TimeUnit.SECONDS.toNanos(10), 3);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    int roll = random.nextInt(100);
+                    int op = roll < registerPercent ? REGISTER
+                            : roll < registerPercent + addPercent ? ADD
+                            : roll < registerPercent + addPercent + deletePercent ? DELETE
+                            : TOP;
+                    long started = System.nanoTime();
+                    execute(op);
+                    long elapsed = System.nanoTime() - started;
+                    if (measuring) {
+                        latency[op].recordValue(Math.min(elapsed, latency[op].getHighestTrackableValue()));
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void execute(int op) {
+            switch (op) {
+                case REGISTER:
+                    target.repository.registerUser(user(random.nextInt(users * 2)));
+                    break;
+                case ADD:
+                    recent.set(random.nextInt(RECENT_IDS), target.add(random, users, categories));
+                    break;
+                case DELETE:
+                    int id = recent.get(random.nextInt(RECENT_IDS));
+                    if (id != 0) {
+                        target.repository.deleteListing(id);
+                    }
+                    break;
+                default:
+                    String top = target.repository.getCachedTopCategory();
+                    if (top != null && !top.isEmpty() && !knownCategories.contains(top)) {
+                        anomalies++;
+                    }
+            }
+        }
+    }
+}
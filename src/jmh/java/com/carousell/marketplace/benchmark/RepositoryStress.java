@@ -0,0 +1,179 @@
+package com.carousell.marketplace.benchmark;
+
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+import org.openjdk.jcstress.infra.results.LII_Result;
+import org.openjdk.jcstress.infra.results.L_Result;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * jcstress tests of the repository's concurrent write paths. Each state is a fresh repository with a
+ * small event ring; the arbiter closes it once both actors finished. Run through the benchmark profile:
+ * {@code mvn -Pbenchmark test-compile exec:exec@jcstress -Djcstress.args="-t RepositoryStress"}.
+ */
+public final class RepositoryStress {
+
+    private static final int EVENT_BUFFER_SIZE = 16;
+    private static final long CREATED_AT = MarketplaceFixture.FIRST_DAY;
+
+    private RepositoryStress() {
+    }
+
+    static MarketplaceRepository repository(String... categories) {
+        MarketplaceRepository repository = new MarketplaceRepository(EVENT_BUFFER_SIZE, true);
+        repository.registerUser("user1");
+        for (String category : categories) {
+            add(repository, category);
+        }
+        return repository;
+    }
+
+    static int add(MarketplaceRepository repository, String category) {
+        return repository.addListing("user1", "Item", "Desc", 10, category, CREATED_AT);
+    }
+
+    static int count(MarketplaceRepository repository, String category) {
+        return repository.getListingsByCategory(category).size();
+    }
+
+    @JCStressTest
+    @Description("Racing registrations of one name: exactly one succeeds.")
+    @Outcome(id = {"true, false", "false, true"}, expect = ACCEPTABLE, desc = "One registration won")
+    @Outcome(expect = FORBIDDEN, desc = "Both or neither registered the user")
+    @State
+    public static class RegisterSameUser {
+        final MarketplaceRepository repository = repository();
+
+        @Actor
+        public void first(ZZ_Result r) {
+            r.r1 = repository.registerUser("racer");
+        }
+
+        @Actor
+        public void second(ZZ_Result r) {
+            r.r2 = repository.registerUser("racer");
+        }
+
+        @Arbiter
+        public void close() {
+            repository.close();
+        }
+    }
+
+    @JCStressTest
+    @Description("Adds to two empty categories: both counted, and the leader is one of them.")
+    @Outcome(id = {"Alpha, 1, 1", "Beta, 1, 1"}, expect = ACCEPTABLE, desc = "Whichever reached 1 first leads")
+    @Outcome(expect = FORBIDDEN, desc = "Lost count or wrong leader")
+    @State
+    public static class AddTie {
+        final MarketplaceRepository repository = repository();
+
+        @Actor
+        public void alpha() {
+            add(repository, "Alpha");
+        }
+
+        @Actor
+        public void beta() {
+            add(repository, "Beta");
+        }
+
+        @Arbiter
+        public void arbiter(LII_Result r) {
+            r.r1 = repository.getCachedTopCategory();
+            r.r2 = count(repository, "Alpha");
+            r.r3 = count(repository, "Beta");
+            repository.close();
+        }
+    }
+
+    @JCStressTest
+    @Description("The leader loses its listing while the runner-up gains one: the runner-up must lead.")
+    @Outcome(id = "Beta", expect = ACCEPTABLE, desc = "Beta holds the only maximum")
+    @Outcome(expect = FORBIDDEN, desc = "Leader is not the maximum")
+    @State
+    public static class DeleteLeaderWhileAdding {
+        final MarketplaceRepository repository = repository("Alpha", "Beta");
+        final int alpha = repository.getListingsByCategory("Alpha").get(0).getId();
+
+        @Actor
+        public void deleteAlpha() {
+            repository.deleteListing(alpha);
+        }
+
+        @Actor
+        public void addBeta() {
+            add(repository, "Beta");
+        }
+
+        @Arbiter
+        public void arbiter(L_Result r) {
+            r.r1 = repository.getCachedTopCategory();
+            repository.close();
+        }
+    }
+
+    @JCStressTest
+    @Description("Racing deletes of one listing: the count drops once.")
+    @Outcome(id = "0, 1", expect = ACCEPTABLE, desc = "Deleted once")
+    @Outcome(expect = FORBIDDEN, desc = "Counted twice or not at all")
+    @State
+    public static class DeleteSameListing {
+        final MarketplaceRepository repository = repository("Alpha", "Beta");
+        final int alpha = repository.getListingsByCategory("Alpha").get(0).getId();
+
+        @Actor
+        public void first() {
+            repository.deleteListing(alpha);
+        }
+
+        @Actor
+        public void second() {
+            repository.deleteListing(alpha);
+        }
+
+        @Arbiter
+        public void arbiter(II_Result r) {
+            r.r1 = repository.getTopCategories(2).stream()
+                    .filter(entry -> entry.getName().equals("Alpha"))
+                    .mapToInt(entry -> entry.getCount())
+                    .sum();
+            r.r2 = repository.listingCount();
+            repository.close();
+        }
+    }
+
+    @JCStressTest
+    @Description("A reader during a takeover sees the old or the new leader, never none.")
+    @Outcome(id = {"Alpha", "Beta"}, expect = ACCEPTABLE, desc = "A real leader")
+    @Outcome(expect = FORBIDDEN, desc = "No leader or an unknown one")
+    @State
+    public static class TopCategoryDuringTakeover {
+        final MarketplaceRepository repository = repository("Alpha", "Alpha", "Beta");
+
+        @Actor
+        public void overtake() {
+            add(repository, "Beta");
+            add(repository, "Beta");
+        }
+
+        @Actor
+        public void read(L_Result r) {
+            r.r1 = repository.getCachedTopCategory();
+        }
+
+        @Arbiter
+        public void close() {
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.carousell.marketplace.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load generator for the TCP server. Every client keeps {@code pipeline} requests in flight
+ * on its connection, so the server sees {@code clients * pipeline} outstanding requests at all times.
+ * All connections are driven by one selector thread, which keeps thousands of clients cheap.
+ * <p>
+ * Options, as {@code key=value}: host, port, clients (1000), pipeline (8), seconds (30), writes (10,
+ * percent of CREATE_LISTING requests), users (1000), categories (100), preload (100000 listings).
+ */
+public final class ServerLoadGenerator {
+
+    private final String host;
+    private final int port;
+    private final int clients;
+    private final int pipeline;
+    private final int seconds;
+    private final int writePercent;
+    private final int users;
+    private final int categories;
+    private final int preload;
+
+    private final Histogram latency = new Histogram(TimeUnit.SECONDS.toNanos(60), 3);
+    private long completed;
+    private long errors;
+
+    private ServerLoadGenerator(Map<String, String> options) {
+        host = options.getOrDefault("host", "localhost");
+        port = Integer.parseInt(options.getOrDefault("port", "7070"));
+        clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        pipeline = Integer.parseInt(options.getOrDefault("pipeline", "8"));
+        seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        writePercent = Integer.parseInt(options.getOrDefault("writes", "10"));
+        users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        categories = Integer.parseInt(options.getOrDefault("categories", "100"));
+        preload = Integer.parseInt(options.getOrDefault("preload", "100000"));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        new ServerLoadGenerator(options).run();
+    }
+
+    private void run() throws IOException {
+        preload();
+
+        Selector selector = Selector.open();
+        Client[] all = new Client[clients];
+        for (int i = 0; i < clients; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            all[i] = new Client(channel, new SplittableRandom(i));
+            all[i].key = channel.register(selector, SelectionKey.OP_READ, all[i]);
+        }
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.min(5, seconds / 5));
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(seconds);
+        boolean measuring = false;
+        for (Client client : all) {
+            client.fill();
+        }
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= end) break;
+            if (!measuring && now >= warmupEnd) {
+                latency.reset();
+                completed = 0;
+                errors = 0;
+                measuring = true;
+            }
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                if (key.isReadable()) client.read();
+                if (key.isValid() && key.isWritable()) client.flush();
+            }
+        }
+        for (Client client : all) {
+            client.channel.close();
+        }
+        selector.close();
+
+        System.out.printf("clients=%d pipeline=%d writes=%d%% duration=%ds%n", clients, pipeline, writePercent, seconds);
+        System.out.printf("throughput: %.0f requests/s (%d requests, %d errors)%n",
+                completed / (double) seconds, completed, errors);
+        System.out.printf("latency us: p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(99) / 1e3,
+                latency.getValueAtPercentile(99.9) / 1e3, latency.getMaxValue() / 1e3);
+    }
+
+    /**
+     * Registers the load users and seeds listings over a single pipelined connection.
+     */
+    private void preload() throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int u = 0; u < users; u++) {
+                        out.write("REGISTER " + user(u) + "\n");
+                    }
+                    SplittableRandom random = new SplittableRandom(42);
+                    for (int i = 0; i < preload; i++) {
+                        out.write(createListing(random, i % users));
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            writer.start();
+            for (int i = 0; i < users + preload; i++) {
+                while (!in.readLine().isEmpty()) {
+                    // Skip to the end of the response
+                }
+            }
+        }
+    }
+
+    private String createListing(SplittableRandom random, int user) {
+        return "CREATE_LISTING " + user(user) + " 'Load title' 'A listing created by the load generator' "
+                + (1 + random.nextInt(100_000)) + " '" + category(random.nextInt(categories)) + "'\n";
+    }
+
+    private String nextRequest(SplittableRandom random) {
+        int user = random.nextInt(users);
+        if (random.nextInt(100) < writePercent) return createListing(random, user);
+        switch (random.nextInt(3)) {
+            case 0:
+                return "GET_CATEGORY " + user(user) + " '" + category(random.nextInt(categories))
+                        + "' sort_time dsc limit=10\n";
+            case 1:
+                return "GET_TOP_CATEGORY " + user(user) + "\n";
+            default:
+                return "GET_TOP_CATEGORIES " + user(user) + " 10\n";
+        }
+    }
+
+    private static String user(int index) {
+        return "load" + index;
+    }
+
+    private static String category(int index) {
+        return "Category" + index;
+    }
+
+    private final class Client {
+        final SocketChannel channel;
+        final SplittableRandom random;
+        SelectionKey key;
+
+        final ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        ByteBuffer out = ByteBuffer.allocate(0);
+        final long[] sent = new long[pipeline];
+        int head;
+        int inFlight;
+
+        // Response framing: a response ends with an empty line
+        int lineLength;
+        boolean firstLineIsError;
+        boolean atFirstLine = true;
+        final byte[] prefix = new byte[5];
+
+        Client(SocketChannel channel, SplittableRandom random) {
+            this.channel = channel;
+            this.random = random;
+        }
+
+        void fill() throws IOException {
+            if (inFlight == pipeline) return;
+            StringBuilder requests = new StringBuilder();
+            long now = System.nanoTime();
+            while (inFlight < pipeline) {
+                requests.append(nextRequest(random));
+                sent[(head + inFlight) % pipeline] = now;
+                inFlight++;
+            }
+            byte[] bytes = requests.toString().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer merged = ByteBuffer.allocate(out.remaining() + bytes.length);
+            merged.put(out).put(bytes).flip();
+            out = merged;
+            flush();
+        }
+
+        void flush() throws IOException {
+            channel.write(out);
+            key.interestOps(out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void read() throws IOException {
+            in.clear();
+            if (channel.read(in) < 0) throw new IOException("Server closed the connection");
+            in.flip();
+            long now = System.nanoTime();
+            while (in.hasRemaining()) {
+                byte b = in.get();
+                if (b != '\n') {
+                    if (atFirstLine && lineLength < prefix.length) prefix[lineLength] = b;
+                    lineLength++;
+                    continue;
+                }
+                if (lineLength == 0) {
+                    latency.recordValue(Math.min(now - sent[head], latency.getHighestTrackableValue()));
+                    completed++;
+                    if (firstLineIsError) errors++;
+                    head = (head + 1) % pipeline;
+                    inFlight--;
+                    firstLineIsError = false;
+                    atFirstLine = true;
+                } else {
+                    if (atFirstLine) {
+                        firstLineIsError = lineLength >= 5 && new String(prefix, StandardCharsets.US_ASCII).equals("Error");
+                    }
+                    atFirstLine = false;
+                    lineLength = 0;
+                }
+            }
+            fill();
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package com.carousell.marketplace;
 
+import com.carousell.marketplace.batch.BatchShellRunner;
+import com.carousell.marketplace.launcher.LeanLauncher;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.io.IOException;
+
 @SpringBootApplication
 public class MarketplaceApplication {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // --lean skips Spring entirely; see LeanLauncher for what it supports
+        if (LeanLauncher.isRequested(args)) {
+            LeanLauncher.main(args);
+            return;
+        }
+        // Responses are the batch's stdout, so startup and progress logs go to stderr
+        if (BatchShellRunner.isRequested(args)) {
+            System.setProperty("logging.config", "classpath:batch-logback.xml");
+        }
         SpringApplication.run(MarketplaceApplication.class, args);
     }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.carousell.marketplace.admission;
+
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.repository.SymbolTable;
+import com.carousell.marketplace.util.CommandLine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides in the dispatcher whether a command runs at all, so one client flooding the marketplace cannot
+ * take the repository away from everyone else. Rejections fail fast with an error response.
+ * <p>
+ * Every user has a token bucket, keyed by the user's dense id, i.e. the same case-insensitive name that
+ * REGISTER interned; names that are not registered share a few buckets by the same case-insensitive hash.
+ * A command takes its configured cost from the user's bucket, 1 unless listed in the costs. Commands
+ * without a user, such as STATS, are never rate limited.
+ * <p>
+ * On top of that, load is shed in two steps. While the smoothed latency of admitted commands is over the
+ * threshold, users who have spent more than half of their burst are turned away, so heavy users back off
+ * first and light users keep their latency. While more requests wait in the server's queues than allowed,
+ * every new request is turned away.
+ */
+@Component
+@ConditionalOnProperty(prefix = "marketplace.admission", name = "enabled", havingValue = "true")
+public class AdmissionController {
+
+    public static final String RATE_LIMITED = "Error - rate limit exceeded";
+    public static final String OVERLOADED = "Error - server overloaded";
+
+    // Buckets shared by names that are not registered, e.g. REGISTER floods with made-up names
+    private static final int UNREGISTERED_BUCKETS = 64;
+    // Weight of each new sample in the latency average, as a shift: 1/16
+    private static final int LATENCY_SMOOTHING_SHIFT = 4;
+
+    private final MarketplaceReader reader;
+    private final TokenBuckets users;
+    private final TokenBuckets unregistered;
+    private final Map<String, Integer> costs;
+    private final int halfBurst;
+    private final int maxQueued;
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong averageLatencyNanos = new AtomicLong();
+
+    /**
+     * @param userRate Tokens each user's bucket gains per second.
+     * @param userBurst Capacity of each user's bucket; no cost may exceed it.
+     * @param costs Comma-separated {@code COMMAND=tokens} pairs, e.g. {@code GET_CATEGORY=5,SEARCH=5}.
+     * @param maxQueued Requests waiting in the server beyond which new ones are rejected; 0 for no limit.
+     * @param latencyThresholdMs Smoothed command latency above which heavy users are shed; 0 disables it.
+     */
+    @Autowired
+    public AdmissionController(
+            MarketplaceReader reader,
+            @Value("${marketplace.admission.user-rate:100}") double userRate,
+            @Value("${marketplace.admission.user-burst:200}") int userBurst,
+            @Value("${marketplace.admission.costs:}") String costs,
+            @Value("${marketplace.admission.max-queued:0}") int maxQueued,
+            @Value("${marketplace.admission.latency-threshold-ms:0}") long latencyThresholdMs) {
+        this(reader, userRate, userBurst, parseCosts(costs), maxQueued, TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs), System::nanoTime);
+    }
+
+    /**
+     * @param costs Tokens per command name; commands not listed cost 1.
+     * @param nanoClock Monotonic time in nanoseconds for the buckets; a manual clock makes them deterministic.
+     */
+    public AdmissionController(MarketplaceReader reader, double userRate, int userBurst, Map<String, Integer> costs,
+                               int maxQueued, long latencyThresholdNanos, LongSupplier nanoClock) {
+        costs.forEach((name, cost) -> {
+            if (cost < 1 || cost > userBurst) {
+                throw new IllegalArgumentException("Cost of " + name + " must be between 1 and the burst of " + userBurst);
+            }
+        });
+        this.reader = reader;
+        this.users = new TokenBuckets(userRate, userBurst, nanoClock);
+        this.unregistered = new TokenBuckets(userRate, userBurst, nanoClock);
+        this.costs = Collections.unmodifiableMap(new HashMap<>(costs));
+        this.halfBurst = userBurst / 2;
+        this.maxQueued = maxQueued;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+    }
+
+    /**
+     * @param name The command name, e.g. "CREATE_LISTING".
+     * @param line The tokenized input; token 1, if present, is the user the command runs for.
+     * @return null if the command may run, otherwise the error response to return instead.
+     */
+    public String admit(String name, CommandLine line) {
+        if (maxQueued > 0 && queued.get() > maxQueued) return OVERLOADED;
+        if (line.size() < 2) return null;
+
+        CharSequence user = line.get(1);
+        int userId = reader.userId(user);
+        TokenBuckets buckets = userId >= 0 ? users : unregistered;
+        int key = userId >= 0 ? userId : Math.floorMod(SymbolTable.hash(user), UNREGISTERED_BUCKETS);
+        int cost = costs.getOrDefault(name, 1);
+
+        boolean overloaded = latencyThresholdNanos > 0 && averageLatencyNanos.get() > latencyThresholdNanos;
+        if (buckets.tryTake(key, cost, overloaded ? halfBurst : 0)) return null;
+        // Taking nothing while keeping the cost in reserve tells whether the user was only shed, not limited
+        return overloaded && buckets.tryTake(key, 0, cost) ? OVERLOADED : RATE_LIMITED;
+    }
+
+    /**
+     * Feeds the latency of an admitted command into the average that decides when to shed load.
+     */
+    public void completed(long nanos) {
+        averageLatencyNanos.accumulateAndGet(nanos, (average, sample) -> average + ((sample - average) >> LATENCY_SMOOTHING_SHIFT));
+    }
+
+    /**
+     * Counts a request entering or, with a negative delta, leaving a server queue.
+     */
+    public void queued(int delta) {
+        queued.addAndGet(delta);
+    }
+
+    public int queuedRequests() {
+        return queued.get();
+    }
+
+    public long averageLatencyNanos() {
+        return averageLatencyNanos.get();
+    }
+
+    // "NAME=tokens,NAME=tokens"; blank entries are ignored
+    private static Map<String, Integer> parseCosts(String spec) {
+        Map<String, Integer> costs = new HashMap<>();
+        for (String entry : spec.split(",")) {
+            if (entry.trim().isEmpty()) continue;
+            int equals = entry.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected COMMAND=tokens in marketplace.admission.costs, got " + entry);
+            }
+            costs.put(entry.substring(0, equals).trim(), Integer.parseInt(entry.substring(equals + 1).trim()));
+        }
+        return costs;
+    }
+}
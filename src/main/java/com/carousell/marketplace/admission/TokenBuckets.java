@@ -0,0 +1,80 @@
+package com.carousell.marketplace.admission;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by dense ints, as the generic cell rate algorithm (GCRA): instead of a token count and
+ * a refill time, each key holds one theoretical arrival time, the moment its bucket would be full again.
+ * Taking tokens pushes it forward by one emission interval per token and is refused if that would put it
+ * further ahead of now than the burst allows. A take is one CAS on the key's own slot, so no lock is shared.
+ * <p>
+ * Slots live in fixed-size pages, allocated when a key beyond them first appears; an untouched slot reads as
+ * a full bucket.
+ */
+final class TokenBuckets {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    // Nanoseconds per token, and how far the arrival time may run ahead of now: the burst, in nanoseconds
+    private final long interval;
+    private final long tolerance;
+    private final LongSupplier nanoClock;
+    // Times are kept relative to this, so a fresh slot of 0 is always in the past
+    private final long origin;
+
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[1];
+
+    /**
+     * @param ratePerSecond Tokens added to every bucket per second.
+     * @param burst Capacity of a bucket, and so the most tokens one take may ask for.
+     * @param nanoClock Monotonic time in nanoseconds, e.g. {@code System::nanoTime}.
+     */
+    TokenBuckets(double ratePerSecond, int burst, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.interval = Math.max(1, Math.round(1e9 / ratePerSecond));
+        this.tolerance = interval * burst;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    /**
+     * @param reserve Tokens the bucket must still hold after the take, e.g. to only admit light users.
+     * @return true if the tokens were taken; false leaves the bucket unchanged.
+     */
+    boolean tryTake(int key, int tokens, int reserve) {
+        AtomicLongArray page = page(key >>> PAGE_SHIFT);
+        int slot = key & (PAGE_SIZE - 1);
+        long now = nanoClock.getAsLong() - origin;
+        long limit = now + tolerance - reserve * interval;
+        while (true) {
+            long arrival = page.get(slot);
+            long next = Math.max(arrival, now) + tokens * interval;
+            if (next > limit) return false;
+            if (page.compareAndSet(slot, arrival, next)) return true;
+        }
+    }
+
+    private AtomicLongArray page(int index) {
+        AtomicLongArray[] current = pages;
+        AtomicLongArray page = index < current.length ? current[index] : null;
+        return page != null ? page : newPage(index);
+    }
+
+    // A grown array is published by the volatile write; pages are never replaced once set
+    private synchronized AtomicLongArray newPage(int index) {
+        AtomicLongArray[] current = pages;
+        if (index >= current.length) {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, index + 1));
+        }
+        if (current[index] == null) {
+            current[index] = new AtomicLongArray(PAGE_SIZE);
+        }
+        pages = current;
+        return current[index];
+    }
+}
@@ -0,0 +1,175 @@
+package com.carousell.marketplace.batch;
+
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.command.CreateListingCommand;
+import com.carousell.marketplace.command.DeleteListingCommand;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.MarketplaceWriter;
+import com.carousell.marketplace.util.CommandLine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Executes a stream of command lines outside the interactive shell, for bulk imports and replays.
+ * Consecutive CREATE_LISTING or DELETE_LISTING lines are validated one by one but written through a single
+ * bulk repository call, so category counts move once per batch. Responses are identical to the shell's
+ * and are written in input order, one per line.
+ */
+@Component
+public class BatchExecutor {
+
+    private static final String CREATE_LISTING = "CREATE_LISTING";
+    private static final String DELETE_LISTING = "DELETE_LISTING";
+
+    private final CommandDispatcher dispatcher;
+    private final MarketplaceWriter writer;
+    private final CreateListingCommand createListing;
+    private final DeleteListingCommand deleteListing;
+    private final int batchSize;
+
+    public BatchExecutor(
+            CommandDispatcher dispatcher,
+            MarketplaceWriter writer,
+            CreateListingCommand createListing,
+            DeleteListingCommand deleteListing,
+            @Value("${marketplace.batch.size:4096}") int batchSize) {
+        this.dispatcher = dispatcher;
+        this.writer = writer;
+        this.createListing = createListing;
+        this.deleteListing = deleteListing;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs every non-blank line of the input. The output is flushed but not closed.
+     * @return The number of commands executed.
+     */
+    public long execute(BufferedReader in, Writer out) throws IOException {
+        Batch batch = new Batch(out);
+        // Reused for every line; only fields that outlive the line, such as listing titles, are copied
+        CommandLine line = new CommandLine();
+        long executed = 0;
+        String text;
+        while ((text = in.readLine()) != null) {
+            if (line.parse(text).size() == 0) continue;
+            executed++;
+
+            // A read-only replica sends writes to the dispatcher, which rejects them
+            if (dispatcher.isReadOnly()) {
+                dispatcher.execute(line.string(0), line, out);
+                out.write('\n');
+            } else if (line.is(0, CREATE_LISTING)) {
+                batch.create(line);
+            } else if (line.is(0, DELETE_LISTING)) {
+                batch.delete(line);
+            } else {
+                // Any other command may observe the pending writes, so they are applied first
+                batch.flush();
+                dispatcher.execute(line.string(0), line, out);
+                out.write('\n');
+            }
+        }
+        batch.flush();
+        out.flush();
+        return executed;
+    }
+
+    /**
+     * Pending run of same-kind writes and the responses of its lines, in input order.
+     * Responses of accepted lines are filled in when the run is written. Each line is recorded in the
+     * metrics with its own validation time plus an equal share of the bulk write.
+     */
+    private final class Batch {
+        private final Writer out;
+        private final String[] responses = new String[batchSize];
+        private final long[] nanos = new long[batchSize];
+        private int size;
+        private String kind;
+
+        private final List<Listing> drafts = new ArrayList<>();
+        private final int[] draftLines = new int[batchSize];
+        // Shared by every listing of a run, which is created at one instant; Long.MIN_VALUE when unset
+        private long timestamp = Long.MIN_VALUE;
+
+        private final int[] deletions = new int[batchSize];
+        private final Set<Integer> pendingDeletions = new HashSet<>();
+
+        Batch(Writer out) {
+            this.out = out;
+        }
+
+        void create(CommandLine line) throws IOException {
+            begin(CREATE_LISTING);
+            long started = System.nanoTime();
+            String error = createListing.validate(line);
+            if (error == null) {
+                if (timestamp == Long.MIN_VALUE) {
+                    timestamp = CreateListingCommand.currentTimestamp();
+                }
+                draftLines[drafts.size()] = size;
+                drafts.add(createListing.toDraft(line, timestamp));
+            }
+            nanos[size] = System.nanoTime() - started;
+            responses[size++] = error;
+        }
+
+        void delete(CommandLine line) throws IOException {
+            begin(DELETE_LISTING);
+            long started = System.nanoTime();
+            String error = deleteListing.validate(line);
+            if (error == null) {
+                int id = line.intValue(2);
+                // The listing still exists in the repository until the run is written
+                if (pendingDeletions.add(id)) {
+                    deletions[pendingDeletions.size() - 1] = id;
+                    error = "Success";
+                } else {
+                    error = "Error - listing does not exist";
+                }
+            }
+            nanos[size] = System.nanoTime() - started;
+            responses[size++] = error;
+        }
+
+        void flush() throws IOException {
+            long started = System.nanoTime();
+            if (CREATE_LISTING.equals(kind) && !drafts.isEmpty()) {
+                int[] ids = writer.addListings(drafts);
+                for (int i = 0; i < ids.length; i++) {
+                    responses[draftLines[i]] = String.valueOf(ids[i]);
+                }
+            } else if (DELETE_LISTING.equals(kind) && !pendingDeletions.isEmpty()) {
+                int[] ids = new int[pendingDeletions.size()];
+                System.arraycopy(deletions, 0, ids, 0, ids.length);
+                writer.deleteListings(ids);
+            }
+
+            long share = size == 0 ? 0 : (System.nanoTime() - started) / size;
+            for (int i = 0; i < size; i++) {
+                dispatcher.record(kind, nanos[i] + share, responses[i]);
+                out.write(responses[i]);
+                out.write('\n');
+            }
+            size = 0;
+            kind = null;
+            timestamp = Long.MIN_VALUE;
+            drafts.clear();
+            pendingDeletions.clear();
+        }
+
+        private void begin(String nextKind) throws IOException {
+            if (size == batchSize || (kind != null && !kind.equals(nextKind))) {
+                flush();
+            }
+            kind = nextKind;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.carousell.marketplace.batch;
+
+import lombok.RequiredArgsConstructor;
+import com.carousell.marketplace.util.StartupClock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.annotation.Order;
+import org.springframework.shell.ShellRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces the interactive loop when the application is started with {@code --batch=<file>},
+ * or {@code --batch=-} to read commands from stdin. Runs ahead of Spring Shell's own runners.
+ */
+@Slf4j
+@Component
+@Order(BatchShellRunner.PRECEDENCE)
+@RequiredArgsConstructor
+public class BatchShellRunner implements ShellRunner {
+
+    public static final int PRECEDENCE = -200;
+    private static final String OPTION = "batch";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BatchExecutor executor;
+
+    /**
+     * @return true if the arguments start batch mode, whose logging must stay off stdout.
+     */
+    public static boolean isRequested(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--" + OPTION) || arg.startsWith("--" + OPTION + "=")) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean canRun(ApplicationArguments args) {
+        return args.containsOption(OPTION);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String source = args.getOptionValues(OPTION).isEmpty() ? "-" : args.getOptionValues(OPTION).get(0);
+        log.info("Ready for the first batch command {} ms after JVM start", StartupClock.millisSinceStart());
+        long started = System.nanoTime();
+
+        // Writes straight to the stdout descriptor so responses skip System.out's per-line flushing
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), BUFFER_SIZE);
+        try (BufferedReader in = "-".equals(source)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE)
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            long commands = executor.execute(in, out);
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Executed {} batch commands from {} in {} ms ({} lines/s)", commands, source, elapsedMs, commands * 1000 / elapsedMs);
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.carousell.marketplace.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of rendered read responses, weighed by their estimated size in bytes.
+ * <p>
+ * Every entry carries the repository version it was rendered under, e.g. the category's version for a
+ * GET_CATEGORY page. A lookup passes the current version and only an entry with exactly that version is
+ * returned, so a write invalidates by bumping the version and never has to find the entries it affects.
+ * Callers read the version before rendering and only store the response if it is unchanged afterwards, or
+ * render from a snapshot taken at that version.
+ * <p>
+ * Eviction is W-TinyLFU: new entries enter a small LRU window (1% of the budget); entries leaving it are
+ * admitted to the main segmented LRU only if their estimated access frequency beats the entry they would
+ * evict, so a scan of one-off keys cannot flush the hot set. Lookups are lock-free; recording an access
+ * reorders the queues only if the eviction lock is free, so a contended hit may go unrecorded.
+ */
+@Component
+public class ResponseCache {
+
+    // Rough per-entry cost of the node, map entry and String headers
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final long maximum;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final long maxEntryWeight;
+
+    private final ConcurrentHashMap<Object, Node> data = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // Guarded by evictionLock
+    private final FrequencySketch sketch;
+    private final AccessQueue window = new AccessQueue();
+    private final AccessQueue probation = new AccessQueue();
+    private final AccessQueue protectedQueue = new AccessQueue();
+    private long windowWeight;
+    private long mainWeight;
+    private long protectedWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long weightedSize;
+
+    /**
+     * @param maxBytes The memory budget; 0 disables the cache. A single response may use at most 1/64 of it.
+     */
+    public ResponseCache(@Value("${marketplace.cache.max-bytes:67108864}") long maxBytes) {
+        this.maximum = Math.max(0, maxBytes);
+        this.windowMaximum = Math.max(1, maximum / 100);
+        this.protectedMaximum = (maximum - windowMaximum) * 4 / 5;
+        this.maxEntryWeight = maximum / 64;
+        // Sized for entries of about 1 KB, the order of a page of GET_CATEGORY rows
+        this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, maximum / 1024));
+    }
+
+    public static ResponseCache disabled() {
+        return new ResponseCache(0);
+    }
+
+    public boolean isEnabled() {
+        return maxEntryWeight > ENTRY_OVERHEAD;
+    }
+
+    /**
+     * @param version The current version of the data the response depends on.
+     * @return The cached response rendered under exactly that version, or null.
+     */
+    public String get(Object key, long version) {
+        Node node = data.get(key);
+        if (node == null || node.version != version) {
+            misses.increment();
+            if (evictionLock.tryLock()) {
+                try {
+                    sketch.increment(hash(key));
+                    if (node != null && node.version != version && data.remove(key, node)) {
+                        unlink(node);
+                    }
+                } finally {
+                    evictionLock.unlock();
+                }
+            }
+            return null;
+        }
+        hits.increment();
+        if (evictionLock.tryLock()) {
+            try {
+                sketch.increment(node.hash);
+                onAccess(node);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * Stores a response rendered under the given version. Responses over the entry limit are not stored,
+     * nor is one older than the entry it would replace.
+     */
+    public void put(Object key, long version, String response) {
+        long weight = weigh(response);
+        if (weight > maxEntryWeight) return;
+
+        Node node = new Node(key, hash(key), version, response, weight);
+        evictionLock.lock();
+        try {
+            Node previous = data.get(key);
+            if (previous != null) {
+                if (previous.version > version) return;
+                unlink(previous);
+            }
+            data.put(key, node);
+            node.queue = window;
+            window.addLast(node);
+            windowWeight += weight;
+            evict();
+            weightedSize = windowWeight + mainWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return An appender forwarding to {@code out} that keeps a copy of the response while it fits in one entry.
+     */
+    public Recording record(Appendable out) {
+        return new Recording(out, (maxEntryWeight - ENTRY_OVERHEAD) / 2);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long hitCount = hitCount();
+        long total = hitCount + missCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * @return The estimated bytes held by the cached responses.
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    public long maxBytes() {
+        return maximum;
+    }
+
+    private void onAccess(Node node) {
+        if (node.queue == window) {
+            window.moveToBack(node);
+        } else if (node.queue == probation) {
+            // A second hit promotes from probation; the protected segment demotes its LRU entries when full
+            probation.remove(node);
+            node.queue = protectedQueue;
+            protectedQueue.addLast(node);
+            protectedWeight += node.weight;
+            while (protectedWeight > protectedMaximum) {
+                Node demoted = protectedQueue.pollFirst();
+                protectedWeight -= demoted.weight;
+                demoted.queue = probation;
+                probation.addLast(demoted);
+            }
+        } else if (node.queue == protectedQueue) {
+            protectedQueue.moveToBack(node);
+        }
+    }
+
+    /**
+     * Moves the window's LRU entries into the main space, where each must out-rank the entry it displaces.
+     */
+    private void evict() {
+        long mainMaximum = maximum - windowMaximum;
+        while (windowWeight > windowMaximum) {
+            Node candidate = window.pollFirst();
+            windowWeight -= candidate.weight;
+            candidate.queue = probation;
+            probation.addLast(candidate);
+            mainWeight += candidate.weight;
+
+            while (mainWeight > mainMaximum) {
+                Node victim = probation.peekFirst();
+                if (victim == candidate) {
+                    victim = protectedQueue.peekFirst();
+                }
+                if (victim == null) {
+                    evict(candidate);
+                    break;
+                }
+                if (sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                    evict(victim);
+                } else {
+                    evict(candidate);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void evict(Node node) {
+        data.remove(node.key, node);
+        unlink(node);
+        evictions.increment();
+    }
+
+    private void unlink(Node node) {
+        AccessQueue queue = node.queue;
+        if (queue == null) return;
+        queue.remove(node);
+        node.queue = null;
+        if (queue == window) {
+            windowWeight -= node.weight;
+        } else {
+            mainWeight -= node.weight;
+            if (queue == protectedQueue) {
+                protectedWeight -= node.weight;
+            }
+        }
+        weightedSize = windowWeight + mainWeight;
+    }
+
+    private static long weigh(String response) {
+        // Two bytes per char: a conservative bound whether or not the string is stored compactly
+        return ENTRY_OVERHEAD + 2L * response.length();
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Tee that writes through to the response sink and keeps a copy of up to a fixed number of chars.
+     */
+    public static final class Recording implements Appendable {
+        private final Appendable out;
+        private final long limit;
+        private StringBuilder copy = new StringBuilder();
+
+        Recording(Appendable out, long limit) {
+            this.out = out;
+            this.limit = limit;
+        }
+
+        /**
+         * @return Everything appended, or null if it outgrew the limit.
+         */
+        public String result() {
+            return copy == null ? null : copy.toString();
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            out.append(csq);
+            if (copy != null) {
+                copy.append(csq);
+                trim();
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            out.append(csq, start, end);
+            if (copy != null) {
+                copy.append(csq, start, end);
+                trim();
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            out.append(c);
+            if (copy != null) {
+                copy.append(c);
+                trim();
+            }
+            return this;
+        }
+
+        private void trim() {
+            if (copy.length() > limit) {
+                copy = null;
+            }
+        }
+    }
+
+    private static final class Node {
+        final Object key;
+        final int hash;
+        final long version;
+        final String value;
+        final long weight;
+
+        // Guarded by the eviction lock
+        AccessQueue queue;
+        Node prev;
+        Node next;
+
+        Node(Object key, int hash, long version, String value, long weight) {
+            this.key = key;
+            this.hash = hash;
+            this.version = version;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list in access order, least recently used first.
+     */
+    private static final class AccessQueue {
+        private Node first;
+        private Node last;
+
+        Node peekFirst() {
+            return first;
+        }
+
+        Node pollFirst() {
+            Node node = first;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void addLast(Node node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+}
@@ -1,10 +1,47 @@
 package com.carousell.marketplace.command;
 
+import com.carousell.marketplace.util.CommandLine;
+
+import java.io.IOException;
+
 public interface Command {
     /**
      * Executes the marketplace command logic.
+     * @param line The tokenized input from the CLI; token 0 is the command name.
+     * @return The response string to be sent to STDOUT.
+     */
+    String execute(CommandLine line);
+
+    /**
      * @param args The split input parts from the CLI.
      * @return The response string to be sent to STDOUT.
      */
-    String execute(String[] args);
-}
\ No newline at end of file
+    default String execute(String[] args) {
+        return execute(CommandLine.of(args));
+    }
+
+    /**
+     * Writes the response to a sink instead of returning it, without a trailing line break.
+     * Commands with large responses override this to write rows as they are produced.
+     * @param line The tokenized input; token 0 is the command name.
+     * @param out Receives the same text {@link #execute(CommandLine)} returns.
+     */
+    default void execute(CommandLine line, Appendable out) throws IOException {
+        out.append(execute(line));
+    }
+
+    /**
+     * @return true if the command changes marketplace state; a read-only replica rejects these.
+     */
+    default boolean isWrite() {
+        return false;
+    }
+
+    /**
+     * @return true if the command reaches beyond the marketplace, e.g. the server's disk, so only the local
+     *         shell and batch mode may run it; the TCP server rejects these.
+     */
+    default boolean isLocalOnly() {
+        return false;
+    }
+}
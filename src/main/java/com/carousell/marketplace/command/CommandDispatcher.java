@@ -0,0 +1,204 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.admission.AdmissionController;
+import com.carousell.marketplace.metrics.CommandMetrics;
+import com.carousell.marketplace.util.CommandLine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Single entry point for executing commands by name, shared by the shell, batch mode and the TCP server.
+ * Times every execution and records it in {@link CommandMetrics}. With an {@link AdmissionController},
+ * a command it turns away is answered with its error and never reaches the repository.
+ */
+@Component
+public class CommandDispatcher {
+
+    private static final String UNKNOWN_COMMAND = "Error - unknown command";
+    private static final String READ_ONLY = "Error - read-only replica";
+
+    // Spring injects all beans implementing the Command interface into this map, keyed by bean name
+    private final Map<String, Command> commands;
+    private final CommandMetrics metrics;
+
+    // Reused per thread so streaming a response does not allocate a wrapper per command
+    private final ThreadLocal<ErrorCapture> captures = ThreadLocal.withInitial(ErrorCapture::new);
+
+    // Set on replication followers, whose state only changes through the leader's stream
+    private final boolean readOnly;
+
+    // Null unless admission control is enabled
+    private final AdmissionController admission;
+
+    public CommandDispatcher(Map<String, Command> commands, CommandMetrics metrics) {
+        this(commands, metrics, "none");
+    }
+
+    /**
+     * @param replicationRole On a "follower", every command that changes state is rejected.
+     */
+    public CommandDispatcher(Map<String, Command> commands, CommandMetrics metrics, String replicationRole) {
+        this(commands, metrics, replicationRole, Optional.empty());
+    }
+
+    public CommandDispatcher(Map<String, Command> commands, CommandMetrics metrics, AdmissionController admission) {
+        this(commands, metrics, "none", Optional.of(admission));
+    }
+
+    @Autowired
+    public CommandDispatcher(Map<String, Command> commands, CommandMetrics metrics,
+                             @Value("${marketplace.replication.role:none}") String replicationRole,
+                             Optional<AdmissionController> admission) {
+        this.commands = commands;
+        this.metrics = metrics;
+        this.readOnly = "follower".equals(replicationRole);
+        this.admission = admission.orElse(null);
+    }
+
+    /**
+     * @param name The command name, e.g. "REGISTER".
+     * @param line The tokenized input; token 0 is the command name.
+     */
+    public String execute(String name, CommandLine line) {
+        Command command = commands.get(name);
+        if (command == null) {
+            return UNKNOWN_COMMAND;
+        }
+
+        if (readOnly && command.isWrite()) {
+            metrics.record(name, 0, READ_ONLY);
+            return READ_ONLY;
+        }
+        String rejection = admission != null ? admission.admit(name, line) : null;
+        if (rejection != null) {
+            metrics.record(name, 0, rejection);
+            return rejection;
+        }
+
+        long started = System.nanoTime();
+        String response = command.execute(line);
+        long elapsed = System.nanoTime() - started;
+        metrics.record(name, elapsed, response);
+        if (admission != null) {
+            admission.completed(elapsed);
+        }
+        return response;
+    }
+
+    /**
+     * Streams the response to the sink without a trailing line break; see {@link Command#execute(CommandLine, Appendable)}.
+     * The recorded latency includes the time spent writing to the sink.
+     */
+    public void execute(String name, CommandLine line, Appendable out) throws IOException {
+        Command command = commands.get(name);
+        if (command == null) {
+            out.append(UNKNOWN_COMMAND);
+            return;
+        }
+        if (readOnly && command.isWrite()) {
+            metrics.record(name, 0, READ_ONLY);
+            out.append(READ_ONLY);
+            return;
+        }
+        String rejection = admission != null ? admission.admit(name, line) : null;
+        if (rejection != null) {
+            metrics.record(name, 0, rejection);
+            out.append(rejection);
+            return;
+        }
+
+        ErrorCapture capture = captures.get().reset(out);
+        long started = System.nanoTime();
+        try {
+            command.execute(line, capture);
+        } finally {
+            capture.target = null;
+        }
+        long elapsed = System.nanoTime() - started;
+        metrics.record(name, elapsed, capture.response());
+        if (admission != null) {
+            admission.completed(elapsed);
+        }
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return true if the named command exists and may only run locally; see {@link Command#isLocalOnly}.
+     */
+    public boolean isLocalOnly(String name) {
+        Command command = commands.get(name);
+        return command != null && command.isLocalOnly();
+    }
+
+    /**
+     * Counts requests entering or, with a negative delta, leaving a server queue, for the admission
+     * controller's queue limit; ignored without one.
+     */
+    public void queued(int delta) {
+        if (admission != null) {
+            admission.queued(delta);
+        }
+    }
+
+    /**
+     * Records a command executed outside {@link #execute}, e.g. a line written through a bulk call.
+     */
+    public void record(String name, long nanos, String response) {
+        metrics.record(name, nanos, response);
+    }
+
+    /**
+     * Forwards to the real sink and keeps the start of the response, which is enough to recognise and
+     * label error responses; those are always short.
+     */
+    private static final class ErrorCapture implements Appendable {
+        private static final int CAPTURED = 128;
+
+        private final StringBuilder head = new StringBuilder(CAPTURED);
+        private Appendable target;
+
+        ErrorCapture reset(Appendable target) {
+            this.target = target;
+            head.setLength(0);
+            return this;
+        }
+
+        /**
+         * @return The error response, or an empty string for any other response.
+         */
+        String response() {
+            return CommandMetrics.isError(head) ? head.toString() : "";
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            if (head.length() < CAPTURED) {
+                head.append(csq, start, Math.min(end, start + CAPTURED - head.length()));
+            }
+            target.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            if (head.length() < CAPTURED) {
+                head.append(c);
+            }
+            target.append(c);
+            return this;
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package com.carousell.marketplace.command;
 
+import com.carousell.marketplace.model.Listing;
 import com.carousell.marketplace.repository.MarketplaceReader;
 import com.carousell.marketplace.repository.MarketplaceWriter;
-import com.carousell.marketplace.util.Parser;
+import com.carousell.marketplace.util.CommandLine;
+import com.carousell.marketplace.util.Timestamps;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
 /**
  * Spring-managed component for creating marketplace listings.
  * Implements strict business validation and dynamic timestamps.
@@ -18,9 +17,6 @@ public class CreateListingCommand implements Command {
     private final MarketplaceReader reader;
     private final MarketplaceWriter writer;
 
-    // Using modern java.time API for thread-safe date formatting
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
     /**
      * Spring automatically injects the singleton MarketplaceRepository bean here.
      */
@@ -30,47 +26,82 @@ public class CreateListingCommand implements Command {
     }
 
     @Override
-    public String execute(String[] args) {
+    public String execute(CommandLine line) {
+        String error = validate(line);
+        if (error != null) {
+            return error;
+        }
+
+        // 5. Dynamic Timestamp (Addressing rejection feedback)
+        Listing draft = toDraft(line, currentTimestamp());
+
+        // 6. Persistence
+        int id = writer.addListing(draft.getOwner(), draft.getTitle(), draft.getDescription(),
+                draft.getPrice(), draft.getCategory(), draft.getCreatedAt());
+        return String.valueOf(id);
+    }
+
+    /**
+     * Runs every check of CREATE_LISTING without writing anything; shared with batch execution.
+     * @return The error response, or null if the arguments describe a valid listing.
+     */
+    public String validate(CommandLine line) {
         // 1. Argument validation
-        if (args.length < 6) {
+        if (line.size() < 6) {
             return "Error - invalid arguments";
         }
 
         // 2. Authentication check
-        String username = args[1];
-        if (!reader.userExists(username)) {
+        if (!reader.userExists(line.get(1))) {
             return "Error - unknown user";
         }
 
-        // 3. Data extraction and quote stripping
-        String title = Parser.stripQuotes(args[2]);
-        String desc = Parser.stripQuotes(args[3]);
-        String category = Parser.stripQuotes(args[5]);
-
-        // 4. Business Validation (Addressing rejection feedback)
-        if (isInvalid(title) || isInvalid(desc) || isInvalid(category)) {
+        // 3. Business Validation (Addressing rejection feedback), on unquoted views of the fields
+        if (isInvalid(line.unquoted(2)) || isInvalid(line.unquoted(3)) || isInvalid(line.unquoted(5))) {
             return "Error - title, description, and category cannot be empty";
         }
 
-        double price;
         try {
-            price = Double.parseDouble(args[4]);
-            if (price <= 0) {
+            if (Double.parseDouble(line.string(4)) <= 0) {
                 return "Error - price must be a positive value";
             }
         } catch (NumberFormatException e) {
             return "Error - invalid price format";
         }
+        return null;
+    }
 
-        // 5. Dynamic Timestamp (Addressing rejection feedback)
-        String timestamp = LocalDateTime.now().format(FORMATTER);
+    /**
+     * Builds the listing described by arguments that passed {@link #validate}; the id is assigned on write.
+     */
+    public Listing toDraft(CommandLine line, long createdAt) {
+        return Listing.builder()
+                .owner(line.string(1))
+                .title(line.unquotedString(2))
+                .description(line.unquotedString(3))
+                .price(Double.parseDouble(line.string(4)))
+                .category(line.unquotedString(5))
+                .createdAt(createdAt)
+                .build();
+    }
 
-        // 6. Persistence
-        int id = writer.addListing(username, title, desc, price, category, timestamp);
-        return String.valueOf(id);
+    /**
+     * @return The creation time stamped on new listings: local wall-clock time to the second, as epoch millis.
+     */
+    public static long currentTimestamp() {
+        return Timestamps.now();
+    }
+
+    // Same as trim().isEmpty(), without copying the field
+    private boolean isInvalid(CharSequence str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (str.charAt(i) > ' ') return false;
+        }
+        return true;
     }
 
-    private boolean isInvalid(String str) {
-        return str == null || str.trim().isEmpty();
+    @Override
+    public boolean isWrite() {
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.carousell.marketplace.command;
 import com.carousell.marketplace.model.Listing;
 import com.carousell.marketplace.repository.MarketplaceReader;
 import com.carousell.marketplace.repository.MarketplaceWriter;
+import com.carousell.marketplace.util.CommandLine;
 import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
 
@@ -17,28 +18,43 @@ public class DeleteListingCommand implements Command {
     private final MarketplaceWriter writer;
 
     @Override
-    public String execute(String[] args) {
-        if (args.length < 3) return "Error - invalid arguments";
+    public String execute(CommandLine line) {
+        String error = validate(line);
+        if (error != null) return error;
 
-        String user = args[1];
-        if (!reader.userExists(user)) return "Error - unknown user";
+        writer.deleteListing(line.intValue(2));
+        return "Success";
+    }
+
+    /**
+     * Runs every check of DELETE_LISTING without writing anything; shared with batch execution.
+     * @return The error response, or null if the caller may delete the listing.
+     */
+    public String validate(CommandLine line) {
+        if (line.size() < 3) return "Error - invalid arguments";
+
+        int userId = reader.userId(line.get(1));
+        if (userId < 0) return "Error - unknown user";
 
         try {
-            int id = Integer.parseInt(args[2]);
+            int id = line.intValue(2);
             Listing listing = reader.getListing(id);
 
             if (listing == null) return "Error - listing does not exist";
 
-            // Validation: Only the owner can delete their listing
-            if (!listing.getOwner().equalsIgnoreCase(user)) {
+            // Validation: Only the owner can delete their listing; user ids are case-insensitive already
+            if (listing.getOwnerId() != userId) {
                 return "Error - listing owner mismatch";
             }
-
-            writer.deleteListing(id);
-            return "Success";
+            return null;
 
         } catch (NumberFormatException e) {
             return "Error - invalid listing id";
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean isWrite() {
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.repository.MarketplaceWriter;
+import com.carousell.marketplace.util.CommandLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulk cleanup of a user's own listings: {@code DELETE_USER_LISTINGS <username> ['<category>']}.
+ * Deletes every listing the user owns, or only those in the category, as one batch that moves each
+ * category count once. Responds with the number of listings deleted.
+ */
+@Component("DELETE_USER_LISTINGS")
+@RequiredArgsConstructor
+public class DeleteUserListingsCommand implements Command {
+    private final MarketplaceReader reader;
+    private final MarketplaceWriter writer;
+
+    @Override
+    public String execute(CommandLine line) {
+        if (line.size() < 2) return "Error - invalid arguments";
+
+        if (!reader.userExists(line.get(1))) return "Error - unknown user";
+
+        CharSequence category = null;
+        if (line.size() > 2) {
+            category = line.unquoted(2);
+            if (reader.getCategoryView(category).size() == 0) return "Error - category not found";
+        }
+        return String.valueOf(writer.deleteUserListings(line.get(1), category));
+    }
+
+    @Override
+    public boolean isWrite() {
+        return true;
+    }
+}
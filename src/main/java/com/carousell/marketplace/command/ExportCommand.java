@@ -0,0 +1,87 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.persistence.ExportCodec;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.CommandLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Local operations command writing the whole marketplace to a file: {@code EXPORT '<file>' [compressed]}.
+ * The file is created in the export directory and replaced atomically, so a failed export never leaves a
+ * partial file behind. Responds with the number of listings written. Only the heap store supports it, and only
+ * the local shell and batch mode may run it.
+ */
+@Slf4j
+@Component("EXPORT")
+public class ExportCommand implements Command {
+
+    private final Optional<MarketplaceRepository> repository;
+    private final Path directory;
+
+    public ExportCommand(Optional<MarketplaceRepository> repository,
+                         @Value("${marketplace.export.directory:data/exports}") String directory) {
+        this.repository = repository;
+        this.directory = Paths.get(directory);
+    }
+
+    @Override
+    public String execute(CommandLine line) {
+        if (line.size() < 2 || line.size() > 3) return "Error - invalid arguments";
+        if (line.size() == 3 && !line.is(2, "compressed")) return "Error - invalid arguments";
+        if (repository.isEmpty()) return "Error - not supported by this storage mode";
+
+        Path file = exportFile(directory, line.unquotedString(1));
+        if (file == null) return "Error - invalid file name";
+
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try {
+            Files.createDirectories(directory);
+            long written;
+            try (FileChannel channel = FileChannel.open(partial,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = ExportCodec.write(channel, repository.get(), line.size() == 3);
+                channel.force(false);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Exported {} listings to {}", written, file);
+            return String.valueOf(written);
+        } catch (IOException e) {
+            log.warn("Export to {} failed", file, e);
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // The next export truncates it anyway
+            }
+            return "Error - export failed";
+        }
+    }
+
+    @Override
+    public boolean isLocalOnly() {
+        return true;
+    }
+
+    /**
+     * Resolves a bare file name inside the export directory; paths are refused so clients cannot reach
+     * other files on the server.
+     * @return The file, or null if the name is empty or not a plain file name.
+     */
+    static Path exportFile(Path directory, String name) {
+        if (name.isEmpty() || name.equals(".") || name.equals("..")
+                || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0 || name.indexOf('\0') >= 0) {
+            return null;
+        }
+        return directory.resolve(name);
+    }
+}
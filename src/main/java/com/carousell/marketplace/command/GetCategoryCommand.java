@@ -1,54 +1,165 @@
 package com.carousell.marketplace.command;
 
+import com.carousell.marketplace.cache.ResponseCache;
 import com.carousell.marketplace.command.sort.ListingSortStrategy;
 import com.carousell.marketplace.command.sort.SortStrategyFactory;
 import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.CategoryView;
+import com.carousell.marketplace.repository.ListingRange;
 import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.util.CommandLine;
+import com.carousell.marketplace.util.ListingFormatter;
 import com.carousell.marketplace.util.Parser;
+import com.carousell.marketplace.util.Timestamps;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Handles category-based filtering and sorting.
- * Employs the Strategy Pattern to decouple sorting logic from the command.
+ * Employs the Strategy Pattern to resolve the pre-sorted index view, so a page is read without sorting.
+ * Rows are written to the response sink as they are read, so nothing is built per category.
+ * Optional trailing arguments {@code offset=N} and {@code limit=N} select a page of the result.
+ * {@code min_price=P} and {@code max_price=P} (inclusive) and {@code created_after='yyyy-MM-dd HH:mm:ss'} and
+ * {@code created_before=...} (exclusive) restrict it to a range, read as a range scan of the category index.
  */
 @Component("GET_CATEGORY")
 @RequiredArgsConstructor
 public class GetCategoryCommand implements Command {
 
     private final MarketplaceReader reader;
+    private final ResponseCache cache;
 
     @Override
-    public String execute(String[] args) {
-        if (args.length < 5) return "Error - invalid arguments";
+    public String execute(CommandLine line) {
+        StringBuilder out = new StringBuilder();
+        try {
+            execute(line, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
 
-        if (!reader.userExists(args[1])) return "Error - unknown user";
+    /**
+     * Streams the page row by row, so memory is bounded by the sink's buffering rather than the category size.
+     */
+    @Override
+    public void execute(CommandLine line, Appendable out) throws IOException {
+        String error = write(line, out);
+        if (error != null) {
+            out.append(error);
+        }
+    }
 
-        String categoryName = Parser.stripQuotes(args[2]);
-        List<Listing> filtered = reader.getAllListings().stream()
-                .filter(l -> l.getCategory().equalsIgnoreCase(categoryName))
-                .collect(Collectors.toList());
+    /**
+     * @return An error response if the request was rejected before any row was written, otherwise null.
+     */
+    private String write(CommandLine line, Appendable out) throws IOException {
+        if (line.size() < 5) return "Error - invalid arguments";
+
+        if (!reader.userExists(line.get(1))) return "Error - unknown user";
+
+        CategoryView view = reader.getCategoryView(line.unquoted(2));
+        long version = view.version();
+
+        if (view.size() == 0) return "Error - category not found";
+
+        Map<String, String> options;
+        long offset;
+        long limit;
+        try {
+            options = Parser.parseOptions(line, 5);
+            offset = Long.parseLong(options.getOrDefault("offset", "0"));
+            limit = Long.parseLong(options.getOrDefault("limit", String.valueOf(Long.MAX_VALUE)));
+        } catch (IllegalArgumentException e) {
+            return "Error - invalid page parameters";
+        }
+        if (offset < 0 || limit <= 0) return "Error - invalid page parameters";
 
-        if (filtered.isEmpty()) return "Error - category not found";
+        ListingRange range = parseRange(options);
+        if (range == null) return "Error - invalid range parameters";
+        view = view.range(range);
 
+        Stream<Listing> sorted;
         try {
-            ListingSortStrategy strategy = SortStrategyFactory.getStrategy(args[3], args[4]);
-            filtered.sort(strategy.getComparator());
+            ListingSortStrategy strategy = SortStrategyFactory.getStrategy(line.string(3), line.string(4));
+            sorted = strategy.resolve(view);
         } catch (Exception e) {
             return "Error - invalid sort parameters";
         }
 
-        return filtered.stream()
-                .map(this::formatOutput)
-                .collect(Collectors.joining("\n"));
+        if (!cache.isEnabled()) {
+            ListingFormatter.appendRows(out, sorted.skip(offset).limit(limit));
+            return null;
+        }
+
+        String key = cacheKey(line);
+        // A snapshot's rows belong to its own version; a live view is checked again once it has been read
+        boolean snapshot = version >= 0;
+        if (!snapshot) {
+            version = reader.categoryVersion(line.unquoted(2));
+        }
+        String cached = cache.get(key, version);
+        if (cached != null) {
+            out.append(cached);
+            return null;
+        }
+        ResponseCache.Recording recording = cache.record(out);
+        ListingFormatter.appendRows(recording, sorted.skip(offset).limit(limit));
+        String response = recording.result();
+        if (response != null && (snapshot || reader.categoryVersion(line.unquoted(2)) == version)) {
+            cache.put(key, version, response);
+        }
+        return null;
     }
 
-    private String formatOutput(Listing l) {
-        return String.format("%s|%s|%.0f|%s|%s|%s",
-                l.getTitle(), l.getDescription(), l.getPrice(),
-                l.getCreatedAt(), l.getCategory(), l.getOwner());
+    /**
+     * The request after the username, with the category folded to lower case as it is matched.
+     */
+    private static String cacheKey(CommandLine line) {
+        StringBuilder key = new StringBuilder("GET_CATEGORY ").append(line.unquotedString(2).toLowerCase(Locale.ROOT));
+        for (int i = 3; i < line.size(); i++) {
+            key.append(' ').append(line.get(i));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return The requested bounds, or null if a value is malformed or a price is not a number.
+     */
+    private static ListingRange parseRange(Map<String, String> options) {
+        ListingRange.ListingRangeBuilder range = ListingRange.builder();
+        try {
+            String minPrice = options.get("min_price");
+            if (minPrice != null) {
+                double value = Double.parseDouble(minPrice);
+                if (Double.isNaN(value)) return null;
+                range.minPrice(value);
+            }
+            String maxPrice = options.get("max_price");
+            if (maxPrice != null) {
+                double value = Double.parseDouble(maxPrice);
+                if (Double.isNaN(value)) return null;
+                range.maxPrice(value);
+            }
+            String createdAfter = options.get("created_after");
+            if (createdAfter != null) {
+                range.createdAfter(Timestamps.toEpochMillis(createdAfter));
+            }
+            String createdBefore = options.get("created_before");
+            if (createdBefore != null) {
+                range.createdBefore(Timestamps.toEpochMillis(createdBefore));
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+        return range.build();
     }
-}
\ No newline at end of file
+}
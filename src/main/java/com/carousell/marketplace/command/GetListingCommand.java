@@ -1,44 +1,55 @@
 package com.carousell.marketplace.command;
 
+import com.carousell.marketplace.cache.ResponseCache;
 import com.carousell.marketplace.model.Listing;
 import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.util.CommandLine;
+import com.carousell.marketplace.util.ListingFormatter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 /**
  * Spring-managed component for retrieving specific listings.
  * Strictly adheres to the required pipe-separated output format.
+ * Rendered rows are kept in the {@link ResponseCache}, validated against the listing's version.
  */
 @Component("GET_LISTING")
 @RequiredArgsConstructor
 public class GetListingCommand implements Command {
 
     private final MarketplaceReader reader;
+    private final ResponseCache cache;
 
     @Override
-    public String execute(String[] args) {
-        if (args.length < 3) return "Error - invalid arguments";
+    public String execute(CommandLine line) {
+        if (line.size() < 3) return "Error - invalid arguments";
 
-        String username = args[1];
-        if (!reader.userExists(username)) return "Error - unknown user";
+        if (!reader.userExists(line.get(1))) return "Error - unknown user";
 
         try {
-            int listingId = Integer.parseInt(args[2]);
-            Listing listing = reader.getListing(listingId);
+            int listingId = line.intValue(2);
+            if (!cache.isEnabled()) return render(reader.getListing(listingId));
 
-            if (listing == null) return "Error - not found";
+            long version = reader.listingVersion(listingId);
+            String cached = cache.get(listingId, version);
+            if (cached != null) return cached;
 
-            // Format: title|description|price|created_at|category|username
-            return String.format("%s|%s|%.0f|%s|%s|%s",
-                    listing.getTitle(),
-                    listing.getDescription(),
-                    listing.getPrice(),
-                    listing.getCreatedAt(),
-                    listing.getCategory(),
-                    listing.getOwner());
+            Listing listing = reader.getListing(listingId);
+            String response = render(listing);
+            if (listing != null && reader.listingVersion(listingId) == version) {
+                cache.put(listingId, version, response);
+            }
+            return response;
 
         } catch (NumberFormatException e) {
             return "Error - invalid listing id";
         }
     }
+
+    private static String render(Listing listing) {
+        if (listing == null) return "Error - not found";
+
+        // Format: title|description|price|created_at|category|username
+        return ListingFormatter.format(listing);
+    }
 }
\ No newline at end of file
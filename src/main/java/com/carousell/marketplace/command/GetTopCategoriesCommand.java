@@ -0,0 +1,43 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.util.CommandLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Returns the N leading categories with their listing counts, read from the repository's leaderboard.
+ * The first line always matches GET_TOP_CATEGORY, so ties keep the incumbent in front.
+ */
+@Component("GET_TOP_CATEGORIES")
+@RequiredArgsConstructor
+public class GetTopCategoriesCommand implements Command {
+
+    private final MarketplaceReader reader;
+
+    @Override
+    public String execute(CommandLine line) {
+        if (line.size() < 3) return "Error - invalid arguments";
+
+        if (!reader.userExists(line.get(1))) return "Error - unknown user";
+
+        int n;
+        try {
+            n = line.intValue(2);
+        } catch (NumberFormatException e) {
+            return "Error - invalid count";
+        }
+        if (n <= 0) return "Error - invalid count";
+
+        List<CategoryCount> top = reader.getTopCategories(n);
+
+        // Format: category|count
+        return top.stream()
+                .map(c -> c.getName() + "|" + c.getCount())
+                .collect(Collectors.joining("\n"));
+    }
+}
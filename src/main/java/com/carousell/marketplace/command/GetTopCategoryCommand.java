@@ -1,6 +1,7 @@
 package com.carousell.marketplace.command;
 
 import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.util.CommandLine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -15,11 +16,10 @@ public class GetTopCategoryCommand implements Command {
     private final MarketplaceReader reader;
 
     @Override
-    public String execute(String[] args) {
-        if (args.length < 2) return "Error - invalid arguments";
+    public String execute(CommandLine line) {
+        if (line.size() < 2) return "Error - invalid arguments";
 
-        String username = args[1];
-        if (!reader.userExists(username)) return "Error - unknown user";
+        if (!reader.userExists(line.get(1))) return "Error - unknown user";
 
         String topCategory = reader.getCachedTopCategory();
         return (topCategory == null || topCategory.isEmpty()) ? "" : topCategory;
@@ -0,0 +1,66 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.persistence.ExportCodec;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.CommandLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Local operations command loading a file written by EXPORT: {@code IMPORT '<file>'}.
+ * Users and listings are added alongside the existing ones, keeping their ids; listings whose id is already
+ * taken are skipped. Responds with the number of listings imported. Only the heap store supports it, and only
+ * the local shell and batch mode may run it.
+ */
+@Slf4j
+@Component("IMPORT")
+public class ImportCommand implements Command {
+
+    private final Optional<MarketplaceRepository> repository;
+    private final Path directory;
+
+    public ImportCommand(Optional<MarketplaceRepository> repository,
+                         @Value("${marketplace.export.directory:data/exports}") String directory) {
+        this.repository = repository;
+        this.directory = Paths.get(directory);
+    }
+
+    @Override
+    public String execute(CommandLine line) {
+        if (line.size() != 2) return "Error - invalid arguments";
+        if (repository.isEmpty()) return "Error - not supported by this storage mode";
+
+        Path file = ExportCommand.exportFile(directory, line.unquotedString(1));
+        if (file == null) return "Error - invalid file name";
+        if (!Files.isRegularFile(file)) return "Error - file not found";
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long imported = ExportCodec.read(channel, repository.get());
+            log.info("Imported {} listings from {}", imported, file);
+            return String.valueOf(imported);
+        } catch (IOException e) {
+            // Listings before the damage stay imported; importing the file again skips them
+            log.warn("Import from {} failed", file, e);
+            return "Error - invalid export file";
+        }
+    }
+
+    @Override
+    public boolean isWrite() {
+        return true;
+    }
+
+    @Override
+    public boolean isLocalOnly() {
+        return true;
+    }
+}
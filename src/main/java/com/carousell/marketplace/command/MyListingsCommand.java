@@ -0,0 +1,78 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.command.sort.ListingSortStrategy;
+import com.carousell.marketplace.command.sort.SortStrategyFactory;
+import com.carousell.marketplace.repository.CategoryView;
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.util.CommandLine;
+import com.carousell.marketplace.util.ListingFormatter;
+import com.carousell.marketplace.util.Parser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Lists a user's own listings: {@code MY_LISTINGS <username> <sort_key> <order> [offset=N] [limit=N]}.
+ * Pages are read from the repository's per-owner index, pre-sorted like a category, so the cost does not
+ * depend on how many listings other users have. Rows use the GET_CATEGORY format; no listings yields an
+ * empty response.
+ */
+@Component("MY_LISTINGS")
+@RequiredArgsConstructor
+public class MyListingsCommand implements Command {
+
+    private final MarketplaceReader reader;
+
+    @Override
+    public String execute(CommandLine line) {
+        StringBuilder out = new StringBuilder();
+        try {
+            execute(line, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void execute(CommandLine line, Appendable out) throws IOException {
+        String error = write(line, out);
+        if (error != null) {
+            out.append(error);
+        }
+    }
+
+    /**
+     * @return An error response if the request was rejected before any row was written, otherwise null.
+     */
+    private String write(CommandLine line, Appendable out) throws IOException {
+        if (line.size() < 4) return "Error - invalid arguments";
+
+        if (!reader.userExists(line.get(1))) return "Error - unknown user";
+
+        long offset;
+        long limit;
+        try {
+            Map<String, String> options = Parser.parseOptions(line, 4);
+            offset = Long.parseLong(options.getOrDefault("offset", "0"));
+            limit = Long.parseLong(options.getOrDefault("limit", String.valueOf(Long.MAX_VALUE)));
+        } catch (IllegalArgumentException e) {
+            return "Error - invalid page parameters";
+        }
+        if (offset < 0 || limit <= 0) return "Error - invalid page parameters";
+
+        ListingSortStrategy strategy;
+        try {
+            strategy = SortStrategyFactory.getStrategy(line.string(2), line.string(3));
+        } catch (Exception e) {
+            return "Error - invalid sort parameters";
+        }
+
+        CategoryView own = reader.getOwnerView(line.get(1));
+        ListingFormatter.appendRows(out, strategy.resolve(own).skip(offset).limit(limit));
+        return null;
+    }
+}
@@ -2,6 +2,7 @@ package com.carousell.marketplace.command;
 
 import com.carousell.marketplace.repository.MarketplaceReader;
 import com.carousell.marketplace.repository.MarketplaceWriter;
+import com.carousell.marketplace.util.CommandLine;
 import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
 
@@ -16,14 +17,19 @@ public class RegisterCommand implements Command {
     private final MarketplaceWriter writer;
 
     @Override
-    public String execute(String[] args) {
-        if (args.length < 2) return "Error - invalid arguments";
+    public String execute(CommandLine line) {
+        if (line.size() < 2) return "Error - invalid arguments";
 
-        String username = args[1];
+        String username = line.string(1);
 
         // Atomically attempt registration to prevent race conditions
         boolean success = writer.registerUser(username);
 
         return success ? "Success" : "Error - user already existing";
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean isWrite() {
+        return true;
+    }
+}
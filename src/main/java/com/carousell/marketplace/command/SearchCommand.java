@@ -0,0 +1,86 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.command.sort.ListingSortStrategy;
+import com.carousell.marketplace.command.sort.SortStrategyFactory;
+import com.carousell.marketplace.repository.CategoryView;
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.util.CommandLine;
+import com.carousell.marketplace.util.ListingFormatter;
+import com.carousell.marketplace.util.Parser;
+import com.carousell.marketplace.util.TextTokenizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text search: {@code SEARCH <username> '<terms>' <sort_key> <order> [category=<name>] [offset=N] [limit=N]}.
+ * A listing matches if its title or description contains every term, compared case-insensitively as whole
+ * words. Rows use the GET_CATEGORY format and order; no match yields an empty response.
+ */
+@Component("SEARCH")
+@RequiredArgsConstructor
+public class SearchCommand implements Command {
+
+    private final MarketplaceReader reader;
+
+    @Override
+    public String execute(CommandLine line) {
+        StringBuilder out = new StringBuilder();
+        try {
+            execute(line, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void execute(CommandLine line, Appendable out) throws IOException {
+        String error = write(line, out);
+        if (error != null) {
+            out.append(error);
+        }
+    }
+
+    /**
+     * @return An error response if the request was rejected before any row was written, otherwise null.
+     */
+    private String write(CommandLine line, Appendable out) throws IOException {
+        if (line.size() < 5) return "Error - invalid arguments";
+
+        if (!reader.userExists(line.get(1))) return "Error - unknown user";
+
+        List<String> terms = TextTokenizer.terms(line.unquoted(2));
+        if (terms.isEmpty()) return "Error - invalid search terms";
+
+        String category;
+        long offset;
+        long limit;
+        try {
+            Map<String, String> options = Parser.parseOptions(line, 5);
+            category = options.get("category");
+            offset = Long.parseLong(options.getOrDefault("offset", "0"));
+            limit = Long.parseLong(options.getOrDefault("limit", String.valueOf(Long.MAX_VALUE)));
+        } catch (IllegalArgumentException e) {
+            return "Error - invalid page parameters";
+        }
+        if (offset < 0 || limit <= 0) return "Error - invalid page parameters";
+
+        if (category != null && reader.getCategoryView(category).size() == 0) return "Error - category not found";
+
+        ListingSortStrategy strategy;
+        try {
+            strategy = SortStrategyFactory.getStrategy(line.string(3), line.string(4));
+        } catch (Exception e) {
+            return "Error - invalid sort parameters";
+        }
+
+        CategoryView matches = reader.search(terms, category);
+        ListingFormatter.appendRows(out, strategy.resolve(matches).skip(offset).limit(limit));
+        return null;
+    }
+}
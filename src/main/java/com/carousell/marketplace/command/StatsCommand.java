@@ -0,0 +1,66 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.admission.AdmissionController;
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.metrics.CommandMetrics;
+import com.carousell.marketplace.metrics.CommandMetrics.CommandStats;
+import com.carousell.marketplace.replication.ReplicationStatus;
+import com.carousell.marketplace.repository.MarketplaceStatistics;
+import com.carousell.marketplace.util.CommandLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Local operations command printing per-command metrics and repository gauges.
+ * Latencies are in microseconds. Replication lines are only printed on a leader or follower, admission lines
+ * only with admission control enabled.
+ */
+@Component("STATS")
+@RequiredArgsConstructor
+public class StatsCommand implements Command {
+
+    private final CommandMetrics metrics;
+    private final MarketplaceStatistics statistics;
+    private final ResponseCache cache;
+    private final Optional<ReplicationStatus> replication;
+    private final Optional<AdmissionController> admission;
+
+    @Override
+    public String execute(CommandLine line) {
+        StringBuilder out = new StringBuilder("command|count|errors|p50_us|p99_us|p999_us|max_us");
+        StringBuilder errors = new StringBuilder();
+        for (CommandStats stats : metrics.snapshot()) {
+            out.append('\n').append(stats.getCommand())
+                    .append('|').append(stats.getCount())
+                    .append('|').append(stats.getErrors())
+                    .append('|').append(String.format("%.1f|%.1f|%.1f|%.1f", stats.getP50(), stats.getP99(), stats.getP999(), stats.getMax()));
+            stats.getErrorsByResponse().forEach((response, count) ->
+                    errors.append("\nerror|").append(stats.getCommand()).append('|').append(response).append('|').append(count));
+        }
+
+        out.append("\nlistings|").append(statistics.listingCount())
+                .append("\ncategories|").append(statistics.categoryCount())
+                .append("\nranking_capacity|").append(statistics.rankingCapacity())
+                .append("\nincumbent_reevaluations|").append(statistics.incumbentReEvaluations())
+                .append("\nincumbent_reevaluation_us|").append(statistics.incumbentReEvaluationNanos() / 1_000)
+                .append("\npending_listing_events|").append(statistics.pendingListingEvents())
+                .append("\ncache_hits|").append(cache.hitCount())
+                .append("\ncache_misses|").append(cache.missCount())
+                .append("\ncache_hit_rate|").append(String.format("%.3f", cache.hitRate()))
+                .append("\ncache_evictions|").append(cache.evictionCount())
+                .append("\ncache_entries|").append(cache.size())
+                .append("\ncache_bytes|").append(cache.weightedSize()).append('/').append(cache.maxBytes());
+        replication.ifPresent(status -> out
+                .append("\nreplication_role|").append(status.role())
+                .append("\nreplication_position|").append(status.position())
+                .append("\nreplication_lag_records|").append(status.lagRecords())
+                .append("\nreplication_lag_ms|").append(status.lagMillis())
+                .append("\nreplication_connections|").append(status.connections()));
+        admission.ifPresent(controller -> out
+                .append("\nadmission_queued_requests|").append(controller.queuedRequests())
+                .append("\nadmission_average_latency_us|").append(controller.averageLatencyNanos() / 1_000));
+        return out.append(errors).toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.repository.TrendWindow;
+import com.carousell.marketplace.util.CommandLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Returns the N categories with the most live listings created in the last hour or day, with their counts.
+ * Answered from the repository's sliding-window counters, so the cost does not grow with the listings.
+ */
+@Component("TRENDING_CATEGORIES")
+@RequiredArgsConstructor
+public class TrendingCategoriesCommand implements Command {
+
+    private final MarketplaceReader reader;
+
+    @Override
+    public String execute(CommandLine line) {
+        if (line.size() < 4) return "Error - invalid arguments";
+
+        if (!reader.userExists(line.get(1))) return "Error - unknown user";
+
+        TrendWindow window = TrendWindow.of(line.string(2));
+        if (window == null) return "Error - invalid window";
+
+        int n;
+        try {
+            n = line.intValue(3);
+        } catch (NumberFormatException e) {
+            return "Error - invalid count";
+        }
+        if (n <= 0) return "Error - invalid count";
+
+        List<CategoryCount> trending = reader.getTrendingCategories(window, n);
+
+        // Format: category|count
+        return trending.stream()
+                .map(c -> c.getName() + "|" + c.getCount())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -1,11 +1,22 @@
 package com.carousell.marketplace.command.sort;
 
 import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.CategoryView;
+
 import java.util.Comparator;
+import java.util.stream.Stream;
 
 /**
- * Functional interface for sorting strategies.
+ * Sorting strategy for listings.
+ * Strategies either expose a comparator or resolve directly to the matching pre-sorted index view.
  */
 public interface ListingSortStrategy {
     Comparator<Listing> getComparator();
-}
\ No newline at end of file
+
+    /**
+     * Resolves the strategy to the index view that is already in the requested order.
+     * @param view The category view to read from.
+     * @return A lazy stream of the category's listings in this strategy's order.
+     */
+    Stream<Listing> resolve(CategoryView view);
+}
@@ -1,8 +1,11 @@
 package com.carousell.marketplace.command.sort;
 
 import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.CategoryView;
+import com.carousell.marketplace.repository.SortKey;
 import lombok.RequiredArgsConstructor;
 import java.util.Comparator;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class PriceSortStrategy implements ListingSortStrategy {
@@ -10,7 +13,16 @@ public class PriceSortStrategy implements ListingSortStrategy {
 
     @Override
     public Comparator<Listing> getComparator() {
-        Comparator<Listing> comp = Comparator.comparingDouble(Listing::getPrice);
-        return "dsc".equalsIgnoreCase(order) ? comp.reversed() : comp;
+        Comparator<Listing> comp = SortKey.PRICE.comparator();
+        return isDescending() ? comp.reversed() : comp;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Stream<Listing> resolve(CategoryView view) {
+        return view.stream(SortKey.PRICE, isDescending());
+    }
+
+    private boolean isDescending() {
+        return "dsc".equalsIgnoreCase(order);
+    }
+}
@@ -1,11 +1,19 @@
 package com.carousell.marketplace.controller;
 
-import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.util.CommandLine;
+import org.jline.terminal.Terminal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Controller that exposes the marketplace logic as CLI commands.
@@ -14,10 +22,13 @@ import java.util.Map;
 @ShellComponent
 public class MarketplaceShellController {
 
-    // Spring injects all beans implementing the Command interface into this map.
-    // The key is the bean name (e.g., "REGISTER", "CREATE_LISTING").
+    // Resolves commands by bean name (e.g., "REGISTER", "CREATE_LISTING") and records their metrics
     @Autowired
-    private Map<String, Command> commands;
+    private CommandDispatcher dispatcher;
+
+    // Large responses are streamed to the terminal rather than returned
+    @Autowired
+    private Terminal terminal;
 
     @ShellMethod(key = "REGISTER", value = "Register a new user")
     public String register(String username) {
@@ -49,8 +60,79 @@ public class MarketplaceShellController {
             String username,
             String category,
             String sortKey,
-            String sortOrder) {
-        return execute("GET_CATEGORY", username, category, sortKey, sortOrder);
+            String sortOrder,
+            @ShellOption(defaultValue = ShellOption.NULL) Long offset,
+            @ShellOption(defaultValue = ShellOption.NULL) Long limit,
+            @ShellOption(defaultValue = ShellOption.NULL) String minPrice,
+            @ShellOption(defaultValue = ShellOption.NULL) String maxPrice,
+            @ShellOption(defaultValue = ShellOption.NULL) String createdAfter,
+            @ShellOption(defaultValue = ShellOption.NULL) String createdBefore) {
+        List<String> args = new ArrayList<>(Arrays.asList(username, category, sortKey, sortOrder));
+        if (offset != null) {
+            args.add("offset=" + offset);
+        }
+        if (limit != null) {
+            args.add("limit=" + limit);
+        }
+        if (minPrice != null) {
+            args.add("min_price=" + minPrice);
+        }
+        if (maxPrice != null) {
+            args.add("max_price=" + maxPrice);
+        }
+        if (createdAfter != null) {
+            args.add("created_after=" + createdAfter);
+        }
+        if (createdBefore != null) {
+            args.add("created_before=" + createdBefore);
+        }
+        return stream("GET_CATEGORY", args.toArray(new String[0]));
+    }
+
+    @ShellMethod(key = "SEARCH", value = "Search listing titles and descriptions for all of the given terms")
+    public String search(
+            String username,
+            String terms,
+            String sortKey,
+            String sortOrder,
+            @ShellOption(defaultValue = ShellOption.NULL) String category,
+            @ShellOption(defaultValue = ShellOption.NULL) Long offset,
+            @ShellOption(defaultValue = ShellOption.NULL) Long limit) {
+        List<String> args = new ArrayList<>(Arrays.asList(username, terms, sortKey, sortOrder));
+        if (category != null) {
+            args.add("category=" + category);
+        }
+        if (offset != null) {
+            args.add("offset=" + offset);
+        }
+        if (limit != null) {
+            args.add("limit=" + limit);
+        }
+        return stream("SEARCH", args.toArray(new String[0]));
+    }
+
+    @ShellMethod(key = "MY_LISTINGS", value = "List your own listings with sorting")
+    public String myListings(
+            String username,
+            String sortKey,
+            String sortOrder,
+            @ShellOption(defaultValue = ShellOption.NULL) Long offset,
+            @ShellOption(defaultValue = ShellOption.NULL) Long limit) {
+        List<String> args = new ArrayList<>(Arrays.asList(username, sortKey, sortOrder));
+        if (offset != null) {
+            args.add("offset=" + offset);
+        }
+        if (limit != null) {
+            args.add("limit=" + limit);
+        }
+        return stream("MY_LISTINGS", args.toArray(new String[0]));
+    }
+
+    @ShellMethod(key = "DELETE_USER_LISTINGS", value = "Delete all of your listings, or those in one category")
+    public String deleteUserListings(String username, @ShellOption(defaultValue = ShellOption.NULL) String category) {
+        return category == null
+                ? execute("DELETE_USER_LISTINGS", username)
+                : execute("DELETE_USER_LISTINGS", username, category);
     }
 
     @ShellMethod(key = "GET_TOP_CATEGORY", value = "Get the highest volume category")
@@ -58,20 +140,61 @@ public class MarketplaceShellController {
         return execute("GET_TOP_CATEGORY", username);
     }
 
+    @ShellMethod(key = "GET_TOP_CATEGORIES", value = "Get the N highest volume categories with counts")
+    public String getTopCategories(String username, String n) {
+        return execute("GET_TOP_CATEGORIES", username, n);
+    }
+
+    @ShellMethod(key = "TRENDING_CATEGORIES", value = "Get the N categories with the most listings created in the last hour or day")
+    public String trendingCategories(String username, String window, String n) {
+        return execute("TRENDING_CATEGORIES", username, window, n);
+    }
+
+    @ShellMethod(key = "EXPORT", value = "Write all users, categories and listings to a file in the export directory")
+    public String export(String file, @ShellOption(defaultValue = ShellOption.NULL) String compressed) {
+        return compressed == null
+                ? execute("EXPORT", file)
+                : execute("EXPORT", file, compressed);
+    }
+
+    @ShellMethod(key = "IMPORT", value = "Load users, categories and listings from a file in the export directory")
+    public String importFile(String file) {
+        return execute("IMPORT", file);
+    }
+
+    @ShellMethod(key = "STATS", value = "Show command latency, error counts and repository gauges")
+    public String stats() {
+        return execute("STATS");
+    }
+
     /**
      * Helper to bridge the Shell input to the Command pattern logic.
      */
     private String execute(String cmdName, String... args) {
-        Command cmd = commands.get(cmdName);
-        if (cmd == null) {
-            return "Error - unknown command";
+        return dispatcher.execute(cmdName, commandLine(cmdName, args));
+    }
+
+    /**
+     * Writes the response straight to the terminal as it is produced instead of returning it as one String.
+     * @return null, so the shell prints nothing further.
+     */
+    private String stream(String cmdName, String... args) {
+        PrintWriter out = terminal.writer();
+        try {
+            dispatcher.execute(cmdName, commandLine(cmdName, args), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        out.println();
+        out.flush();
+        return null;
+    }
 
+    private static CommandLine commandLine(String cmdName, String... args) {
         // Reconstruct the args array for the Command.execute method
         String[] fullArgs = new String[args.length + 1];
         fullArgs[0] = cmdName;
         System.arraycopy(args, 0, fullArgs, 1, args.length);
-
-        return cmd.execute(fullArgs);
+        return CommandLine.of(fullArgs);
     }
 }
\ No newline at end of file
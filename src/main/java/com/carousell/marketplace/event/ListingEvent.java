@@ -0,0 +1,30 @@
+package com.carousell.marketplace.event;
+
+import com.carousell.marketplace.model.Listing;
+import lombok.Getter;
+
+/**
+ * A listing added to or removed from a repository.
+ * Events are preallocated slots of the {@link ListingEventBus} ring and are overwritten once every
+ * subscriber has handled them, so handlers must copy what they want to keep.
+ */
+@Getter
+public final class ListingEvent {
+
+    public enum Type {
+        ADDED,
+        REMOVED
+    }
+
+    private Type type;
+    // The listing as it was added, or as it was when removed
+    private Listing listing;
+
+    ListingEvent() {
+    }
+
+    void set(Type type, Listing listing) {
+        this.type = type;
+        this.listing = listing;
+    }
+}
@@ -0,0 +1,225 @@
+package com.carousell.marketplace.event;
+
+import com.carousell.marketplace.model.Listing;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-producer ring buffer of listing changes, in the style of the LMAX Disruptor.
+ * <p>
+ * A writer claims the next sequence number with one atomic increment, fills the preallocated slot and
+ * marks it published; it never allocates or takes a lock. Each subscriber has its own thread that handles
+ * every contiguous run of published events as one batch, then advances its sequence. A writer only waits
+ * when the ring is full, i.e. when the slowest subscriber is a full ring behind.
+ * <p>
+ * Idle subscribers park after a short spin and flag that they did so; writers unpark flagged subscribers,
+ * which costs them one volatile read per subscriber otherwise.
+ */
+@Slf4j
+public final class ListingEventBus implements AutoCloseable {
+
+    private static final int SPINS = 100;
+
+    private final String name;
+    private final ListingEvent[] ring;
+    private final int mask;
+
+    // Last claimed sequence, and per slot the sequence last published into it
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLongArray published;
+
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private volatile boolean running = true;
+
+    /**
+     * @param bufferSize Ring capacity; rounded up to a power of two.
+     */
+    public ListingEventBus(String name, int bufferSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, Math.min(bufferSize, 1 << 30)) - 1) << 1;
+        this.name = name;
+        this.ring = new ListingEvent[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new ListingEvent();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Starts a thread delivering every event published from now on to the handler.
+     */
+    public synchronized Subscription subscribe(String handlerName, ListingEventHandler handler) {
+        Subscription subscription = new Subscription(handler, claimed.get());
+        Thread thread = new Thread(subscription::run, name + "-" + handlerName);
+        thread.setDaemon(true);
+        subscription.thread = thread;
+
+        Subscription[] current = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        current[current.length - 1] = subscription;
+        subscriptions = current;
+        thread.start();
+        return subscription;
+    }
+
+    /**
+     * Publishes one event; blocks only while the ring is full.
+     * @return The event's sequence number.
+     */
+    public long publish(ListingEvent.Type type, Listing listing) {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - ring.length;
+        while (wrapPoint > slowestSequence() && running) {
+            LockSupport.parkNanos(1_000);
+        }
+
+        int index = (int) sequence & mask;
+        ring[index].set(type, listing);
+        published.set(index, sequence);
+
+        for (Subscription subscription : subscriptions) {
+            if (subscription.sleeping) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * @return The last sequence number claimed by a writer, or -1 if none.
+     */
+    public long cursor() {
+        return claimed.get();
+    }
+
+    /**
+     * @return Events claimed but not yet handled by the slowest subscriber.
+     */
+    public long backlog() {
+        return Math.max(0, cursor() - Math.min(slowestSequence(), cursor()));
+    }
+
+    /**
+     * Stops every subscriber thread; events not yet handled are dropped.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Subscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.thread);
+        }
+    }
+
+    private long slowestSequence() {
+        long slowest = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            slowest = Math.min(slowest, subscription.sequence.get());
+        }
+        return slowest;
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == sequence;
+    }
+
+    /**
+     * One subscriber's position in the bus.
+     */
+    public final class Subscription {
+        private final ListingEventHandler handler;
+        private final AtomicLong sequence;
+        private Thread thread;
+        private volatile boolean sleeping;
+        private volatile int waiters;
+
+        Subscription(ListingEventHandler handler, long initial) {
+            this.handler = handler;
+            this.sequence = new AtomicLong(initial);
+        }
+
+        /**
+         * @return The last sequence number handled.
+         */
+        public long sequence() {
+            return sequence.get();
+        }
+
+        /**
+         * Blocks until the handler has handled every event up to the given sequence number.
+         */
+        public void awaitSequence(long target) {
+            for (int i = 0; i < SPINS; i++) {
+                if (sequence.get() >= target || !running) return;
+                Thread.onSpinWait();
+            }
+            boolean interrupted = false;
+            synchronized (this) {
+                waiters++;
+                try {
+                    while (sequence.get() < target && running) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                } finally {
+                    waiters--;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (running) {
+                if (!isPublished(next)) {
+                    if (idle++ < SPINS) {
+                        Thread.onSpinWait();
+                    } else {
+                        // Flag first, then re-check, so a writer publishing meanwhile always sees the flag
+                        sleeping = true;
+                        if (!isPublished(next) && running) {
+                            LockSupport.park(this);
+                        }
+                        sleeping = false;
+                    }
+                    continue;
+                }
+                idle = 0;
+
+                long last = next;
+                long limit = claimed.get();
+                while (last < limit && isPublished(last + 1)) {
+                    last++;
+                }
+                for (long s = next; s <= last; s++) {
+                    ListingEvent event = ring[(int) s & mask];
+                    try {
+                        handler.onEvent(event, s, s == last);
+                    } catch (RuntimeException e) {
+                        log.error("Listing event handler {} failed on event {}", thread.getName(), s, e);
+                    }
+                }
+                sequence.set(last);
+                next = last + 1;
+
+                if (waiters > 0) {
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.carousell.marketplace.event;
+
+/**
+ * Subscriber of a {@link ListingEventBus}; each handler runs on its own thread and sees every event in order.
+ */
+@FunctionalInterface
+public interface ListingEventHandler {
+
+    /**
+     * @param sequence The event's position in the bus, starting at 0.
+     * @param endOfBatch true for the last event currently available; handlers may flush batched work here.
+     */
+    void onEvent(ListingEvent event, long sequence, boolean endOfBatch);
+}
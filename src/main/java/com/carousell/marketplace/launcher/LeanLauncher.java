@@ -0,0 +1,164 @@
+package com.carousell.marketplace.launcher;
+
+import com.carousell.marketplace.batch.BatchExecutor;
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.command.CreateListingCommand;
+import com.carousell.marketplace.command.DeleteListingCommand;
+import com.carousell.marketplace.command.DeleteUserListingsCommand;
+import com.carousell.marketplace.command.ExportCommand;
+import com.carousell.marketplace.command.GetCategoryCommand;
+import com.carousell.marketplace.command.GetListingCommand;
+import com.carousell.marketplace.command.GetTopCategoriesCommand;
+import com.carousell.marketplace.command.GetTopCategoryCommand;
+import com.carousell.marketplace.command.ImportCommand;
+import com.carousell.marketplace.command.MyListingsCommand;
+import com.carousell.marketplace.command.RegisterCommand;
+import com.carousell.marketplace.command.SearchCommand;
+import com.carousell.marketplace.command.StatsCommand;
+import com.carousell.marketplace.command.TrendingCategoriesCommand;
+import com.carousell.marketplace.metrics.CommandMetrics;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.CommandLine;
+import com.carousell.marketplace.util.StartupClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Startup-optimized entry point: wires the commands against a heap repository by hand, without Spring's
+ * context, auto-configuration or the JLine shell, so the first command runs as soon as those classes load.
+ * <p>
+ * Accepts {@code --batch=<file>} (or {@code --batch=-}) like the Spring application; without it, commands are
+ * read line by line from stdin, tokenized like batch lines, with a prompt when attached to a terminal.
+ * Only the batch, cache, event and export options below are read; persistence, the TCP server, replication and the
+ * other storage modes need the full application. Logging goes to stderr, configured by {@code lean-logback.xml}.
+ */
+public final class LeanLauncher {
+
+    public static final String OPTION = "--lean";
+
+    private static final String PROMPT = "# ";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private LeanLauncher() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "lean-logback.xml");
+        }
+        Logger log = LoggerFactory.getLogger(LeanLauncher.class);
+        Map<String, String> options = parse(args);
+
+        MarketplaceRepository repository = new MarketplaceRepository(
+                Integer.parseInt(options.getOrDefault("marketplace.events.buffer-size", "65536")),
+                Boolean.parseBoolean(options.getOrDefault("marketplace.events.read-your-writes", "true")));
+        ResponseCache cache = new ResponseCache(Long.parseLong(options.getOrDefault("marketplace.cache.max-bytes", "67108864")));
+        CommandMetrics metrics = new CommandMetrics(new SimpleMeterRegistry());
+
+        // Keyed by the Spring bean names, which the dispatcher resolves command names against
+        CreateListingCommand createListing = new CreateListingCommand(repository, repository);
+        DeleteListingCommand deleteListing = new DeleteListingCommand(repository, repository);
+        Map<String, Command> commands = new HashMap<>();
+        commands.put("REGISTER", new RegisterCommand(repository, repository));
+        commands.put("CREATE_LISTING", createListing);
+        commands.put("DELETE_LISTING", deleteListing);
+        commands.put("GET_LISTING", new GetListingCommand(repository, cache));
+        commands.put("GET_CATEGORY", new GetCategoryCommand(repository, cache));
+        commands.put("GET_TOP_CATEGORY", new GetTopCategoryCommand(repository));
+        commands.put("GET_TOP_CATEGORIES", new GetTopCategoriesCommand(repository));
+        commands.put("TRENDING_CATEGORIES", new TrendingCategoriesCommand(repository));
+        commands.put("SEARCH", new SearchCommand(repository));
+        commands.put("MY_LISTINGS", new MyListingsCommand(repository));
+        commands.put("DELETE_USER_LISTINGS", new DeleteUserListingsCommand(repository, repository));
+        commands.put("STATS", new StatsCommand(metrics, repository, cache, Optional.empty(), Optional.empty()));
+        String exportDirectory = options.getOrDefault("marketplace.export.directory", "data/exports");
+        commands.put("EXPORT", new ExportCommand(Optional.of(repository), exportDirectory));
+        commands.put("IMPORT", new ImportCommand(Optional.of(repository), exportDirectory));
+        CommandDispatcher dispatcher = new CommandDispatcher(commands, metrics);
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), BUFFER_SIZE);
+        String source = options.get("batch");
+        log.info("Ready for the first command {} ms after JVM start", StartupClock.millisSinceStart());
+        try {
+            if (source != null) {
+                BatchExecutor executor = new BatchExecutor(dispatcher, repository, createListing, deleteListing,
+                        Integer.parseInt(options.getOrDefault("marketplace.batch.size", "4096")));
+                try (BufferedReader in = open(source)) {
+                    executor.execute(in, out);
+                }
+            } else {
+                interact(dispatcher, out);
+            }
+        } finally {
+            out.flush();
+            repository.close();
+        }
+    }
+
+    /**
+     * @return true if the arguments ask for the lean launcher instead of the Spring application.
+     */
+    public static boolean isRequested(String[] args) {
+        for (String arg : args) {
+            if (OPTION.equals(arg)) return true;
+        }
+        return false;
+    }
+
+    private static void interact(CommandDispatcher dispatcher, Writer out) throws IOException {
+        boolean terminal = System.console() != null;
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        CommandLine line = new CommandLine();
+        while (true) {
+            if (terminal) {
+                out.write(PROMPT);
+                out.flush();
+            }
+            String text = in.readLine();
+            if (text == null) return;
+            if (line.parse(text).size() == 0) continue;
+            dispatcher.execute(line.string(0), line, out);
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    private static BufferedReader open(String source) throws IOException {
+        return "-".equals(source)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE)
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8);
+    }
+
+    // Spring-style "--name=value" arguments; a bare "--batch" reads stdin
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || OPTION.equals(arg)) continue;
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "-");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,137 @@
+package com.carousell.marketplace.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-command throughput, latency percentiles and error counts.
+ * Latency goes to a Micrometer timer whose percentiles are kept in HdrHistogram recorders. Recording is
+ * lock-free and, once a command and error string have been seen, allocation-free: meters are resolved
+ * through concurrent map reads keyed by the command name and the (constant) error response.
+ */
+@Component
+public class CommandMetrics {
+
+    private static final String ERROR_PREFIX = "Error";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    // Bounds the error tag cardinality should a command ever echo input into its error response
+    private static final int MAX_ERROR_KINDS = 32;
+    private static final String OTHER_ERROR = "other";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, CommandMeters> meters = new ConcurrentHashMap<>();
+
+    public CommandMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param command The command name.
+     * @param nanos The execution time.
+     * @param response The response returned to the caller; responses starting with "Error" count as errors.
+     */
+    public void record(String command, long nanos, String response) {
+        CommandMeters commandMeters = meters.get(command);
+        if (commandMeters == null) {
+            commandMeters = meters.computeIfAbsent(command, CommandMeters::new);
+        }
+        commandMeters.latency.record(nanos, TimeUnit.NANOSECONDS);
+        if (isError(response)) {
+            commandMeters.error(response).increment();
+        }
+    }
+
+    /**
+     * @return true if the response, or its beginning, is an error response.
+     */
+    public static boolean isError(CharSequence response) {
+        if (response == null || response.length() < ERROR_PREFIX.length()) return false;
+        for (int i = 0; i < ERROR_PREFIX.length(); i++) {
+            if (response.charAt(i) != ERROR_PREFIX.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return A snapshot per command seen so far, ordered by command name.
+     */
+    public List<CommandStats> snapshot() {
+        List<CommandStats> stats = new ArrayList<>();
+        new TreeMap<>(meters).forEach((command, commandMeters) -> stats.add(commandMeters.snapshot()));
+        return stats;
+    }
+
+    /**
+     * Latency figures are in microseconds.
+     */
+    @Value
+    public static class CommandStats {
+        String command;
+        long count;
+        long errors;
+        double p50;
+        double p99;
+        double p999;
+        double max;
+        Map<String, Long> errorsByResponse;
+    }
+
+    private final class CommandMeters {
+        private final String command;
+        private final Timer latency;
+        private final ConcurrentMap<String, Counter> errors = new ConcurrentHashMap<>();
+
+        CommandMeters(String command) {
+            this.command = command;
+            this.latency = Timer.builder("marketplace.command.latency")
+                    .description("Command execution time")
+                    .tag("command", command)
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry);
+        }
+
+        Counter error(String response) {
+            Counter counter = errors.get(response);
+            if (counter != null) return counter;
+            String kind = errors.size() < MAX_ERROR_KINDS ? response : OTHER_ERROR;
+            return errors.computeIfAbsent(kind, k -> Counter.builder("marketplace.command.errors")
+                    .description("Command error responses")
+                    .tag("command", command)
+                    .tag("error", k)
+                    .register(registry));
+        }
+
+        CommandStats snapshot() {
+            HistogramSnapshot histogram = latency.takeSnapshot();
+            double[] values = new double[PERCENTILES.length];
+            for (ValueAtPercentile value : histogram.percentileValues()) {
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    if (value.percentile() == PERCENTILES[i]) {
+                        values[i] = value.value(TimeUnit.MICROSECONDS);
+                    }
+                }
+            }
+
+            Map<String, Long> errorsByResponse = new TreeMap<>();
+            errors.forEach((response, counter) -> errorsByResponse.put(response, (long) counter.count()));
+            long errorTotal = errorsByResponse.values().stream().mapToLong(Long::longValue).sum();
+
+            return new CommandStats(command, histogram.count(), errorTotal, values[0], values[1], values[2],
+                    histogram.max(TimeUnit.MICROSECONDS), errorsByResponse);
+        }
+    }
+}
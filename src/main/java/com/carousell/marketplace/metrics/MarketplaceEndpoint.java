@@ -0,0 +1,62 @@
+package com.carousell.marketplace.metrics;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.replication.ReplicationStatus;
+import com.carousell.marketplace.repository.MarketplaceStatistics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Actuator endpoint exposing the STATS figures; published over JMX as {@code org.springframework.boot:type=Endpoint,name=Marketplace}.
+ */
+@Component
+@Endpoint(id = "marketplace")
+@RequiredArgsConstructor
+public class MarketplaceEndpoint {
+
+    private final CommandMetrics commandMetrics;
+    private final MarketplaceStatistics statistics;
+    private final ResponseCache cache;
+    private final Optional<ReplicationStatus> replication;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> repository = new LinkedHashMap<>();
+        repository.put("listings", statistics.listingCount());
+        repository.put("categories", statistics.categoryCount());
+        repository.put("rankingCapacity", statistics.rankingCapacity());
+        repository.put("incumbentReEvaluations", statistics.incumbentReEvaluations());
+        repository.put("incumbentReEvaluationNanos", statistics.incumbentReEvaluationNanos());
+        repository.put("pendingListingEvents", statistics.pendingListingEvents());
+
+        Map<String, Object> responseCache = new LinkedHashMap<>();
+        responseCache.put("hits", cache.hitCount());
+        responseCache.put("misses", cache.missCount());
+        responseCache.put("hitRate", cache.hitRate());
+        responseCache.put("evictions", cache.evictionCount());
+        responseCache.put("entries", cache.size());
+        responseCache.put("bytes", cache.weightedSize());
+        responseCache.put("maxBytes", cache.maxBytes());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("commands", commandMetrics.snapshot());
+        stats.put("repository", repository);
+        stats.put("cache", responseCache);
+        replication.ifPresent(status -> {
+            Map<String, Object> replica = new LinkedHashMap<>();
+            replica.put("role", status.role());
+            replica.put("position", status.position());
+            replica.put("lagRecords", status.lagRecords());
+            replica.put("lagMillis", status.lagMillis());
+            replica.put("connections", status.connections());
+            stats.put("replication", replica);
+        });
+        return stats;
+    }
+}
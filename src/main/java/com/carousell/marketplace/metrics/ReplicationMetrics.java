@@ -0,0 +1,43 @@
+package com.carousell.marketplace.metrics;
+
+import com.carousell.marketplace.replication.ReplicationStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Replication position and lag gauges, tagged with the node's role; nothing is bound unless replication is on.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicationMetrics implements MeterBinder {
+
+    private final Optional<ReplicationStatus> replication;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        replication.ifPresent(status -> {
+            Gauge.builder("marketplace.replication.position", status, ReplicationStatus::position)
+                    .tag("role", status.role())
+                    .description("Sequence number of the last mutation published or applied")
+                    .register(registry);
+            Gauge.builder("marketplace.replication.lag.records", status, ReplicationStatus::lagRecords)
+                    .tag("role", status.role())
+                    .description("Mutations not yet applied by the slowest follower, or by this follower")
+                    .register(registry);
+            Gauge.builder("marketplace.replication.lag", status, ReplicationStatus::lagMillis)
+                    .tag("role", status.role())
+                    .description("Replication delay of the mutations not yet applied")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("marketplace.replication.connections", status, ReplicationStatus::connections)
+                    .tag("role", status.role())
+                    .description("Connected followers, or 1 while a follower is connected to its leader")
+                    .register(registry);
+        });
+    }
+}
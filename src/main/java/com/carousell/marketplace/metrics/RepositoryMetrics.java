@@ -0,0 +1,43 @@
+package com.carousell.marketplace.metrics;
+
+import com.carousell.marketplace.repository.MarketplaceStatistics;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository gauges, sampled when the registry is read so the write path pays nothing extra.
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetrics implements MeterBinder {
+
+    private final MarketplaceStatistics statistics;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("marketplace.listings", statistics, MarketplaceStatistics::listingCount)
+                .description("Live listings")
+                .register(registry);
+        Gauge.builder("marketplace.categories", statistics, MarketplaceStatistics::categoryCount)
+                .description("Distinct categories seen")
+                .register(registry);
+        Gauge.builder("marketplace.ranking.capacity", statistics, MarketplaceStatistics::rankingCapacity)
+                .description("Capacity of the per-category count array")
+                .register(registry);
+        Gauge.builder("marketplace.events.pending", statistics, MarketplaceStatistics::pendingListingEvents)
+                .description("Listing changes not yet applied by every asynchronous view")
+                .register(registry);
+        FunctionTimer.builder("marketplace.ranking.reevaluations", statistics,
+                        MarketplaceStatistics::incumbentReEvaluations,
+                        MarketplaceStatistics::incumbentReEvaluationNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Top category re-evaluations after the incumbent lost a listing")
+                .register(registry);
+    }
+}
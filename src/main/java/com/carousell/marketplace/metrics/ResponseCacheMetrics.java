@@ -0,0 +1,44 @@
+package com.carousell.marketplace.metrics;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Response cache counters and gauges, sampled from the cache's own adders when the registry is read.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCacheMetrics implements MeterBinder {
+
+    private final ResponseCache cache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("marketplace.cache.requests", cache, ResponseCache::hitCount)
+                .tag("result", "hit")
+                .description("Cached response lookups")
+                .register(registry);
+        FunctionCounter.builder("marketplace.cache.requests", cache, ResponseCache::missCount)
+                .tag("result", "miss")
+                .description("Cached response lookups")
+                .register(registry);
+        FunctionCounter.builder("marketplace.cache.evictions", cache, ResponseCache::evictionCount)
+                .description("Responses evicted to stay within the memory budget")
+                .register(registry);
+        Gauge.builder("marketplace.cache.hit.ratio", cache, ResponseCache::hitRate)
+                .description("Hits over all lookups since startup")
+                .register(registry);
+        Gauge.builder("marketplace.cache.size", cache, ResponseCache::size)
+                .description("Cached responses")
+                .register(registry);
+        Gauge.builder("marketplace.cache.weight", cache, ResponseCache::weightedSize)
+                .description("Estimated bytes held by cached responses")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
@@ -0,0 +1,12 @@
+package com.carousell.marketplace.model;
+
+import lombok.Value;
+
+/**
+ * A category and its number of live listings, as reported by GET_TOP_CATEGORIES and TRENDING_CATEGORIES.
+ */
+@Value
+public class CategoryCount {
+    String name;
+    int count;
+}
@@ -1,24 +1,26 @@
 package com.carousell.marketplace.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 /**
  * Domain model for a Marketplace Listing.
  * Uses Lombok to eliminate boilerplate and provide a clean Builder pattern.
+ * Immutable, so the repository's snapshots and every reader can share the stored instances without copies.
  */
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@Builder(toBuilder = true)
 public class Listing {
     private int id;
     private String title;
     private String description;
     private double price;
-    private String createdAt;
+    // Epoch millis of the local wall-clock time, see Timestamps; comparable and range-searchable
+    private long createdAt;
     private String category;
     private String owner;
+
+    // Dense symbol ids assigned by the repository, so hot paths compare ints instead of strings
+    private int categoryId;
+    private int ownerId;
 }
\ No newline at end of file
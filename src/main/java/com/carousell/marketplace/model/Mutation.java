@@ -0,0 +1,37 @@
+package com.carousell.marketplace.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Domain model for a single state change applied through the MarketplaceWriter.
+ * Mutations are the unit recorded by the write-ahead log and replayed on recovery.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Mutation {
+
+    public enum Type {
+        REGISTER_USER,
+        ADD_LISTING,
+        DELETE_LISTING
+    }
+
+    Type type;
+    String username;
+    Listing listing;
+    int listingId;
+
+    public static Mutation registerUser(String username) {
+        return new Mutation(Type.REGISTER_USER, username, null, 0);
+    }
+
+    public static Mutation addListing(Listing listing) {
+        return new Mutation(Type.ADD_LISTING, null, listing, listing.getId());
+    }
+
+    public static Mutation deleteListing(int listingId) {
+        return new Mutation(Type.DELETE_LISTING, null, null, listingId);
+    }
+}
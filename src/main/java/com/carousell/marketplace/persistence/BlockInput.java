@@ -0,0 +1,160 @@
+package com.carousell.marketplace.persistence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads what {@link BlockOutput} wrote: one block at a time from the channel, inflated if the stream is
+ * compressed, with values decoded straight from the block array.
+ */
+final class BlockInput {
+
+    private final ReadableByteChannel channel;
+    private final Inflater inflater;
+    private final ByteBuffer header = ByteBuffer.allocate(BlockOutput.HEADER_SIZE);
+    private final byte[] block = new byte[BlockOutput.BLOCK_SIZE];
+    private final ByteBuffer view = ByteBuffer.wrap(block);
+    private byte[] stored;
+    private int position;
+    private int limit;
+    private boolean ended;
+
+    BlockInput(ReadableByteChannel channel, boolean compressed) {
+        this.channel = channel;
+        this.inflater = compressed ? new Inflater(true) : null;
+        this.stored = compressed ? new byte[BlockOutput.BLOCK_SIZE] : null;
+    }
+
+    int readByte() throws IOException {
+        if (position == limit) next();
+        return block[position++] & 0xFF;
+    }
+
+    int readInt() throws IOException {
+        if (limit - position < Integer.BYTES) return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        int value = view.getInt(position);
+        position += Integer.BYTES;
+        return value;
+    }
+
+    double readDouble() throws IOException {
+        if (limit - position < Double.BYTES) {
+            long bits = 0;
+            for (int i = 0; i < Double.BYTES; i++) {
+                bits = (bits << 8) | readByte();
+            }
+            return Double.longBitsToDouble(bits);
+        }
+        double value = view.getDouble(position);
+        position += Double.BYTES;
+        return value;
+    }
+
+    int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value >>> 32 != 0) throw new IOException("Corrupt export: varint out of range");
+        return (int) value;
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupt export: varint too long");
+    }
+
+    long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() throws IOException {
+        int length = readVarInt();
+        if (length < 0) throw new IOException("Corrupt export: string length out of range");
+        if (limit - position >= length) {
+            String value = new String(block, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+        // Longer than the rest of the block: the buffer grows with the data actually read, one block at most
+        // at a time, so a corrupt length runs into the end of the stream instead of a huge allocation
+        byte[] bytes = new byte[Math.min(length, BlockOutput.BLOCK_SIZE)];
+        int offset = 0;
+        while (offset < length) {
+            if (position == limit) next();
+            int chunk = Math.min(length - offset, limit - position);
+            if (offset + chunk > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, Math.max(2L * bytes.length, offset + chunk)));
+            }
+            System.arraycopy(block, position, bytes, offset, chunk);
+            position += chunk;
+            offset += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return true once the end marker was read and every value before it consumed.
+     */
+    boolean atEnd() throws IOException {
+        if (position == limit && !ended) next();
+        return position == limit && ended;
+    }
+
+    void close() {
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    // Loads the next block, leaving position == limit only at the end marker
+    private void next() throws IOException {
+        if (ended) throw new EOFException("Export ended early");
+        header.clear();
+        fill(header);
+        int rawLength = header.getInt(0);
+        int storedLength = header.getInt(Integer.BYTES);
+        if (rawLength < 0 || storedLength < 0 || rawLength > BlockOutput.BLOCK_SIZE
+                || (inflater == null && storedLength != rawLength)) {
+            throw new IOException("Corrupt export: bad block header");
+        }
+        position = 0;
+        limit = rawLength;
+        if (rawLength == 0) {
+            ended = true;
+            return;
+        }
+        if (inflater == null) {
+            fill(ByteBuffer.wrap(block, 0, rawLength));
+            return;
+        }
+        if (stored.length < storedLength) {
+            stored = new byte[storedLength];
+        }
+        fill(ByteBuffer.wrap(stored, 0, storedLength));
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+            if (inflater.inflate(block, 0, rawLength) != rawLength) {
+                throw new IOException("Corrupt export: block shorter than its header");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt export: " + e.getMessage(), e);
+        }
+    }
+
+    private void fill(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Export ended early");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.carousell.marketplace.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Buffered writer of length-prefixed blocks to a channel. Values are appended to a block until it is full;
+ * each block is then written as its raw length, its stored length and the stored bytes, deflated if
+ * compression is on. Values may straddle blocks. {@link #finish} writes an empty block as the end marker.
+ */
+final class BlockOutput {
+
+    static final int BLOCK_SIZE = 1 << 20;
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final WritableByteChannel channel;
+    private final Deflater deflater;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final ByteBuffer view = ByteBuffer.wrap(block);
+    private byte[] stored = new byte[BLOCK_SIZE + HEADER_SIZE];
+    private int position;
+
+    /**
+     * @param compress Deflates every block at the fastest level; worthwhile for slow disks or network copies.
+     */
+    BlockOutput(WritableByteChannel channel, boolean compress) {
+        this.channel = channel;
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED, true) : null;
+    }
+
+    void writeByte(int value) throws IOException {
+        if (position == BLOCK_SIZE) flush();
+        block[position++] = (byte) value;
+    }
+
+    void writeInt(int value) throws IOException {
+        if (BLOCK_SIZE - position < Integer.BYTES) flush();
+        view.putInt(position, value);
+        position += Integer.BYTES;
+    }
+
+    void writeDouble(double value) throws IOException {
+        if (BLOCK_SIZE - position < Double.BYTES) flush();
+        view.putDouble(position, value);
+        position += Double.BYTES;
+    }
+
+    /**
+     * Unsigned LEB128: 7 bits per byte, low bits first, so small values take one byte.
+     */
+    void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xFFFF_FFFFL);
+    }
+
+    void writeVarLong(long value) throws IOException {
+        if (BLOCK_SIZE - position < 10) flush();
+        while ((value & ~0x7FL) != 0) {
+            block[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        block[position++] = (byte) value;
+    }
+
+    /**
+     * Zigzag-encoded, so small negative deltas stay short too.
+     */
+    void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == BLOCK_SIZE) flush();
+            int length = Math.min(bytes.length - offset, BLOCK_SIZE - position);
+            System.arraycopy(bytes, offset, block, position, length);
+            position += length;
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes the pending block and the end marker; the channel is left open.
+     */
+    void finish() throws IOException {
+        if (position > 0) flush();
+        writeBlock(0, 0);
+        if (deflater != null) {
+            deflater.end();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (deflater == null) {
+            System.arraycopy(block, 0, stored, HEADER_SIZE, position);
+            writeBlock(position, position);
+        } else {
+            deflater.reset();
+            deflater.setInput(block, 0, position);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (HEADER_SIZE + length == stored.length) {
+                    stored = Arrays.copyOf(stored, stored.length * 2);
+                }
+                length += deflater.deflate(stored, HEADER_SIZE + length, stored.length - HEADER_SIZE - length);
+            }
+            writeBlock(position, length);
+        }
+        position = 0;
+    }
+
+    private void writeBlock(int rawLength, int storedLength) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(stored, 0, HEADER_SIZE + storedLength);
+        buffer.putInt(0, rawLength).putInt(Integer.BYTES, storedLength);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.carousell.marketplace.persistence;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.model.User;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Portable image of the whole marketplace for EXPORT and IMPORT, built for bulk loading.
+ * <p>
+ * After a fixed header (magic, version, compression flag), the payload is written in length-prefixed
+ * blocks (see {@link BlockOutput}), deflated if requested. It holds the next listing id, the top-category
+ * incumbent, the user names, the category names, then the listings. A listing refers to its owner and
+ * category by their position in those tables, with ids and creation times delta-encoded as varints, so a
+ * listing costs little more than its title and description.
+ * <p>
+ * Unlike a {@link SnapshotCodec} image, which recovery loads into an empty repository, an import is applied
+ * like ordinary writes: users and listings are journaled, so a durable or replicated marketplace keeps them.
+ */
+@UtilityClass
+public class ExportCodec {
+
+    private static final int MAGIC = 0x4D4B5458; // "MKTX"
+    private static final int VERSION = 1;
+    private static final byte COMPRESSED = 1;
+
+    private static final byte MORE = 1;
+    private static final byte END = 0;
+    // Owner or category reference for a name missing from the tables, e.g. a user registered mid-export
+    private static final int INLINE_NAME = 0;
+
+    // Listings handed to the repository per bulk call
+    private static final int IMPORT_BATCH = 4096;
+
+    /**
+     * Writes a weakly consistent image of the repository; the channel is left open.
+     * @return The number of listings written.
+     */
+    public static long write(WritableByteChannel channel, MarketplaceRepository repository, boolean compress) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES + 1)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .put(compress ? COMPRESSED : 0);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        BlockOutput out = new BlockOutput(channel, compress);
+        out.writeInt(repository.getNextListingId());
+        out.writeString(repository.getCachedTopCategory());
+
+        // Tables are taken once; their positions are the dense ids the listings carry
+        int users = 0;
+        for (User user : repository.usersView()) {
+            out.writeByte(MORE);
+            out.writeString(user.getUsername());
+            users++;
+        }
+        out.writeByte(END);
+        List<String> categories = repository.categoryNames();
+        for (String category : categories) {
+            out.writeByte(MORE);
+            out.writeString(category);
+        }
+        out.writeByte(END);
+
+        long written = 0;
+        int previousId = 0;
+        long previousCreatedAt = 0;
+        for (Listing listing : repository.listingsView()) {
+            out.writeByte(MORE);
+            out.writeSignedVarLong((long) listing.getId() - previousId);
+            writeReference(out, listing.getOwnerId(), users, listing.getOwner());
+            writeReference(out, listing.getCategoryId(), categories.size(), listing.getCategory());
+            out.writeDouble(listing.getPrice());
+            out.writeSignedVarLong(listing.getCreatedAt() - previousCreatedAt);
+            out.writeString(listing.getTitle());
+            out.writeString(listing.getDescription());
+            previousId = listing.getId();
+            previousCreatedAt = listing.getCreatedAt();
+            written++;
+        }
+        out.writeByte(END);
+        out.finish();
+        return written;
+    }
+
+    /**
+     * Registers the users and bulk-inserts the listings of an image, keeping listing ids and creation times.
+     * Users and listings already present are kept; listings whose id the repository handed out before the
+     * import, even if that listing was deleted since, are skipped. The id generator ends up past every imported id.
+     * @return The number of listings inserted.
+     * @throws IOException if the channel does not hold a complete export.
+     */
+    public static long read(ReadableByteChannel channel, MarketplaceRepository repository) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES + 1);
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) throw new IOException("Not a marketplace export");
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a marketplace export");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported export version: " + version);
+        }
+
+        BlockInput in = new BlockInput(channel, header.get() == COMPRESSED);
+        try {
+            int nextListingId = in.readInt();
+            String topCategory = in.readString();
+
+            List<String> users = new ArrayList<>();
+            while (in.readByte() == MORE) {
+                String username = in.readString();
+                repository.registerUser(username);
+                users.add(username);
+            }
+            List<String> categories = new ArrayList<>();
+            while (in.readByte() == MORE) {
+                categories.add(in.readString());
+            }
+
+            // Ids the repository had handed out before are skipped; the rest up to the export's next id are ours
+            int firstReserved = repository.reserveListingIds(nextListingId);
+            long imported = 0;
+            List<Listing> batch = new ArrayList<>(IMPORT_BATCH);
+            long id = 0;
+            long createdAt = 0;
+            while (in.readByte() == MORE) {
+                id += in.readSignedVarLong();
+                if (id < 0 || id > Integer.MAX_VALUE) throw new IOException("Corrupt export: listing id out of range");
+                String owner = readReference(in, users);
+                if (owner == null) {
+                    owner = in.readString();
+                    repository.registerUser(owner);
+                }
+                String category = readReference(in, categories);
+                if (category == null) {
+                    category = in.readString();
+                }
+                double price = in.readDouble();
+                createdAt += in.readSignedVarLong();
+                String title = in.readString();
+                String description = in.readString();
+                if (id < firstReserved || id >= nextListingId) continue;
+                batch.add(Listing.builder()
+                        .id((int) id)
+                        .owner(owner)
+                        .category(category)
+                        .price(price)
+                        .createdAt(createdAt)
+                        .title(title)
+                        .description(description)
+                        .build());
+                if (batch.size() == IMPORT_BATCH) {
+                    imported += repository.importListings(batch);
+                    batch.clear();
+                }
+            }
+            imported += repository.importListings(batch);
+            if (!in.atEnd()) {
+                throw new IOException("Corrupt export: data after the listings");
+            }
+
+            repository.restoreTopCategory(topCategory);
+            return imported;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeReference(BlockOutput out, int id, int tableSize, String name) throws IOException {
+        if (id >= 0 && id < tableSize) {
+            out.writeVarInt(id + 1);
+        } else {
+            out.writeVarInt(INLINE_NAME);
+            out.writeString(name);
+        }
+    }
+
+    /**
+     * @return The name at the referenced table position, or null if the name follows inline.
+     */
+    private static String readReference(BlockInput in, List<String> table) throws IOException {
+        int reference = in.readVarInt();
+        if (reference == INLINE_NAME) return null;
+        if (reference < 0 || reference > table.size()) throw new IOException("Corrupt export: unknown name reference " + reference);
+        return table.get(reference - 1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.carousell.marketplace.persistence;
+
+/**
+ * Controls when appended log records are forced to stable storage.
+ */
+public enum FsyncPolicy {
+    /** Every append returns only after its record is fsynced; concurrent appends share one fsync (group commit). */
+    ALWAYS,
+    /** Records are fsynced by a background task at a fixed interval; a crash loses at most one interval. */
+    INTERVAL,
+    /** Records are left to the OS page cache and only fsynced on segment rotation and shutdown. */
+    NEVER
+}
@@ -0,0 +1,230 @@
+package com.carousell.marketplace.persistence;
+
+import com.carousell.marketplace.model.Mutation;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.repository.MutationJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Durable persistence mode for the MarketplaceRepository.
+ * Every mutation is appended to the write-ahead log before it is applied; periodic snapshots bound
+ * recovery to loading the latest snapshot plus replaying the log segments written after it.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "marketplace.persistence", name = "enabled", havingValue = "true")
+public class MarketplacePersistence implements MutationJournal {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final MarketplaceRepository repository;
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMs;
+    private final long snapshotIntervalSeconds;
+    private final long segmentSizeBytes;
+
+    // Mutations hold the read side across append + apply; snapshots take the write side to rotate the log,
+    // so every record in a segment below the snapshot's start is already applied when the image is taken.
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+
+    private MutationLog mutationLog;
+    private ScheduledExecutorService scheduler;
+
+    public MarketplacePersistence(
+            MarketplaceRepository repository,
+            @Value("${marketplace.persistence.directory:data}") String directory,
+            @Value("${marketplace.persistence.fsync-policy:INTERVAL}") FsyncPolicy fsyncPolicy,
+            @Value("${marketplace.persistence.fsync-interval-ms:100}") long fsyncIntervalMs,
+            @Value("${marketplace.persistence.snapshot-interval-seconds:300}") long snapshotIntervalSeconds,
+            @Value("${marketplace.persistence.segment-size-bytes:67108864}") long segmentSizeBytes) {
+        this.repository = repository;
+        this.directory = Paths.get(directory);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    /**
+     * Recovers the repository from disk, then starts journaling new mutations.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+
+        long firstSegment = 0;
+        Optional<Long> snapshot = latestSnapshot();
+        if (snapshot.isPresent()) {
+            Path file = snapshotPath(snapshot.get());
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 20))) {
+                firstSegment = SnapshotCodec.read(in, repository);
+            }
+        }
+        long lastSegment = MutationLog.replay(directory, firstSegment, this::replay);
+
+        mutationLog = MutationLog.open(directory, Math.max(firstSegment, lastSegment + 1), fsyncPolicy, segmentSizeBytes);
+        repository.attachJournal(this);
+
+        log.info("Recovered marketplace from {} in {} ms (next listing id {})",
+                directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), repository.getNextListingId());
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "marketplace-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            scheduler.scheduleWithFixedDelay(this::syncQuietly, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (snapshotIntervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        gate.writeLock().lock();
+        try {
+            repository.attachJournal(MutationJournal.DIRECT);
+            if (mutationLog != null) {
+                mutationLog.close();
+            }
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean record(Mutation mutation, BooleanSupplier apply) {
+        gate.readLock().lock();
+        try {
+            mutationLog.append(mutation);
+            return apply.getAsBoolean();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal " + mutation.getType(), e);
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot and drops the log segments and snapshots it supersedes.
+     */
+    public synchronized void snapshot() throws IOException {
+        long startSegment;
+        gate.writeLock().lock();
+        try {
+            startSegment = mutationLog.rotate();
+        } finally {
+            gate.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        Path file = snapshotPath(startSegment);
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 20));
+            SnapshotCodec.write(out, startSegment, repository);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        MutationLog.deleteSegmentsBefore(directory, startSegment);
+        for (long older : listSnapshots()) {
+            if (older < startSegment) {
+                Files.deleteIfExists(snapshotPath(older));
+            }
+        }
+        log.info("Wrote snapshot {} in {} ms", file, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void replay(Mutation mutation) {
+        switch (mutation.getType()) {
+            case REGISTER_USER:
+                repository.restoreUser(mutation.getUsername());
+                break;
+            case ADD_LISTING:
+                repository.restoreListing(mutation.getListing());
+                break;
+            case DELETE_LISTING:
+                repository.restoreDeletion(mutation.getListingId());
+                break;
+            default:
+                throw new IllegalStateException("Unsupported mutation type: " + mutation.getType());
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            mutationLog.sync();
+        } catch (IOException e) {
+            log.error("Failed to sync the write-ahead log", e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            log.error("Failed to write snapshot", e);
+        }
+    }
+
+    private Optional<Long> latestSnapshot() throws IOException {
+        List<Long> snapshots = listSnapshots();
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    private List<Long> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path snapshotPath(long startSegment) {
+        return directory.resolve(String.format("%s%016d%s", SNAPSHOT_PREFIX, startSegment, SNAPSHOT_SUFFIX));
+    }
+}
@@ -0,0 +1,91 @@
+package com.carousell.marketplace.persistence;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.model.Mutation;
+import lombok.experimental.UtilityClass;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding shared by the write-ahead log and snapshots.
+ * Strings are written as a length prefix followed by UTF-8 bytes, so field sizes are not limited to 64 KB.
+ */
+@UtilityClass
+public class MutationCodec {
+
+    public static void writeMutation(DataOutput out, Mutation mutation) throws IOException {
+        out.writeByte(mutation.getType().ordinal());
+        switch (mutation.getType()) {
+            case REGISTER_USER:
+                writeString(out, mutation.getUsername());
+                break;
+            case ADD_LISTING:
+                writeListing(out, mutation.getListing());
+                break;
+            case DELETE_LISTING:
+                out.writeInt(mutation.getListingId());
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported mutation type: " + mutation.getType());
+        }
+    }
+
+    public static Mutation readMutation(DataInput in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        Mutation.Type[] types = Mutation.Type.values();
+        if (ordinal >= types.length) {
+            throw new IOException("Unknown mutation type: " + ordinal);
+        }
+        switch (types[ordinal]) {
+            case REGISTER_USER:
+                return Mutation.registerUser(readString(in));
+            case ADD_LISTING:
+                return Mutation.addListing(readListing(in));
+            case DELETE_LISTING:
+                return Mutation.deleteListing(in.readInt());
+            default:
+                throw new IOException("Unsupported mutation type: " + types[ordinal]);
+        }
+    }
+
+    public static void writeListing(DataOutput out, Listing listing) throws IOException {
+        out.writeInt(listing.getId());
+        out.writeDouble(listing.getPrice());
+        out.writeLong(listing.getCreatedAt());
+        writeString(out, listing.getCategory());
+        writeString(out, listing.getOwner());
+        writeString(out, listing.getTitle());
+        writeString(out, listing.getDescription());
+    }
+
+    public static Listing readListing(DataInput in) throws IOException {
+        return Listing.builder()
+                .id(in.readInt())
+                .price(in.readDouble())
+                .createdAt(in.readLong())
+                .category(readString(in))
+                .owner(readString(in))
+                .title(readString(in))
+                .description(readString(in))
+                .build();
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
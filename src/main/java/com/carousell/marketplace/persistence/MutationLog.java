@@ -0,0 +1,285 @@
+package com.carousell.marketplace.persistence;
+
+import com.carousell.marketplace.model.Mutation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented binary log of mutations written through a FileChannel.
+ * Each record is framed as {@code [int length][int crc32][payload]}, so a torn tail left by a crash
+ * is detected and truncated on recovery.
+ */
+@Slf4j
+public class MutationLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long segmentSizeBytes;
+
+    // Append state, guarded by appendLock
+    private final Object appendLock = new Object();
+    private final RecordBuffer scratch = new RecordBuffer();
+    private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long segment;
+    private long segmentBytes;
+    private long appendedSeq;
+
+    // Group commit state: one thread forces the channel on behalf of every append that precedes the force
+    private final Object syncLock = new Object();
+    private final AtomicLong durableSeq = new AtomicLong();
+    private boolean syncInProgress;
+
+    private MutationLog(Path directory, long segment, FsyncPolicy fsyncPolicy, long segmentSizeBytes) throws IOException {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+    }
+
+    /**
+     * Opens a new segment for appending.
+     * @param segment The number of the first segment to write; must not exist yet.
+     */
+    public static MutationLog open(Path directory, long segment, FsyncPolicy fsyncPolicy, long segmentSizeBytes) throws IOException {
+        Files.createDirectories(directory);
+        return new MutationLog(directory, segment, fsyncPolicy, segmentSizeBytes);
+    }
+
+    /**
+     * Appends a mutation. Under {@link FsyncPolicy#ALWAYS} this blocks until the record is durable.
+     * @return The sequence number of the record within this log instance.
+     */
+    public long append(Mutation mutation) throws IOException {
+        long seq;
+        synchronized (appendLock) {
+            scratch.reset();
+            scratchOut.writeLong(0L); // header placeholder
+            MutationCodec.writeMutation(scratchOut, mutation);
+
+            byte[] record = scratch.buffer();
+            int length = scratch.size();
+            crc.reset();
+            crc.update(record, HEADER_BYTES, length - HEADER_BYTES);
+            ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+            buffer.putInt(0, length - HEADER_BYTES).putInt(4, (int) crc.getValue());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            segmentBytes += length;
+            seq = ++appendedSeq;
+            if (segmentBytes >= segmentSizeBytes) {
+                rotateLocked();
+            }
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            awaitDurable(seq);
+        }
+        return seq;
+    }
+
+    /**
+     * Closes the current segment and starts a new one.
+     * Every record appended before this call lives in a segment numbered below the returned value.
+     * @return The number of the new current segment.
+     */
+    public long rotate() throws IOException {
+        synchronized (appendLock) {
+            rotateLocked();
+            return segment;
+        }
+    }
+
+    /**
+     * Forces every record appended so far to stable storage.
+     */
+    public void sync() throws IOException {
+        long seq;
+        synchronized (appendLock) {
+            seq = appendedSeq;
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            if (channel.isOpen()) {
+                channel.force(true);
+                durableSeq.accumulateAndGet(appendedSeq, Math::max);
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Replays every segment numbered {@code fromSegment} or above, in order.
+     * A corrupt or torn record ends its segment; the segment is truncated to its last valid record.
+     * @return The highest segment number found, or {@code fromSegment - 1} if there are none.
+     */
+    public static long replay(Path directory, long fromSegment, Consumer<Mutation> apply) throws IOException {
+        long lastSegment = fromSegment - 1;
+        for (long number : listSegments(directory)) {
+            if (number < fromSegment) continue;
+            replaySegment(segmentPath(directory, number), apply);
+            lastSegment = number;
+        }
+        return lastSegment;
+    }
+
+    /**
+     * Deletes every segment numbered below {@code segment}; they are covered by a snapshot.
+     */
+    public static void deleteSegmentsBefore(Path directory, long segment) throws IOException {
+        for (long number : listSegments(directory)) {
+            if (number < segment) {
+                Files.deleteIfExists(segmentPath(directory, number));
+            }
+        }
+    }
+
+    private void rotateLocked() throws IOException {
+        channel.force(false);
+        durableSeq.accumulateAndGet(appendedSeq, Math::max);
+        channel.close();
+        segment++;
+        segmentBytes = 0;
+        channel = openSegment(segment);
+    }
+
+    private void awaitDurable(long seq) throws IOException {
+        while (true) {
+            synchronized (syncLock) {
+                while (durableSeq.get() < seq && syncInProgress) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for log sync");
+                    }
+                }
+                if (durableSeq.get() >= seq) return;
+                syncInProgress = true;
+            }
+
+            try {
+                long target;
+                FileChannel current;
+                synchronized (appendLock) {
+                    target = appendedSeq;
+                    current = channel;
+                }
+                try {
+                    current.force(false);
+                    durableSeq.accumulateAndGet(target, Math::max);
+                } catch (ClosedChannelException e) {
+                    // Rotated or closed concurrently; both force the segment and advance durableSeq themselves
+                }
+            } finally {
+                synchronized (syncLock) {
+                    syncInProgress = false;
+                    syncLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void replaySegment(Path file, Consumer<Mutation> apply) throws IOException {
+        long validBytes = 0;
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = readChannel.size();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(readChannel), 1 << 20));
+            CRC32 checksum = new CRC32();
+            byte[] payload = new byte[1024];
+
+            try {
+                while (validBytes + HEADER_BYTES <= size) {
+                    int length = in.readInt();
+                    int expectedCrc = in.readInt();
+                    if (length <= 0 || validBytes + HEADER_BYTES + length > size) break;
+
+                    if (payload.length < length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                    checksum.reset();
+                    checksum.update(payload, 0, length);
+                    if ((int) checksum.getValue() != expectedCrc) break;
+
+                    apply.accept(MutationCodec.readMutation(new DataInputStream(new ByteArrayInputStream(payload, 0, length))));
+                    validBytes += HEADER_BYTES + length;
+                }
+            } catch (EOFException e) {
+                // Torn record at the tail; handled by the truncation below
+            }
+
+            if (validBytes < size) {
+                log.warn("Truncating {} at byte {} of {}: incomplete or corrupt tail", file, validBytes, size);
+                readChannel.truncate(validBytes);
+            }
+        }
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Reusable encode buffer that exposes its backing array, avoiding a copy per append.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(512);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
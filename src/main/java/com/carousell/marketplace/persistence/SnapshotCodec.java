@@ -0,0 +1,87 @@
+package com.carousell.marketplace.persistence;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.model.User;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import lombok.experimental.UtilityClass;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary image of the repository state: users, listings, the id generator and the top-category incumbent.
+ * Category entities and counts are not stored; they are rebuilt from the listings while loading.
+ */
+@UtilityClass
+public class SnapshotCodec {
+
+    private static final int MAGIC = 0x4D4B5453; // "MKTS"
+    private static final int VERSION = 1;
+
+    private static final byte MORE = 1;
+    private static final byte END = 0;
+
+    /**
+     * Writes a weakly consistent image of the repository.
+     * @param position An opaque log position stored alongside the state, e.g. the first segment to replay.
+     */
+    public static void write(DataOutput out, long position, MarketplaceRepository repository) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(position);
+        out.writeInt(repository.getNextListingId());
+        MutationCodec.writeString(out, repository.getCachedTopCategory());
+
+        for (User user : repository.usersView()) {
+            out.writeByte(MORE);
+            MutationCodec.writeString(out, user.getUsername());
+        }
+        out.writeByte(END);
+
+        for (Listing listing : repository.listingsView()) {
+            out.writeByte(MORE);
+            MutationCodec.writeListing(out, listing);
+        }
+        out.writeByte(END);
+    }
+
+    /**
+     * Loads an image into the repository; entries already present are kept.
+     * @return The log position stored by {@link #write}.
+     */
+    public static long read(DataInput in, MarketplaceRepository repository) throws IOException {
+        return read(in, repository, listing -> { });
+    }
+
+    /**
+     * Loads an image into the repository, showing every listing read to a callback before restoring it.
+     * @return The log position stored by {@link #write}.
+     */
+    public static long read(DataInput in, MarketplaceRepository repository, Consumer<Listing> beforeRestore) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a marketplace snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        long position = in.readLong();
+        int nextListingId = in.readInt();
+        String topCategory = MutationCodec.readString(in);
+
+        while (in.readByte() == MORE) {
+            repository.restoreUser(MutationCodec.readString(in));
+        }
+        while (in.readByte() == MORE) {
+            Listing listing = MutationCodec.readListing(in);
+            beforeRestore.accept(listing);
+            repository.restoreListing(listing);
+        }
+
+        repository.restoreNextListingId(nextListingId);
+        repository.restoreTopCategory(topCategory);
+        return position;
+    }
+}
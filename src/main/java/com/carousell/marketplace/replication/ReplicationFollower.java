@@ -0,0 +1,306 @@
+package com.carousell.marketplace.replication;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.model.Mutation;
+import com.carousell.marketplace.persistence.MutationCodec;
+import com.carousell.marketplace.persistence.SnapshotCodec;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.repository.MutationJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follower side of replication: a read-only replica that applies the leader's mutation stream.
+ * <p>
+ * A single thread connects to the leader, loads the snapshot it is sent (if any) and applies records in
+ * sequence order through the repository's idempotent restore methods, which keep indexes, ranking and
+ * cache versions up to date as for local writes. On disconnect it reconnects and resumes after the last
+ * applied sequence number. Write commands are rejected by the dispatcher on a follower.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "marketplace.replication", name = "role", havingValue = "follower")
+public class ReplicationFollower implements ReplicationStatus {
+
+    // Backstop for writes that do not go through the dispatcher; replication itself bypasses the journal
+    private static final MutationJournal READ_ONLY = (mutation, apply) -> {
+        throw new IllegalStateException("Read-only replica cannot apply " + mutation.getType());
+    };
+
+    private final MarketplaceRepository repository;
+    private final String leaderHost;
+    private final int leaderPort;
+    private final int timeoutMillis;
+    private final long syncTimeoutMillis;
+
+    // Written only by the replication thread
+    private volatile long logId;
+    private volatile long applied;
+    private volatile long leaderPosition;
+    private volatile long applyDelayMillis;
+    private volatile boolean connected;
+
+    private final Object progress = new Object();
+    private volatile CountDownLatch synced = new CountDownLatch(1);
+    private volatile boolean running;
+    private volatile Socket socket;
+    private Thread thread;
+
+    /**
+     * @param timeoutMillis Connect timeout, and how long the leader may stay silent before reconnecting.
+     * @param syncTimeoutMillis How long startup waits for the first catch-up before serving possibly stale reads.
+     */
+    public ReplicationFollower(
+            MarketplaceRepository repository,
+            @Value("${marketplace.replication.leader-host:localhost}") String leaderHost,
+            @Value("${marketplace.replication.port:7071}") int leaderPort,
+            @Value("${marketplace.replication.timeout-ms:5000}") int timeoutMillis,
+            @Value("${marketplace.replication.sync-timeout-ms:30000}") long syncTimeoutMillis) {
+        this.repository = repository;
+        this.leaderHost = leaderHost;
+        this.leaderPort = leaderPort;
+        this.timeoutMillis = timeoutMillis;
+        this.syncTimeoutMillis = syncTimeoutMillis;
+    }
+
+    /**
+     * Starts replicating and waits until caught up with the leader, or for the sync timeout.
+     */
+    @PostConstruct
+    public synchronized void start() throws InterruptedException {
+        repository.attachJournal(READ_ONLY);
+        synced = new CountDownLatch(1);
+        running = true;
+        thread = new Thread(this::replicate, "marketplace-replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+        if (!synced.await(syncTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("Not caught up with leader {}:{} after {} ms; serving reads meanwhile", leaderHost, leaderPort, syncTimeoutMillis);
+        }
+    }
+
+    /**
+     * Disconnects from the leader; the replicated state stays readable and {@link #start} resumes from it.
+     */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        closeSocket();
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(timeoutMillis);
+        }
+    }
+
+    /**
+     * Waits until the mutation with the given sequence number has been applied.
+     * @return false if the timeout elapsed first.
+     */
+    public boolean awaitPosition(long position, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (progress) {
+            while (applied < position) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) return false;
+                progress.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String role() {
+        return "follower";
+    }
+
+    @Override
+    public long position() {
+        return applied;
+    }
+
+    @Override
+    public long lagRecords() {
+        return Math.max(0, leaderPosition - applied);
+    }
+
+    @Override
+    public long lagMillis() {
+        return lagRecords() == 0 ? 0 : applyDelayMillis;
+    }
+
+    @Override
+    public int connections() {
+        return connected ? 1 : 0;
+    }
+
+    private void replicate() {
+        while (running) {
+            try (Socket current = new Socket()) {
+                socket = current;
+                current.connect(new InetSocketAddress(leaderHost, leaderPort), timeoutMillis);
+                current.setTcpNoDelay(true);
+                current.setSoTimeout(timeoutMillis);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(current.getInputStream(), 1 << 16));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(current.getOutputStream()));
+
+                out.writeInt(ReplicationProtocol.MAGIC);
+                out.writeLong(logId);
+                out.writeLong(applied + 1);
+                out.flush();
+                if (in.readInt() != ReplicationProtocol.MAGIC) {
+                    throw new IOException("Not a replication leader");
+                }
+                long leaderLogId = in.readLong();
+                connected = true;
+                log.info("Replicating from leader {}:{} after sequence {}", leaderHost, leaderPort, applied);
+                follow(in, out, leaderLogId);
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Lost replication leader {}:{}: {}", leaderHost, leaderPort, e.getMessage());
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+
+            if (running) {
+                try {
+                    Thread.sleep(Math.min(timeoutMillis, 1000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void follow(DataInputStream in, DataOutputStream out, long leaderLogId) throws IOException {
+        byte[] payload = new byte[1024];
+        while (running) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case ReplicationProtocol.SNAPSHOT:
+                    long position = loadSnapshot(in);
+                    logId = leaderLogId;
+                    leaderPosition = Math.max(leaderPosition, position);
+                    advance(position);
+                    synced.countDown();
+                    break;
+                case ReplicationProtocol.RECORD:
+                    long seq = in.readLong();
+                    long publishedAt = in.readLong();
+                    int length = in.readInt();
+                    if (payload.length < length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                    if (logId != leaderLogId || seq != applied + 1) {
+                        throw new IOException("Unexpected record " + seq + " after sequence " + applied);
+                    }
+                    apply(MutationCodec.readMutation(new DataInputStream(new ByteArrayInputStream(payload, 0, length))));
+                    applyDelayMillis = Math.max(0, System.currentTimeMillis() - publishedAt);
+                    leaderPosition = Math.max(leaderPosition, seq);
+                    advance(seq);
+                    break;
+                case ReplicationProtocol.HEARTBEAT:
+                    leaderPosition = in.readLong();
+                    in.readLong();
+                    if (applied >= leaderPosition) {
+                        applyDelayMillis = 0;
+                        synced.countDown();
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown replication frame: " + tag);
+            }
+
+            if (in.available() == 0) {
+                out.writeLong(applied);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Loads a snapshot over the current state. Listings missing from it were deleted on the leader while
+     * this node was not following, so they are removed, as is a listing whose id a restarted leader without
+     * persistence reused. Users are never deleted.
+     */
+    private long loadSnapshot(DataInputStream in) throws IOException {
+        BitSet stale = new BitSet();
+        for (Listing listing : repository.listingsView()) {
+            stale.set(listing.getId());
+        }
+        long position = SnapshotCodec.read(in, repository, listing -> {
+            stale.clear(listing.getId());
+            Listing existing = repository.getListing(listing.getId());
+            if (existing != null && !isSameListing(existing, listing)) {
+                repository.restoreDeletion(listing.getId());
+            }
+        });
+        for (int id = stale.nextSetBit(0); id >= 0; id = stale.nextSetBit(id + 1)) {
+            repository.restoreDeletion(id);
+        }
+        log.info("Loaded leader snapshot at sequence {} ({} listings)", position, repository.listingCount());
+        return position;
+    }
+
+    private static boolean isSameListing(Listing a, Listing b) {
+        return a.getCreatedAt() == b.getCreatedAt()
+                && a.getTitle().equals(b.getTitle())
+                && a.getOwner().equalsIgnoreCase(b.getOwner())
+                && a.getCategory().equalsIgnoreCase(b.getCategory());
+    }
+
+    private void apply(Mutation mutation) {
+        switch (mutation.getType()) {
+            case REGISTER_USER:
+                repository.restoreUser(mutation.getUsername());
+                break;
+            case ADD_LISTING:
+                repository.restoreListing(mutation.getListing());
+                break;
+            case DELETE_LISTING:
+                repository.restoreDeletion(mutation.getListingId());
+                break;
+            default:
+                throw new IllegalStateException("Unsupported mutation type: " + mutation.getType());
+        }
+    }
+
+    private void advance(long position) {
+        synchronized (progress) {
+            applied = position;
+            progress.notifyAll();
+        }
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.debug("Failed to close leader socket", e);
+            }
+        }
+    }
+}
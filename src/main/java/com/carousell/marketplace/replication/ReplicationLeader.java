@@ -0,0 +1,350 @@
+package com.carousell.marketplace.replication;
+
+import com.carousell.marketplace.model.Mutation;
+import com.carousell.marketplace.persistence.MarketplacePersistence;
+import com.carousell.marketplace.persistence.MutationCodec;
+import com.carousell.marketplace.persistence.SnapshotCodec;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.repository.MutationJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Leader side of replication: numbers every mutation of the repository and streams them to followers.
+ * <p>
+ * Mutations are journaled here (after the persistence layer, if enabled) and kept in a bounded in-memory
+ * backlog. A follower that reconnects within the backlog resumes from its last applied sequence number;
+ * one that is new, too far behind or following an earlier leader run first receives a snapshot tagged with
+ * the sequence number it includes, then the records after it. Each follower is served by its own thread.
+ * <p>
+ * A sequence number is taken before the mutation is applied, so a mutation that depends on another's effect,
+ * such as deleting a listing, is always numbered after it. Independent mutations may be numbered in another
+ * order than they became visible; followers apply them in sequence order.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "marketplace.replication", name = "role", havingValue = "leader")
+public class ReplicationLeader implements MutationJournal, ReplicationStatus {
+
+    private final MarketplaceRepository repository;
+    private final MutationJournal downstream;
+    private final String host;
+    private final int port;
+    private final long heartbeatMillis;
+
+    // Sequence numbers are only meaningful within one run of the leader
+    private final long logId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+    // Mutations hold the read side across sequencing + apply; a snapshot takes the write side to read a
+    // position every mutation up to which is already applied.
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+
+    // Guarded by itself; slot seq & mask holds record seq while seq > lastSeq - backlog.length
+    private final Record[] backlog;
+    private final int mask;
+    private long lastSeq;
+
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    /**
+     * @param backlogRecords Records kept for followers to resume from; rounded up to a power of two.
+     */
+    public ReplicationLeader(
+            MarketplaceRepository repository,
+            Optional<MarketplacePersistence> persistence,
+            @Value("${marketplace.replication.host:0.0.0.0}") String host,
+            @Value("${marketplace.replication.port:7071}") int port,
+            @Value("${marketplace.replication.backlog-records:65536}") int backlogRecords,
+            @Value("${marketplace.replication.heartbeat-ms:100}") long heartbeatMillis) {
+        this.repository = repository;
+        this.downstream = persistence.<MutationJournal>map(p -> p).orElse(MutationJournal.DIRECT);
+        this.host = host;
+        this.port = port;
+        this.heartbeatMillis = Math.max(1, heartbeatMillis);
+        int capacity = Integer.highestOneBit(Math.max(2, Math.min(backlogRecords, 1 << 30)) - 1) << 1;
+        this.backlog = new Record[capacity];
+        this.mask = capacity - 1;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(host, port));
+        running = true;
+        repository.attachJournal(this);
+        daemon("marketplace-replication-acceptor", this::acceptLoop).start();
+        log.info("Replication leader listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        repository.attachJournal(downstream);
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Session session : sessions) {
+            session.close();
+        }
+        synchronized (backlog) {
+            backlog.notifyAll();
+        }
+    }
+
+    /**
+     * @return The bound port; useful when configured with port 0.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public boolean record(Mutation mutation, BooleanSupplier apply) {
+        byte[] payload = encode(mutation);
+        gate.readLock().lock();
+        try {
+            return downstream.record(mutation, () -> {
+                publish(payload);
+                return apply.getAsBoolean();
+            });
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String role() {
+        return "leader";
+    }
+
+    @Override
+    public long position() {
+        synchronized (backlog) {
+            return lastSeq;
+        }
+    }
+
+    @Override
+    public long lagRecords() {
+        long position = position();
+        long lag = 0;
+        for (Session session : sessions) {
+            lag = Math.max(lag, position - session.acknowledged);
+        }
+        return lag;
+    }
+
+    @Override
+    public long lagMillis() {
+        long oldest = Long.MAX_VALUE;
+        for (Session session : sessions) {
+            oldest = Math.min(oldest, session.acknowledged);
+        }
+        synchronized (backlog) {
+            if (oldest >= lastSeq || oldest <= lastSeq - backlog.length) return 0;
+            return Math.max(0, System.currentTimeMillis() - backlog[(int) ((oldest + 1) & mask)].publishedAt);
+        }
+    }
+
+    @Override
+    public int connections() {
+        return sessions.size();
+    }
+
+    private void publish(byte[] payload) {
+        synchronized (backlog) {
+            long seq = ++lastSeq;
+            backlog[(int) (seq & mask)] = new Record(seq, System.currentTimeMillis(), payload);
+            backlog.notifyAll();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Session session = new Session(socket);
+                sessions.add(session);
+                daemon("marketplace-replication-" + socket.getRemoteSocketAddress(), session::serve).start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failed to accept a follower", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot frame and returns the sequence number it includes.
+     */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        long position;
+        gate.writeLock().lock();
+        try {
+            position = position();
+        } finally {
+            gate.writeLock().unlock();
+        }
+        // Mutations after the position may also be in the image; replaying them is idempotent
+        out.writeByte(ReplicationProtocol.SNAPSHOT);
+        SnapshotCodec.write(out, position, repository);
+        return position;
+    }
+
+    private static byte[] encode(Mutation mutation) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            MutationCodec.writeMutation(new DataOutputStream(bytes), mutation);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode " + mutation.getType(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * One connected follower: catches it up, then streams new records and heartbeats until it disconnects.
+     */
+    private final class Session {
+        private final Socket socket;
+        private volatile long acknowledged;
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        void serve() {
+            try {
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+                if (in.readInt() != ReplicationProtocol.MAGIC) {
+                    throw new IOException("Not a replication follower");
+                }
+                long followerLogId = in.readLong();
+                long next = in.readLong();
+                out.writeInt(ReplicationProtocol.MAGIC);
+                out.writeLong(logId);
+
+                if (followerLogId != logId || !retained(next)) {
+                    next = sendSnapshot(out) + 1;
+                }
+                acknowledged = next - 1;
+                log.info("Follower {} replicating from sequence {}", socket.getRemoteSocketAddress(), next);
+                stream(in, out, next);
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Follower {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void stream(DataInputStream in, DataOutputStream out, long next) throws IOException, InterruptedException {
+            Record[] batch = new Record[256];
+            while (running) {
+                int count = 0;
+                long position;
+                synchronized (backlog) {
+                    if (lastSeq < next && running) {
+                        backlog.wait(heartbeatMillis);
+                    }
+                    if (!retained(next)) {
+                        throw new IOException("fell behind the replication backlog at sequence " + next);
+                    }
+                    while (count < batch.length && next + count <= lastSeq) {
+                        batch[count] = backlog[(int) ((next + count) & mask)];
+                        count++;
+                    }
+                    position = lastSeq;
+                }
+
+                for (int i = 0; i < count; i++) {
+                    Record record = batch[i];
+                    out.writeByte(ReplicationProtocol.RECORD);
+                    out.writeLong(record.seq);
+                    out.writeLong(record.publishedAt);
+                    out.writeInt(record.payload.length);
+                    out.write(record.payload);
+                    batch[i] = null;
+                }
+                next += count;
+                if (count == 0) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(position);
+                    out.writeLong(System.currentTimeMillis());
+                }
+                out.flush();
+
+                while (in.available() >= Long.BYTES) {
+                    acknowledged = in.readLong();
+                }
+            }
+        }
+
+        /**
+         * @return true if every record from {@code next} on is still in the backlog.
+         */
+        private boolean retained(long next) {
+            synchronized (backlog) {
+                return next >= 1 && next > lastSeq - backlog.length && next <= lastSeq + 1;
+            }
+        }
+
+        void close() {
+            sessions.remove(this);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close follower socket", e);
+            }
+        }
+    }
+
+    private static final class Record {
+        final long seq;
+        final long publishedAt;
+        final byte[] payload;
+
+        Record(long seq, long publishedAt, byte[] payload) {
+            this.seq = seq;
+            this.publishedAt = publishedAt;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.carousell.marketplace.replication;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Wire format of the replication stream.
+ * <p>
+ * The follower opens with {@code [int MAGIC][long logId][long next]}: the log it last replicated from
+ * (0 if none) and the first sequence number it needs. The leader answers {@code [int MAGIC][long logId]}
+ * and then sends frames, each starting with a tag byte:
+ * <ul>
+ *   <li>{@link #SNAPSHOT}: a {@code SnapshotCodec} image whose position is the last sequence it includes;</li>
+ *   <li>{@link #RECORD}: {@code [long seq][long publishedAtMillis][int length][MutationCodec payload]};</li>
+ *   <li>{@link #HEARTBEAT}: {@code [long lastSeq][long leaderTimeMillis]}, sent while there is nothing new.</li>
+ * </ul>
+ * The follower acknowledges by writing the last sequence it applied as a long whenever it has drained its input.
+ */
+@UtilityClass
+class ReplicationProtocol {
+
+    static final int MAGIC = 0x4D4B5452; // "MKTR"
+
+    static final int SNAPSHOT = 1;
+    static final int RECORD = 2;
+    static final int HEARTBEAT = 3;
+}
@@ -0,0 +1,33 @@
+package com.carousell.marketplace.replication;
+
+/**
+ * Replication figures of this node, read by STATS and the metrics layer.
+ */
+public interface ReplicationStatus {
+
+    /**
+     * @return "leader" or "follower".
+     */
+    String role();
+
+    /**
+     * @return The sequence number of the last mutation published (leader) or applied (follower).
+     */
+    long position();
+
+    /**
+     * @return Mutations the slowest follower (leader) or this node (follower) has yet to apply.
+     */
+    long lagRecords();
+
+    /**
+     * @return On the leader, the age of the oldest mutation some follower has not acknowledged; on a
+     * follower, how long after publication the last mutation was applied, or 0 once caught up.
+     */
+    long lagMillis();
+
+    /**
+     * @return Connected followers (leader), or 1 while connected to the leader (follower).
+     */
+    int connections();
+}
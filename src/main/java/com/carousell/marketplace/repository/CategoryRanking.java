@@ -0,0 +1,314 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.CategoryCount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Lock-free category leaderboard for O(1) top category retrieval and O(log C) updates.
+ * Shared by the repository implementations so the "incumbent wins ties" rule lives in one place.
+ * <p>
+ * Each category holds its current count in an immutable, versioned entry swapped in by CAS. The same
+ * entries are kept in a skip list ordered by count, so the runner-up is found without scanning every
+ * category when the leader loses a listing. The leader itself is a CAS-updated category id.
+ */
+class CategoryRanking {
+
+    // Highest count first; lower ids win among equal counts, matching the original first-seen scan order
+    private static final Comparator<Entry> BY_COUNT = Comparator
+            .comparingInt((Entry e) -> -e.count)
+            .thenComparingInt(e -> e.categoryId)
+            .thenComparingLong(e -> e.version);
+
+    private final IntFunction<String> displayName;
+    private final ConcurrentSkipListSet<Entry> board = new ConcurrentSkipListSet<>(BY_COUNT);
+    private final AtomicInteger topCategoryId = new AtomicInteger(-1);
+
+    // Indexed by category id; only grown when a category is first seen
+    private volatile Slot[] slots = new Slot[16];
+
+    // Leader re-evaluations after the incumbent lost a listing, for the metrics layer
+    private final LongAdder reEvaluations = new LongAdder();
+    private final LongAdder reEvaluationNanos = new LongAdder();
+
+    /**
+     * @param displayName Maps a category id to the name shown by GET_TOP_CATEGORY.
+     */
+    CategoryRanking(IntFunction<String> displayName) {
+        this.displayName = displayName;
+    }
+
+    String top() {
+        int top = topCategoryId.get();
+        return top < 0 ? "" : displayName.apply(top);
+    }
+
+    /**
+     * @return Up to {@code n} categories with listings, the incumbent first and the rest by descending count.
+     */
+    List<CategoryCount> top(int n) {
+        List<CategoryCount> result = new ArrayList<>(Math.min(n, 16));
+        int top = topCategoryId.get();
+        if (top >= 0 && n > 0) {
+            int count = count(top);
+            if (count > 0) {
+                result.add(new CategoryCount(displayName.apply(top), count));
+            }
+        }
+        for (Entry entry : board) {
+            if (result.size() >= n) break;
+            if (entry.categoryId != top && isCurrent(entry)) {
+                result.add(new CategoryCount(displayName.apply(entry.categoryId), entry.count));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The capacity of the per-category count array.
+     */
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return The sum of all category counts; O(C).
+     */
+    int total() {
+        int total = 0;
+        for (Slot slot : slots) {
+            if (slot != null) {
+                total += slot.entry.get().count;
+            }
+        }
+        return total;
+    }
+
+    long reEvaluations() {
+        return reEvaluations.sum();
+    }
+
+    long reEvaluationNanos() {
+        return reEvaluationNanos.sum();
+    }
+
+    int count(int categoryId) {
+        Slot[] current = slots;
+        Slot slot = categoryId < current.length ? current[categoryId] : null;
+        return slot == null ? 0 : slot.entry.get().count;
+    }
+
+    /**
+     * Internal logic to maintain the leaderboard during writes.
+     * Updates to different categories never contend; updates to the same category retry their CAS.
+     */
+    void update(int categoryId, int delta) {
+        adjust(categoryId, delta);
+        promote(categoryId, delta);
+    }
+
+    /**
+     * Applies a batch of single-listing changes, moving each touched category on the board once.
+     * The leader is the one the same changes would produce one at a time: it is replayed on local counts,
+     * so "incumbent wins ties" also holds inside the batch.
+     * @param categoryIds The category of each change, in order.
+     * @param length The number of changes.
+     * @param delta The count change applied by every change, +1 or -1.
+     */
+    void updateAll(int[] categoryIds, int length, int delta) {
+        if (length == 0) return;
+
+        // Local counts of the touched categories, and their net change
+        Map<Integer, int[]> touched = new LinkedHashMap<>();
+        int initialTop = topCategoryId.get();
+        int top = initialTop;
+        for (int i = 0; i < length; i++) {
+            int categoryId = categoryIds[i];
+            int[] state = touched.computeIfAbsent(categoryId, id -> new int[]{count(id), 0});
+            state[0] += delta;
+            state[1] += delta;
+            top = replayStep(top, categoryId, delta, touched);
+        }
+
+        for (Map.Entry<Integer, int[]> entry : touched.entrySet()) {
+            if (entry.getValue()[1] != 0) {
+                adjust(entry.getKey(), entry.getValue()[1]);
+            }
+        }
+
+        // A concurrent writer moved the leader meanwhile; re-decide from the live counts instead
+        if (!topCategoryId.compareAndSet(initialTop, top)) {
+            touched.keySet().forEach(categoryId -> promote(categoryId, -1));
+        }
+    }
+
+    /**
+     * Re-applies a known incumbent after bulk loading, which cannot reconstruct tie history.
+     * The incumbent is only restored if it still holds the maximum count.
+     */
+    void restoreTop(int categoryId) {
+        int count = count(categoryId);
+        while (count > 0) {
+            int top = topCategoryId.get();
+            if (top == categoryId || count < (top < 0 ? 0 : count(top))) return;
+            if (topCategoryId.compareAndSet(top, categoryId)) return;
+        }
+    }
+
+    /**
+     * Re-decides the leader after a category changed, retrying if a concurrent update moved it first.
+     * Tie-breaking: a leader is only replaced if a challenger's count is strictly greater.
+     */
+    private void promote(int changedCategoryId, int delta) {
+        while (true) {
+            int top = topCategoryId.get();
+            int candidate = challenger(top, changedCategoryId, delta);
+            if (candidate == top || topCategoryId.compareAndSet(top, candidate)) return;
+        }
+    }
+
+    /**
+     * Sequential leader rule applied to the batch-local counts.
+     */
+    private int replayStep(int top, int categoryId, int delta, Map<Integer, int[]> touched) {
+        int newCount = touched.get(categoryId)[0];
+        if (top < 0) return newCount > 0 ? categoryId : -1;
+
+        int topCount = localCount(top, touched);
+        if (newCount > topCount) return categoryId;
+        if (categoryId != top || delta >= 0) return top;
+
+        // The incumbent lost a listing: find the strictly larger challenger with the lowest id, if any
+        long started = System.nanoTime();
+        int bestId = -1;
+        int bestCount = topCount;
+        for (Map.Entry<Integer, int[]> entry : touched.entrySet()) {
+            int count = entry.getValue()[0];
+            if (count > bestCount || (count == bestCount && bestId >= 0 && entry.getKey() < bestId)) {
+                bestId = entry.getKey();
+                bestCount = count;
+            }
+        }
+        for (Entry entry : board) {
+            if (entry.count < bestCount || (entry.count == bestCount && (bestId < 0 || entry.categoryId > bestId))) break;
+            if (!touched.containsKey(entry.categoryId) && isCurrent(entry)) {
+                bestId = entry.categoryId;
+                bestCount = entry.count;
+                break;
+            }
+        }
+        reEvaluationNanos.add(System.nanoTime() - started);
+        reEvaluations.increment();
+        if (bestId >= 0) return bestId;
+        return topCount > 0 ? top : -1;
+    }
+
+    private int localCount(int categoryId, Map<Integer, int[]> touched) {
+        int[] state = touched.get(categoryId);
+        return state != null ? state[0] : count(categoryId);
+    }
+
+    private void adjust(int categoryId, int delta) {
+        Slot slot = slot(categoryId);
+        Entry previous;
+        Entry next;
+        do {
+            previous = slot.entry.get();
+            next = new Entry(categoryId, previous.count + delta, previous.version + 1);
+        } while (!slot.entry.compareAndSet(previous, next));
+
+        // The installer of an entry publishes it and retires its predecessor. If a newer entry was installed
+        // meanwhile, that installer may have tried to retire ours before it was published, so retire it here.
+        if (next.count > 0) {
+            board.add(next);
+            if (slot.entry.get() != next) {
+                board.remove(next);
+            }
+        }
+        board.remove(previous);
+    }
+
+    private int challenger(int top, int changedCategoryId, int delta) {
+        if (top < 0) {
+            Entry best = best();
+            return best == null ? -1 : best.categoryId;
+        }
+
+        int topCount = count(top);
+        if (changedCategoryId != top) {
+            return count(changedCategoryId) > topCount ? changedCategoryId : top;
+        }
+        if (delta > 0) return top;
+
+        // The incumbent lost a listing: only a strictly larger count displaces it
+        long started = System.nanoTime();
+        Entry best = best();
+        reEvaluationNanos.add(System.nanoTime() - started);
+        reEvaluations.increment();
+        if (best != null && best.count > topCount) return best.categoryId;
+        return topCount > 0 ? top : -1;
+    }
+
+    private Entry best() {
+        for (Entry entry : board) {
+            if (isCurrent(entry)) return entry;
+        }
+        return null;
+    }
+
+    // Superseded entries can linger in the board briefly between an update's CAS and its cleanup
+    private boolean isCurrent(Entry entry) {
+        return slots[entry.categoryId].entry.get() == entry;
+    }
+
+    private Slot slot(int categoryId) {
+        Slot[] current = slots;
+        Slot slot = categoryId < current.length ? current[categoryId] : null;
+        return slot != null ? slot : createSlot(categoryId);
+    }
+
+    private synchronized Slot createSlot(int categoryId) {
+        Slot[] current = slots;
+        if (categoryId >= current.length) {
+            current = Arrays.copyOf(current, Math.max(categoryId + 1, current.length * 2));
+        }
+        if (current[categoryId] == null) {
+            current[categoryId] = new Slot(categoryId);
+        }
+        slots = current;
+        return current[categoryId];
+    }
+
+    private static final class Slot {
+        final AtomicReference<Entry> entry;
+
+        Slot(int categoryId) {
+            this.entry = new AtomicReference<>(new Entry(categoryId, 0, 0));
+        }
+    }
+
+    /**
+     * Immutable count of one category; the version keeps successive entries with equal counts distinct.
+     */
+    private static final class Entry {
+        final int categoryId;
+        final int count;
+        final long version;
+
+        Entry(int categoryId, int count, long version) {
+            this.categoryId = categoryId;
+            this.count = count;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+
+import java.util.stream.Stream;
+
+/**
+ * Read-only view over the listings of a single category.
+ * Listings are kept pre-sorted for every {@link SortKey}, so a page can be read without sorting.
+ */
+public interface CategoryView {
+
+    /**
+     * @return The number of listings currently in the category.
+     */
+    int size();
+
+    /**
+     * @param key The ordering to read.
+     * @param descending true to read from the largest key downwards.
+     * @return A lazy stream over the category in the requested order.
+     */
+    Stream<Listing> stream(SortKey key, boolean descending);
+
+    /**
+     * @return For a point-in-time view, the version of its index when it was taken; for a category view, what
+     *         {@link MarketplaceReader#categoryVersion} returned then. -1 for a live view, which may change while read.
+     */
+    default long version() {
+        return -1;
+    }
+
+    /**
+     * Restricts the view to listings within the range. The default filters a full scan; ordered indexes
+     * override it with range scans.
+     * @return A view over the matching listings; its size may be computed by counting them.
+     */
+    default CategoryView range(ListingRange range) {
+        if (range.isUnbounded()) return this;
+        CategoryView all = this;
+        return new CategoryView() {
+            @Override
+            public int size() {
+                return (int) stream(SortKey.PRICE, false).count();
+            }
+
+            @Override
+            public Stream<Listing> stream(SortKey key, boolean descending) {
+                return all.stream(key, descending).filter(range::contains);
+            }
+        };
+    }
+}
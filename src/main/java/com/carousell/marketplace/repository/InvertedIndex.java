@@ -0,0 +1,120 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Term to listing-id index over listing titles and descriptions, maintained on every insert and delete.
+ * Terms are interned in a {@link SymbolTable}, so indexing a listing only allocates for terms never seen
+ * before; each term's ids are kept in a compressed {@link PostingList}.
+ */
+class InvertedIndex {
+
+    private static final CategoryView NO_MATCHES = SortedCategoryIndex.EMPTY;
+
+    private final SymbolTable<PostingList> terms = new SymbolTable<>();
+
+    // Per-thread scratch space for the term being scanned and the term ids seen in the current listing
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    void add(Listing listing) {
+        Scratch s = scratch.get().reset();
+        collectTerms(listing.getTitle(), s);
+        collectTerms(listing.getDescription(), s);
+        for (int i = 0; i < s.termCount; i++) {
+            terms.get(s.termIds[i]).add(listing.getId());
+        }
+    }
+
+    /**
+     * @param isLive Tells which listing ids still exist; the removed listing must already be gone.
+     */
+    void remove(Listing listing, IntPredicate isLive) {
+        Scratch s = scratch.get().reset();
+        collectTerms(listing.getTitle(), s);
+        collectTerms(listing.getDescription(), s);
+        for (int i = 0; i < s.termCount; i++) {
+            terms.get(s.termIds[i]).removed(isLive);
+        }
+    }
+
+    int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * @param queryTerms Lower-cased query terms, all of which must match.
+     * @param scope The listings to search, in index order: one category or all of them.
+     * @param categoryId The category of the scope, or -1 for all categories.
+     * @param lookup Resolves a listing id to the live listing, or null once it was deleted.
+     */
+    CategoryView search(List<String> queryTerms, CategoryView scope, int categoryId, IntFunction<Listing> lookup) {
+        List<PostingList> postings = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            int id = terms.idOf(term);
+            if (id < 0) return NO_MATCHES;
+            postings.add(terms.get(id));
+        }
+
+        // Rarest term first: it bounds the candidates
+        List<Integer> order = new ArrayList<>(postings.size());
+        for (int i = 0; i < postings.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingInt(i -> postings.get(i).estimatedSize()));
+        List<PostingList> byRarity = new ArrayList<>(order.size());
+        List<String> termsByRarity = new ArrayList<>(order.size());
+        for (int i : order) {
+            byRarity.add(postings.get(i));
+            termsByRarity.add(queryTerms.get(i));
+        }
+        return new SearchResults(byRarity, termsByRarity, scope, categoryId, lookup);
+    }
+
+    private void collectTerms(String text, Scratch s) {
+        StringBuilder term = s.term;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            if (i < length && TextTokenizer.isTermChar(text.charAt(i))) {
+                term.append(Character.toLowerCase(text.charAt(i)));
+            } else if (term.length() > 0) {
+                int id = terms.idOf(term);
+                if (id < 0) {
+                    id = terms.intern(term.toString(), name -> new PostingList());
+                }
+                s.addTerm(id);
+                term.setLength(0);
+            }
+        }
+    }
+
+    private static final class Scratch {
+        final StringBuilder term = new StringBuilder(32);
+        int[] termIds = new int[32];
+        int termCount;
+
+        Scratch reset() {
+            term.setLength(0);
+            termCount = 0;
+            return this;
+        }
+
+        // Listings hold a few dozen terms at most, so a linear duplicate check beats hashing
+        void addTerm(int id) {
+            for (int i = 0; i < termCount; i++) {
+                if (termIds[i] == id) return;
+            }
+            if (termCount == termIds.length) {
+                termIds = Arrays.copyOf(termIds, termCount * 2);
+            }
+            termIds[termCount++] = id;
+        }
+    }
+}
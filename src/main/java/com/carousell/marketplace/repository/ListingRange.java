@@ -0,0 +1,47 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Price and creation-time bounds applied to a category view.
+ * Prices are inclusive on both ends; creation times are exclusive, matching "created after" and "created before".
+ * Every bound defaults to unbounded.
+ */
+@Value
+@Builder
+public class ListingRange {
+
+    public static final ListingRange ALL = ListingRange.builder().build();
+
+    @Builder.Default
+    double minPrice = Double.NEGATIVE_INFINITY;
+    @Builder.Default
+    double maxPrice = Double.POSITIVE_INFINITY;
+    // Epoch millis, see Timestamps
+    @Builder.Default
+    long createdAfter = Long.MIN_VALUE;
+    @Builder.Default
+    long createdBefore = Long.MAX_VALUE;
+
+    public boolean hasPriceBounds() {
+        return minPrice != Double.NEGATIVE_INFINITY || maxPrice != Double.POSITIVE_INFINITY;
+    }
+
+    public boolean hasTimeBounds() {
+        return createdAfter != Long.MIN_VALUE || createdBefore != Long.MAX_VALUE;
+    }
+
+    public boolean isUnbounded() {
+        return !hasPriceBounds() && !hasTimeBounds();
+    }
+
+    public boolean contains(double price, long createdAt) {
+        return price >= minPrice && price <= maxPrice && createdAt > createdAfter && createdAt < createdBefore;
+    }
+
+    public boolean contains(Listing listing) {
+        return contains(listing.getPrice(), listing.getCreatedAt());
+    }
+}
@@ -0,0 +1,171 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Primitive int-keyed listing map.
+ * Listing ids are handed out sequentially, so instead of hashing, the id itself addresses a slot in
+ * lazily allocated pages of 64K entries by default. Lookups are two array reads with no boxing;
+ * inserts and removals are single CAS operations on the slot.
+ */
+final class ListingTable {
+
+    static final int DEFAULT_PAGE_SHIFT = 16;
+
+    private final int pageShift;
+    private final int slotMask;
+
+    private volatile AtomicReferenceArray<Listing>[] pages = newDirectory(0);
+    private final AtomicInteger size = new AtomicInteger();
+
+    ListingTable() {
+        this(DEFAULT_PAGE_SHIFT);
+    }
+
+    /**
+     * @param pageShift log2 of the page size; a table holding sparse id ranges uses pages no larger than a range.
+     */
+    ListingTable(int pageShift) {
+        this.pageShift = pageShift;
+        this.slotMask = (1 << pageShift) - 1;
+    }
+
+    Listing get(int id) {
+        if (id < 0) return null;
+        AtomicReferenceArray<Listing>[] directory = pages;
+        int page = id >>> pageShift;
+        if (page >= directory.length || directory[page] == null) return null;
+        return directory[page].get(id & slotMask);
+    }
+
+    boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * @return true if the listing was stored, false if its id is already taken.
+     */
+    boolean putIfAbsent(Listing listing) {
+        int id = listing.getId();
+        if (id < 0) throw new IllegalArgumentException("Negative listing id: " + id);
+        if (page(id >>> pageShift).compareAndSet(id & slotMask, null, listing)) {
+            size.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The removed listing, or null if there was none; concurrent removals see it exactly once.
+     */
+    Listing remove(int id) {
+        if (id < 0) return null;
+        AtomicReferenceArray<Listing>[] directory = pages;
+        int page = id >>> pageShift;
+        if (page >= directory.length || directory[page] == null) return null;
+        Listing removed = directory[page].getAndSet(id & slotMask, null);
+        if (removed != null) {
+            size.decrementAndGet();
+        }
+        return removed;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * @return A live, weakly consistent view of the listings in id order; iterating it does not copy.
+     */
+    Collection<Listing> values() {
+        return new AbstractCollection<Listing>() {
+            @Override
+            public Iterator<Listing> iterator() {
+                return new ValueIterator(pages);
+            }
+
+            @Override
+            public int size() {
+                return size.get();
+            }
+        };
+    }
+
+    private AtomicReferenceArray<Listing> page(int index) {
+        AtomicReferenceArray<Listing>[] directory = pages;
+        if (index < directory.length && directory[index] != null) {
+            return directory[index];
+        }
+        return allocatePage(index);
+    }
+
+    private synchronized AtomicReferenceArray<Listing> allocatePage(int index) {
+        AtomicReferenceArray<Listing>[] directory = pages;
+        if (index >= directory.length) {
+            directory = Arrays.copyOf(directory, Math.max(index + 1, directory.length * 2));
+        } else if (directory[index] != null) {
+            return directory[index];
+        } else {
+            directory = directory.clone();
+        }
+        directory[index] = new AtomicReferenceArray<>(slotMask + 1);
+        pages = directory;
+        return directory[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Listing>[] newDirectory(int length) {
+        return (AtomicReferenceArray<Listing>[]) new AtomicReferenceArray[length];
+    }
+
+    private static final class ValueIterator implements Iterator<Listing> {
+        private final AtomicReferenceArray<Listing>[] directory;
+        private int page;
+        private int slot = -1;
+        private Listing next;
+
+        ValueIterator(AtomicReferenceArray<Listing>[] directory) {
+            this.directory = directory;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Listing next() {
+            if (next == null) throw new NoSuchElementException();
+            Listing current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (page < directory.length) {
+                AtomicReferenceArray<Listing> slots = directory[page];
+                if (slots != null) {
+                    while (++slot < slots.length()) {
+                        Listing candidate = slots.get(slot);
+                        if (candidate != null) {
+                            next = candidate;
+                            return;
+                        }
+                    }
+                }
+                page++;
+                slot = -1;
+            }
+        }
+    }
+}
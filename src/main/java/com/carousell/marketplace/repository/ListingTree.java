@@ -0,0 +1,205 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable sorted set of listings as a persistent treap: an insert or removal copies only the O(log N) nodes
+ * on the path to the change and shares the rest with the previous version, so every version stays readable
+ * for as long as someone holds it. Node priorities are hashed from the listing id, which keeps the shape, and
+ * so the cost of a change, independent of insertion order.
+ */
+final class ListingTree {
+
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+    private final Comparator<Listing> comparator;
+    private final Node root;
+
+    ListingTree(Comparator<Listing> comparator) {
+        this(comparator, null);
+    }
+
+    private ListingTree(Comparator<Listing> comparator, Node root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @return A tree that also holds the listing, or this tree if an equal listing is already in it.
+     */
+    ListingTree with(Listing listing) {
+        Node updated = insert(root, listing, priority(listing));
+        return updated == root ? this : new ListingTree(comparator, updated);
+    }
+
+    /**
+     * @return A tree without the listing, or this tree if it does not hold it.
+     */
+    ListingTree without(Listing listing) {
+        Node updated = delete(root, listing);
+        return updated == root ? this : new ListingTree(comparator, updated);
+    }
+
+    Stream<Listing> stream(boolean descending) {
+        Iterator<Listing> rows = new Cursor(null, false, null, false, descending);
+        return StreamSupport.stream(Spliterators.spliterator(rows, size(), CHARACTERISTICS), false);
+    }
+
+    /**
+     * @param low Lowest listing to include in the tree's order, or null for no lower bound.
+     * @param high Highest listing to include, or null for no upper bound.
+     */
+    Stream<Listing> stream(Listing low, boolean lowInclusive, Listing high, boolean highInclusive, boolean descending) {
+        Iterator<Listing> rows = descending
+                ? new Cursor(high, highInclusive, low, lowInclusive, true)
+                : new Cursor(low, lowInclusive, high, highInclusive, false);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, CHARACTERISTICS), false);
+    }
+
+    private Node insert(Node node, Listing listing, int priority) {
+        if (node == null) return new Node(listing, priority, null, null);
+        int order = comparator.compare(listing, node.listing);
+        if (order == 0) return node;
+        if (order < 0) {
+            Node left = insert(node.left, listing, priority);
+            if (left == node.left) return node;
+            // Rotate the new node up while it outranks its parent
+            if (left.priority > node.priority) {
+                return new Node(left.listing, left.priority, left.left, new Node(node.listing, node.priority, left.right, node.right));
+            }
+            return new Node(node.listing, node.priority, left, node.right);
+        }
+        Node right = insert(node.right, listing, priority);
+        if (right == node.right) return node;
+        if (right.priority > node.priority) {
+            return new Node(right.listing, right.priority, new Node(node.listing, node.priority, node.left, right.left), right.right);
+        }
+        return new Node(node.listing, node.priority, node.left, right);
+    }
+
+    private Node delete(Node node, Listing listing) {
+        if (node == null) return null;
+        int order = comparator.compare(listing, node.listing);
+        if (order < 0) {
+            Node left = delete(node.left, listing);
+            return left == node.left ? node : new Node(node.listing, node.priority, left, node.right);
+        }
+        if (order > 0) {
+            Node right = delete(node.right, listing);
+            return right == node.right ? node : new Node(node.listing, node.priority, node.left, right);
+        }
+        return merge(node.left, node.right);
+    }
+
+    // Joins two treaps whose keys do not overlap, every key of left below every key of right
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            return new Node(left.listing, left.priority, left.left, merge(left.right, right));
+        }
+        return new Node(right.listing, right.priority, merge(left, right.left), right.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // Fibonacci hashing spreads sequential ids over the whole int range
+    private static int priority(Listing listing) {
+        int h = listing.getId() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node {
+        final Listing listing;
+        final int priority;
+        final int size;
+        final Node left;
+        final Node right;
+
+        Node(Listing listing, int priority, Node left, Node right) {
+            this.listing = listing;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    /**
+     * In-order walk from a start bound towards an end bound, in either direction. The stack holds the nodes
+     * still to visit on the way back up, so a page of K rows costs O(log N + K).
+     */
+    private final class Cursor implements Iterator<Listing> {
+        private final ArrayDeque<Node> path = new ArrayDeque<>();
+        private final boolean descending;
+        private final Listing end;
+        private final boolean endInclusive;
+        private Listing next;
+
+        Cursor(Listing start, boolean startInclusive, Listing end, boolean endInclusive, boolean descending) {
+            this.descending = descending;
+            this.end = end;
+            this.endInclusive = endInclusive;
+            Node node = root;
+            while (node != null) {
+                int order = start == null ? 1 : compare(node.listing, start);
+                if (order > 0 || (order == 0 && startInclusive)) {
+                    path.push(node);
+                    node = descending ? node.right : node.left;
+                } else {
+                    node = descending ? node.left : node.right;
+                }
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Listing next() {
+            Listing current = next;
+            if (current == null) throw new NoSuchElementException();
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            Node node = path.poll();
+            if (node == null) {
+                next = null;
+                return;
+            }
+            for (Node child = descending ? node.left : node.right; child != null; child = descending ? child.right : child.left) {
+                path.push(child);
+            }
+            int order = end == null ? -1 : compare(node.listing, end);
+            next = order < 0 || (order == 0 && endInclusive) ? node.listing : null;
+            if (next == null) {
+                path.clear();
+            }
+        }
+
+        // Position in the walk's direction: negative if a comes first
+        private int compare(Listing a, Listing b) {
+            return descending ? comparator.compare(b, a) : comparator.compare(a, b);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.carousell.marketplace.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fixed-width column backed by a memory-mapped file.
+ * The file is mapped lazily in chunks of {@link #CHUNK_ROWS} rows, so the column grows without copying
+ * and its contents live in the page cache rather than on the Java heap.
+ */
+final class MappedColumn implements Closeable {
+
+    static final int CHUNK_SHIFT = 20;
+    static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+    private static final int ROW_MASK = CHUNK_ROWS - 1;
+
+    // Ordered int access, used to publish a fully written row to concurrent readers
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final int width;
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    MappedColumn(Path file, int width) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.width = width;
+        chunk(0);
+    }
+
+    int getInt(int row) {
+        return chunk(row >>> CHUNK_SHIFT).getInt(offset(row));
+    }
+
+    void putInt(int row, int value) {
+        chunk(row >>> CHUNK_SHIFT).putInt(offset(row), value);
+    }
+
+    int getIntAcquire(int row) {
+        return (int) INT_VIEW.getAcquire(chunk(row >>> CHUNK_SHIFT), offset(row));
+    }
+
+    void putIntRelease(int row, int value) {
+        INT_VIEW.setRelease(chunk(row >>> CHUNK_SHIFT), offset(row), value);
+    }
+
+    boolean compareAndSetInt(int row, int expected, int value) {
+        return INT_VIEW.compareAndSet(chunk(row >>> CHUNK_SHIFT), offset(row), expected, value);
+    }
+
+    long getLong(int row) {
+        return chunk(row >>> CHUNK_SHIFT).getLong(offset(row));
+    }
+
+    void putLong(int row, long value) {
+        chunk(row >>> CHUNK_SHIFT).putLong(offset(row), value);
+    }
+
+    double getDouble(int row) {
+        return chunk(row >>> CHUNK_SHIFT).getDouble(offset(row));
+    }
+
+    void putDouble(int row, double value) {
+        chunk(row >>> CHUNK_SHIFT).putDouble(offset(row), value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int offset(int row) {
+        return (row & ROW_MASK) * width;
+    }
+
+    private MappedByteBuffer chunk(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        return mapChunk(index);
+    }
+
+    private synchronized MappedByteBuffer mapChunk(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * CHUNK_ROWS * width, (long) CHUNK_ROWS * width);
+            mapped.order(ByteOrder.nativeOrder());
+            MappedByteBuffer[] grown = index < current.length ? current.clone() : Arrays.copyOf(current, index + 1);
+            grown[index] = mapped;
+            chunks = grown;
+            return mapped;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map column chunk " + index, e);
+        }
+    }
+}
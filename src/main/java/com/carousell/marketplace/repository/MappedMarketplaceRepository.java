@@ -0,0 +1,499 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.model.User;
+import com.carousell.marketplace.util.TextTokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Capacity-optimized repository that keeps listings in memory-mapped columnar files instead of on the heap.
+ * Ids are dense, so the row of a listing is derived from its id. Each row holds the id, price, epoch-millis
+ * timestamp, dictionary-encoded category and owner, and offsets into a mapped string heap for the title
+ * and description. {@link Listing} objects are only materialized at the output boundary.
+ * <p>
+ * Heap usage is bounded by the number of users and distinct categories, not by the number of listings.
+ * Category queries scan the category column instead of maintaining on-heap indexes. The files are
+ * recreated on startup; use the heap store with persistence enabled for durability.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "marketplace.storage", name = "mode", havingValue = "mapped")
+public class MappedMarketplaceRepository implements MarketplaceReader, MarketplaceWriter, MarketplaceStatistics {
+
+    private static final int FIRST_ID = 100001;
+    private static final int TOMBSTONE = 0;
+
+    private final SymbolTable<User> users = new SymbolTable<>();
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary owners = new Dictionary();
+    private final AtomicInteger idGenerator = new AtomicInteger(FIRST_ID);
+    private final CategoryRanking ranking = new CategoryRanking(categories::groupName);
+    private final TrendingCategories trending = new TrendingCategories(categories::groupName, Clock.systemDefaultZone());
+
+    // One version for every listing and category, bumped after each write; coarse but never stale
+    private final AtomicLong writes = new AtomicLong();
+
+    // Columns: the id column doubles as the liveness flag and is written last to publish a row
+    private final MappedColumn ids;
+    private final MappedColumn prices;
+    private final MappedColumn createdAt;
+    private final MappedColumn categoryIds;
+    private final MappedColumn ownerIds;
+    private final MappedColumn titles;
+    private final MappedColumn descriptions;
+    private final MappedStringHeap strings;
+
+    public MappedMarketplaceRepository(@Value("${marketplace.storage.directory:data/columns}") String directory) throws IOException {
+        Path path = Paths.get(directory);
+        Files.createDirectories(path);
+        this.ids = new MappedColumn(path.resolve("id.col"), Integer.BYTES);
+        this.prices = new MappedColumn(path.resolve("price.col"), Double.BYTES);
+        this.createdAt = new MappedColumn(path.resolve("created_at.col"), Long.BYTES);
+        this.categoryIds = new MappedColumn(path.resolve("category.col"), Integer.BYTES);
+        this.ownerIds = new MappedColumn(path.resolve("owner.col"), Integer.BYTES);
+        this.titles = new MappedColumn(path.resolve("title.col"), Long.BYTES);
+        this.descriptions = new MappedColumn(path.resolve("description.col"), Long.BYTES);
+        this.strings = new MappedStringHeap(path.resolve("strings.heap"));
+    }
+
+    @Override
+    public boolean registerUser(String username) {
+        return users.add(username, new User(username)) >= 0;
+    }
+
+    @Override
+    public boolean userExists(CharSequence username) {
+        return users.idOf(username) >= 0;
+    }
+
+    @Override
+    public int userId(CharSequence username) {
+        return users.idOf(username);
+    }
+
+    @Override
+    public int addListing(String owner, String title, String desc, double price, String categoryName, long createdAtMillis) {
+        int id = idGenerator.getAndIncrement();
+        int group = categories.groupOfId(writeRow(id, owner, title, desc, price, categoryName, createdAtMillis));
+        writes.incrementAndGet();
+        ranking.update(group, 1);
+        trending.record(group, createdAtMillis, 1);
+        return id;
+    }
+
+    @Override
+    public int[] addListings(List<Listing> drafts) {
+        int[] newIds = new int[drafts.size()];
+        int[] groups = new int[drafts.size()];
+        int firstId = idGenerator.getAndAdd(drafts.size());
+        for (int i = 0; i < drafts.size(); i++) {
+            Listing draft = drafts.get(i);
+            newIds[i] = firstId + i;
+            groups[i] = categories.groupOfId(writeRow(newIds[i], draft.getOwner(), draft.getTitle(),
+                    draft.getDescription(), draft.getPrice(), draft.getCategory(), draft.getCreatedAt()));
+            trending.record(groups[i], draft.getCreatedAt(), 1);
+        }
+        writes.incrementAndGet();
+        ranking.updateAll(groups, groups.length, 1);
+        return newIds;
+    }
+
+    @Override
+    public Listing getListing(int id) {
+        int row = id - FIRST_ID;
+        return isLive(row) ? materialize(row) : null;
+    }
+
+    @Override
+    public void deleteListing(int id) {
+        int row = id - FIRST_ID;
+        if (!isLive(row)) return;
+        // CAS so concurrent deletes of the same listing decrement the category count once
+        if (ids.compareAndSetInt(row, id, TOMBSTONE)) {
+            writes.incrementAndGet();
+            int group = categories.groupOfId(categoryIds.getInt(row));
+            ranking.update(group, -1);
+            trending.record(group, createdAt.getLong(row), -1);
+        }
+    }
+
+    @Override
+    public void deleteListings(int[] listingIds) {
+        removeAll(listingIds);
+    }
+
+    /**
+     * Scans the owner and category columns for the rows to delete, then tombstones them as one batch.
+     */
+    @Override
+    public int deleteUserListings(CharSequence owner, CharSequence categoryName) {
+        int ownerGroup = owners.groupOf(owner);
+        int categoryGroup = categoryName == null ? -1 : categories.groupOf(categoryName);
+        if (ownerGroup < 0 || (categoryName != null && categoryGroup < 0)) return 0;
+
+        int[] matching = IntStream.range(0, rowCount())
+                .filter(row -> isLive(row)
+                        && owners.groupOfId(ownerIds.getInt(row)) == ownerGroup
+                        && (categoryGroup < 0 || categories.groupOfId(categoryIds.getInt(row)) == categoryGroup))
+                .map(row -> row + FIRST_ID)
+                .toArray();
+        return removeAll(matching);
+    }
+
+    @Override
+    public String getCachedTopCategory() {
+        return ranking.top();
+    }
+
+    @Override
+    public List<CategoryCount> getTopCategories(int n) {
+        return ranking.top(n);
+    }
+
+    @Override
+    public List<CategoryCount> getTrendingCategories(TrendWindow window, int n) {
+        return trending.top(window, n);
+    }
+
+    @Override
+    public long listingVersion(int id) {
+        return writes.get();
+    }
+
+    @Override
+    public long categoryVersion(CharSequence categoryName) {
+        return writes.get();
+    }
+
+    @Override
+    public List<Listing> getAllListings() {
+        return IntStream.range(0, rowCount())
+                .filter(this::isLive)
+                .mapToObj(this::materialize)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Listing> getListingsByCategory(String categoryName) {
+        return getCategoryView(categoryName).stream(SortKey.PRICE, false).collect(Collectors.toList());
+    }
+
+    /**
+     * Scans the category column for the category's live rows; only the matching row numbers touch the heap.
+     */
+    @Override
+    public CategoryView getCategoryView(CharSequence categoryName) {
+        int group = categories.groupOf(categoryName);
+        if (group < 0) return new MappedCategoryView(new int[0]);
+
+        int[] rows = IntStream.range(0, rowCount())
+                .filter(row -> isLive(row) && categories.groupOfId(categoryIds.getInt(row)) == group)
+                .toArray();
+        return new MappedCategoryView(rows);
+    }
+
+    /**
+     * Scans the owner column like {@link #getCategoryView} scans the category column.
+     */
+    @Override
+    public CategoryView getOwnerView(CharSequence username) {
+        int group = owners.groupOf(username);
+        if (group < 0) return new MappedCategoryView(new int[0]);
+
+        int[] rows = IntStream.range(0, rowCount())
+                .filter(row -> isLive(row) && owners.groupOfId(ownerIds.getInt(row)) == group)
+                .toArray();
+        return new MappedCategoryView(rows);
+    }
+
+    /**
+     * Scans the columns like {@link #getCategoryView}; the mapped store keeps no inverted index, so the
+     * text heap is read for every live row in scope.
+     */
+    @Override
+    public CategoryView search(List<String> terms, CharSequence categoryName) {
+        int group = categoryName == null ? -1 : categories.groupOf(categoryName);
+        if (categoryName != null && group < 0) return new MappedCategoryView(new int[0]);
+
+        int[] rows = IntStream.range(0, rowCount())
+                .filter(row -> isLive(row)
+                        && (group < 0 || categories.groupOfId(categoryIds.getInt(row)) == group)
+                        && containsAll(row, terms))
+                .toArray();
+        return new MappedCategoryView(rows);
+    }
+
+    /**
+     * Derived from the category counts, so the write path keeps no extra counter.
+     */
+    @Override
+    public int listingCount() {
+        return ranking.total();
+    }
+
+    @Override
+    public int categoryCount() {
+        return categories.groupCount();
+    }
+
+    @Override
+    public int rankingCapacity() {
+        return ranking.capacity();
+    }
+
+    @Override
+    public long incumbentReEvaluations() {
+        return ranking.reEvaluations();
+    }
+
+    @Override
+    public long incumbentReEvaluationNanos() {
+        return ranking.reEvaluationNanos();
+    }
+
+    /**
+     * Always 0: the mapped store has no asynchronously maintained views.
+     */
+    @Override
+    public long pendingListingEvents() {
+        return 0;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        trending.close();
+        for (Closeable file : Arrays.asList(ids, prices, createdAt, categoryIds, ownerIds, titles, descriptions, strings)) {
+            file.close();
+        }
+    }
+
+    private int removeAll(int[] listingIds) {
+        int[] groups = new int[listingIds.length];
+        int removed = 0;
+        for (int id : listingIds) {
+            int row = id - FIRST_ID;
+            if (isLive(row) && ids.compareAndSetInt(row, id, TOMBSTONE)) {
+                int group = categories.groupOfId(categoryIds.getInt(row));
+                groups[removed++] = group;
+                trending.record(group, createdAt.getLong(row), -1);
+            }
+        }
+        writes.incrementAndGet();
+        ranking.updateAll(groups, removed, -1);
+        return removed;
+    }
+
+    private int rowCount() {
+        return idGenerator.get() - FIRST_ID;
+    }
+
+    /**
+     * Fills the row of a reserved id and publishes it by writing the id column last.
+     * @return The dictionary id of the category spelling.
+     */
+    private int writeRow(int id, String owner, String title, String desc, double price, String categoryName, long createdAtMillis) {
+        long titleOffset = strings.append(title);
+        long descriptionOffset = strings.append(desc);
+        int categoryId = categories.idOf(categoryName);
+
+        int row = id - FIRST_ID;
+        prices.putDouble(row, price);
+        createdAt.putLong(row, createdAtMillis);
+        categoryIds.putInt(row, categoryId);
+        ownerIds.putInt(row, owners.idOf(owner));
+        titles.putLong(row, titleOffset);
+        descriptions.putLong(row, descriptionOffset);
+        ids.putIntRelease(row, id);
+        return categoryId;
+    }
+
+    private boolean isLive(int row) {
+        return row >= 0 && row < rowCount() && ids.getIntAcquire(row) == row + FIRST_ID;
+    }
+
+    private boolean containsAll(int row, List<String> terms) {
+        String title = strings.read(titles.getLong(row));
+        String description = strings.read(descriptions.getLong(row));
+        for (String term : terms) {
+            if (!TextTokenizer.containsTerm(title, term) && !TextTokenizer.containsTerm(description, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Listing materialize(int row) {
+        int categoryId = categoryIds.getInt(row);
+        String owner = owners.nameOf(ownerIds.getInt(row));
+        return Listing.builder()
+                .id(row + FIRST_ID)
+                .title(strings.read(titles.getLong(row)))
+                .description(strings.read(descriptions.getLong(row)))
+                .price(prices.getDouble(row))
+                .createdAt(createdAt.getLong(row))
+                .category(categories.nameOf(categoryId))
+                .owner(owner)
+                .categoryId(categories.groupOfId(categoryId))
+                .ownerId(users.idOf(owner))
+                .build();
+    }
+
+    /**
+     * Rows of one category captured at query time; each ordering is sorted on first use from the columns.
+     */
+    private final class MappedCategoryView implements CategoryView {
+        private final int[] rows;
+        private final int[][] sorted = new int[SortKey.values().length][];
+
+        MappedCategoryView(int[] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+
+        @Override
+        public Stream<Listing> stream(SortKey key, boolean descending) {
+            int[] ordered = sorted(key);
+            int n = ordered.length;
+            return IntStream.range(0, n)
+                    .map(i -> descending ? ordered[n - 1 - i] : ordered[i])
+                    .filter(MappedMarketplaceRepository.this::isLive)
+                    .mapToObj(MappedMarketplaceRepository.this::materialize);
+        }
+
+        private int[] sorted(SortKey key) {
+            int[] ordered = sorted[key.ordinal()];
+            if (ordered == null) {
+                ordered = rows.clone();
+                // Rows are assigned in id order, so comparing rows breaks ties by id like the heap index
+                IntBinaryOperator byKey = key == SortKey.PRICE
+                        ? (a, b) -> a == b ? 0 : compare(Double.compare(prices.getDouble(a), prices.getDouble(b)), a, b)
+                        : (a, b) -> a == b ? 0 : compare(Long.compare(createdAt.getLong(a), createdAt.getLong(b)), a, b);
+                sortRows(ordered, byKey);
+                sorted[key.ordinal()] = ordered;
+            }
+            return ordered;
+        }
+
+        /**
+         * Filters the captured rows on the price and time columns, so only matches are materialized.
+         */
+        @Override
+        public CategoryView range(ListingRange range) {
+            if (range.isUnbounded()) return this;
+            int[] matching = Arrays.stream(rows)
+                    .filter(row -> range.contains(prices.getDouble(row), createdAt.getLong(row)))
+                    .toArray();
+            return new MappedCategoryView(matching);
+        }
+
+        private int compare(int byKey, int a, int b) {
+            return byKey != 0 ? byKey : Integer.compare(a, b);
+        }
+    }
+
+    /**
+     * Stable merge sort over primitive row numbers, avoiding boxed comparators.
+     */
+    private static void sortRows(int[] rows, IntBinaryOperator comparator) {
+        int[] buffer = new int[rows.length];
+        int[] src = rows;
+        int[] dst = buffer;
+        for (int width = 1; width < rows.length; width <<= 1) {
+            for (int lo = 0; lo < rows.length; lo += width << 1) {
+                int mid = Math.min(lo + width, rows.length);
+                int hi = Math.min(lo + (width << 1), rows.length);
+                int i = lo;
+                int j = mid;
+                for (int k = lo; k < hi; k++) {
+                    dst[k] = (j >= hi || (i < mid && comparator.applyAsInt(src[i], src[j]) <= 0)) ? src[i++] : src[j++];
+                }
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != rows) {
+            System.arraycopy(src, 0, rows, 0, rows.length);
+        }
+    }
+
+    /**
+     * Dense dictionary encoding of exact strings, with a case-insensitive group per entry.
+     * The first spelling seen for a group is its display name, mirroring the Category entity.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final SymbolTable<String> groups = new SymbolTable<>();
+        private volatile String[] names = new String[16];
+        private volatile int[] groupIds = new int[16];
+        private int size;
+
+        int idOf(String name) {
+            Integer id = ids.get(name);
+            return id != null ? id : register(name);
+        }
+
+        String nameOf(int id) {
+            return names[id];
+        }
+
+        int groupOfId(int id) {
+            return groupIds[id];
+        }
+
+        /**
+         * @return The case-insensitive group of the name, or -1 if it was never seen.
+         */
+        int groupOf(CharSequence name) {
+            return groups.idOf(name);
+        }
+
+        int groupCount() {
+            return groups.size();
+        }
+
+        String groupName(int group) {
+            return groups.nameOf(group);
+        }
+
+        private synchronized int register(String name) {
+            Integer existing = ids.get(name);
+            if (existing != null) return existing;
+
+            int group = groups.intern(name, n -> n);
+            String[] currentNames = size < names.length ? names : Arrays.copyOf(names, size * 2);
+            int[] currentGroups = size < groupIds.length ? groupIds : Arrays.copyOf(groupIds, size * 2);
+            currentNames[size] = name;
+            currentGroups[size] = group;
+            // Volatile writes publish the new entries before the id becomes reachable through the map
+            groupIds = currentGroups;
+            names = currentNames;
+            ids.put(name, size);
+            return size++;
+        }
+    }
+}
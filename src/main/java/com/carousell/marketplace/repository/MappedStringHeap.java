@@ -0,0 +1,94 @@
+package com.carousell.marketplace.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only heap of length-prefixed UTF-8 strings in a memory-mapped file.
+ * Columns store the returned offsets; space is bump-allocated with a CAS, so concurrent writers never block.
+ * A string never spans two chunks, which bounds a single string to {@link #CHUNK_BYTES} bytes.
+ */
+final class MappedStringHeap implements Closeable {
+
+    private static final int CHUNK_SHIFT = 26;
+    static final int CHUNK_BYTES = 1 << CHUNK_SHIFT;
+    private static final long OFFSET_MASK = CHUNK_BYTES - 1;
+
+    private final FileChannel channel;
+    private final AtomicLong top = new AtomicLong();
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    MappedStringHeap(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return The offset to pass to {@link #read(long)}.
+     */
+    long append(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = Integer.BYTES + bytes.length;
+        if (needed > CHUNK_BYTES) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes exceeds the mapped string heap chunk");
+        }
+
+        long start;
+        while (true) {
+            long current = top.get();
+            start = (current & OFFSET_MASK) + needed > CHUNK_BYTES ? (current | OFFSET_MASK) + 1 : current;
+            if (top.compareAndSet(current, start + needed)) break;
+        }
+
+        MappedByteBuffer chunk = chunk((int) (start >>> CHUNK_SHIFT));
+        int offset = (int) (start & OFFSET_MASK);
+        chunk.putInt(offset, bytes.length);
+        chunk.put(offset + Integer.BYTES, bytes, 0, bytes.length);
+        return start;
+    }
+
+    String read(long position) {
+        MappedByteBuffer chunk = chunk((int) (position >>> CHUNK_SHIFT));
+        int offset = (int) (position & OFFSET_MASK);
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + Integer.BYTES, bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer chunk(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        return mapChunk(index);
+    }
+
+    private synchronized MappedByteBuffer mapChunk(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * CHUNK_BYTES, CHUNK_BYTES);
+            MappedByteBuffer[] grown = index < current.length ? current.clone() : Arrays.copyOf(current, index + 1);
+            grown[index] = mapped;
+            chunks = grown;
+            return mapped;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map string heap chunk " + index, e);
+        }
+    }
+}
@@ -1,11 +1,83 @@
 package com.carousell.marketplace.repository;
 
+import com.carousell.marketplace.model.CategoryCount;
 import com.carousell.marketplace.model.Listing;
 import java.util.List;
 
 public interface MarketplaceReader {
-    boolean userExists(String username);
+    /**
+     * @param username Matched case-insensitively; may be a view into a command line.
+     */
+    boolean userExists(CharSequence username);
+
+    /**
+     * @param username Matched case-insensitively; may be a view into a command line.
+     * @return The user's dense id, as in {@link Listing#getOwnerId}, or -1 if the user is not registered.
+     */
+    int userId(CharSequence username);
     Listing getListing(int id);
     List<Listing> getAllListings();
+
+    /**
+     * @param categoryName The category to look up, matched case-insensitively.
+     * @return The listings in that category, or an empty list if there are none.
+     */
+    List<Listing> getListingsByCategory(String categoryName);
+
+    /**
+     * @param categoryName The category to look up, matched case-insensitively.
+     * @return A pre-sorted view of the category; empty if the category has no listings. A view with a
+     *         {@link CategoryView#version} is a snapshot that later writes do not change.
+     */
+    CategoryView getCategoryView(CharSequence categoryName);
+
+    /**
+     * @param categoryName The category to look up, matched case-insensitively.
+     * @param range Price and creation-time bounds; see {@link ListingRange}.
+     * @return A pre-sorted view of the listings of the category within the range.
+     */
+    default CategoryView getCategoryView(CharSequence categoryName, ListingRange range) {
+        return getCategoryView(categoryName).range(range);
+    }
     String getCachedTopCategory();
+
+    /**
+     * @param username The owner to look up, matched case-insensitively.
+     * @return A pre-sorted view of the user's listings; empty if the user has none.
+     */
+    CategoryView getOwnerView(CharSequence username);
+
+    /**
+     * Version counter for response caching: changes after the listing is added or removed.
+     * Implementations may share a counter between listings, so a change does not imply this listing changed.
+     */
+    long listingVersion(int id);
+
+    /**
+     * Version counter for response caching: changes after a listing is added to or removed from the category.
+     * @param categoryName The category to look up, matched case-insensitively.
+     */
+    long categoryVersion(CharSequence categoryName);
+
+    /**
+     * Full-text search over listing titles and descriptions.
+     * @param terms Lower-cased terms as produced by {@link com.carousell.marketplace.util.TextTokenizer#terms};
+     *              a listing matches if its title or description contains every one of them.
+     * @param categoryName Restricts the search to one category, matched case-insensitively; null for all.
+     * @return The matching listings, readable in any sort order; empty if nothing matches.
+     */
+    CategoryView search(List<String> terms, CharSequence categoryName);
+
+    /**
+     * @param n The maximum number of categories to return.
+     * @return The leading categories with their listing counts, the cached top category first.
+     */
+    List<CategoryCount> getTopCategories(int n);
+
+    /**
+     * @param window The sliding window to count listings over, by creation time.
+     * @param n The maximum number of categories to return.
+     * @return The categories with the most listings created within the window, by descending count.
+     */
+    List<CategoryCount> getTrendingCategories(TrendWindow window, int n);
 }
\ No newline at end of file
@@ -1,75 +1,265 @@
 package com.carousell.marketplace.repository;
 
+import com.carousell.marketplace.event.ListingEvent;
+import com.carousell.marketplace.event.ListingEventBus;
 import com.carousell.marketplace.model.Category;
+import com.carousell.marketplace.model.CategoryCount;
 import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.model.Mutation;
 import com.carousell.marketplace.model.User;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PreDestroy;
+
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
 
 /**
  * Spring-managed repository for in-memory data storage.
  * Optimized for O(1) retrieval of the top category and thread-safe operations.
+ * Usernames and categories are interned once into dense int ids, so lookups on the read path
+ * neither lower-case nor box.
+ * <p>
+ * The listing table, the category and owner indexes, the ranking and the trending counters are updated on
+ * the writer's thread.
+ * Category and owner views are immutable snapshots of their index, so a query reads one version throughout
+ * without copying it.
+ * Only the full-text index is built from the {@link ListingEventBus}: after its inline updates a write
+ * publishes one event, and the index's subscriber thread applies it.
  */
 @Slf4j
 @Repository
-public class MarketplaceRepository implements MarketplaceReader, MarketplaceWriter {
+@ConditionalOnProperty(prefix = "marketplace.storage", name = "mode", havingValue = "heap", matchIfMissing = true)
+public class MarketplaceRepository implements MarketplaceReader, MarketplaceWriter, MarketplaceStatistics {
+
+    private final SymbolTable<User> users;
+    private final SymbolTable<CategoryEntry> categories;
+    private final ListingTable listings;
+
+    private static final CategoryView EMPTY_CATEGORY = SortedCategoryIndex.EMPTY;
+    static final int DEFAULT_EVENT_BUFFER_SIZE = 1 << 16;
+
+    // Listing versions striped by id, so the counters stay small however many listings there are
+    private static final int LISTING_VERSION_STRIPES = 1 << 14;
+    private final AtomicLongArray listingVersions = new AtomicLongArray(LISTING_VERSION_STRIPES);
 
-    private final Map<String, User> users = new ConcurrentHashMap<>();
-    private final Map<Integer, Listing> listings = new ConcurrentHashMap<>();
-    private final Map<String, Category> categories = new ConcurrentHashMap<>();
+    // Listing guards striped by id: inserting or removing a listing holds its stripe from the table slot to the
+    // category and owner indexes, so a delete racing the create of the same id cannot reach them before the add
+    private static final int LISTING_GUARD_STRIPES = 1 << 10;
+    private final Object[] listingGuards = newGuards(LISTING_GUARD_STRIPES);
 
     private final AtomicInteger idGenerator = new AtomicInteger(100001);
+    // Returns the first of n consecutive free ids: the id generator, unless this repository is a shard
+    private final IntUnaryOperator idAllocator;
 
     // Optimization: Category frequency tracking for O(1) Top Category retrieval
-    private final Map<String, Integer> categoryCounts = new ConcurrentHashMap<>();
-    private volatile String cachedTopCategory = "";
+    private final CategoryRanking ranking;
+
+    // Per-category counts over the trending windows, by creation time; moved on by its own ticker
+    private final TrendingCategories trending;
+
+    // Indexes of the categories whose listings are stored here: every category, unless this is a shard
+    private final List<SortedCategoryIndex> ownIndexes = new CopyOnWriteArrayList<>();
+
+    // Per-owner indexes of the listings stored here, by user id; grown when a user with a higher id first lists
+    private volatile SortedCategoryIndex[] ownerIndexes = new SortedCategoryIndex[16];
+
+    // Full-text index over titles and descriptions, maintained from the listing events
+    private final InvertedIndex searchIndex = new InvertedIndex();
+
+    private final ListingEventBus events;
+    private final ListingEventBus.Subscription searchIndexing;
+    // Whether SEARCH waits for the index to catch up with every write published before it
+    private final boolean readYourWrites;
+
+    // Write-ahead hook; replaced by the persistence layer when durable mode is enabled
+    private volatile MutationJournal journal = MutationJournal.DIRECT;
+
+    public MarketplaceRepository() {
+        this(DEFAULT_EVENT_BUFFER_SIZE, true);
+    }
 
     /**
-     * Fixes race conditions using putIfAbsent.
+     * @param eventBufferSize Capacity of the listing event ring; writers wait when it is full.
+     * @param readYourWrites false lets SEARCH answer from an index that may lag the latest writes.
+     */
+    @Autowired
+    public MarketplaceRepository(
+            @Value("${marketplace.events.buffer-size:65536}") int eventBufferSize,
+            @Value("${marketplace.events.read-your-writes:true}") boolean readYourWrites) {
+        this(eventBufferSize, readYourWrites, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock Wall clock the trending windows follow, in its zone; a fixed or manual clock makes them
+     *              deterministic, together with {@link #tickTrendingWindows()}.
+     */
+    public MarketplaceRepository(int eventBufferSize, boolean readYourWrites, Clock clock) {
+        this(new Catalog(clock), null, ListingTable.DEFAULT_PAGE_SHIFT, eventBufferSize, readYourWrites);
+    }
+
+    /**
+     * Creates a shard of a {@link ShardedMarketplaceRepository}, sharing users, categories and the ranking
+     * with the other shards of the catalog.
+     * @param idAllocator Returns the first of n consecutive listing ids reserved for this shard.
+     * @param listingPageShift log2 of the listing table page size; at most the size of an id block.
+     */
+    MarketplaceRepository(Catalog catalog, IntUnaryOperator idAllocator, int listingPageShift,
+                          int eventBufferSize, boolean readYourWrites) {
+        this.users = catalog.users;
+        this.categories = catalog.categories;
+        this.ranking = catalog.ranking;
+        this.trending = catalog.trending;
+        this.listings = new ListingTable(listingPageShift);
+        this.idAllocator = idAllocator != null ? idAllocator : idGenerator::getAndAdd;
+        this.events = new ListingEventBus("marketplace-events", eventBufferSize);
+        this.searchIndexing = events.subscribe("search-index", this::indexForSearch);
+        this.readYourWrites = readYourWrites;
+    }
+
+    /**
+     * Stops the listing event subscribers and the trending ticker.
+     */
+    @PreDestroy
+    public void close() {
+        events.close();
+        trending.close();
+    }
+
+    /**
+     * Moves the trending windows to the clock's current time now instead of on the ticker's next run.
+     */
+    public void tickTrendingWindows() {
+        trending.tick();
+    }
+
+    /**
+     * Registration is atomic: the symbol table only adds a name that has no case-insensitive match.
      * @return true if registration was successful.
      */
     @Override
     public boolean registerUser(String username) {
-        String normalized = username.toLowerCase();
-        return users.putIfAbsent(normalized, new User(username)) == null;
+        if (users.idOf(username) >= 0) return false;
+        return journal.record(Mutation.registerUser(username),
+                () -> users.add(username, new User(username)) >= 0);
     }
 
     @Override
-    public boolean userExists(String username) {
-        return username != null && users.containsKey(username.toLowerCase());
+    public boolean userExists(CharSequence username) {
+        return users.idOf(username) >= 0;
+    }
+
+    @Override
+    public int userId(CharSequence username) {
+        return users.idOf(username);
     }
 
     /**
      * Adds a listing and updates the cached top category.
      */
     @Override
-    public int addListing(String owner, String title, String desc, double price, String categoryName, String timestamp) {
-        int id = idGenerator.getAndIncrement();
+    public int addListing(String owner, String title, String desc, double price, String categoryName, long createdAt) {
+        int id = idAllocator.applyAsInt(1);
+        Listing listing = newListing(id, owner, title, desc, price, categoryName, createdAt);
 
-        // Ensure Category entity exists to avoid "stringly-typed" logic
-        categories.putIfAbsent(categoryName.toLowerCase(), new Category(categoryName));
+        journal.record(Mutation.addListing(listing), () -> applyAddListing(listing));
 
-        Listing listing = Listing.builder()
-                .id(id)
-                .title(title)
-                .description(desc)
-                .price(price)
-                .createdAt(timestamp)
-                .category(categoryName)
-                .owner(owner)
-                .build();
+        log.debug("Created listing {} for user {}", id, owner);
+        return id;
+    }
 
-        listings.put(id, listing);
-        updateCategoryRanking(categoryName, 1);
+    /**
+     * Reserves one block of ids for the batch and moves each touched category's count once.
+     */
+    @Override
+    public int[] addListings(List<Listing> drafts) {
+        int[] ids = new int[drafts.size()];
+        int[] categoryIds = new int[drafts.size()];
+        int added = 0;
+        int firstId = idAllocator.applyAsInt(drafts.size());
+        for (int i = 0; i < drafts.size(); i++) {
+            Listing draft = drafts.get(i);
+            Listing listing = newListing(firstId + i, draft.getOwner(), draft.getTitle(), draft.getDescription(),
+                    draft.getPrice(), draft.getCategory(), draft.getCreatedAt());
+            ids[i] = listing.getId();
+            if (journal.record(Mutation.addListing(listing), () -> insertListing(listing))) {
+                categoryIds[added++] = listing.getCategoryId();
+            }
+        }
+        ranking.updateAll(categoryIds, added, 1);
 
-        log.info("Created listing {} for user {}", id, owner);
-        return id;
+        log.debug("Created {} listings from {} to {}", drafts.size(), firstId, firstId + drafts.size() - 1);
+        return ids;
+    }
+
+    @Override
+    public void deleteListings(int[] ids) {
+        removeAll(ids);
+    }
+
+    /**
+     * Reserves for IMPORT every id below {@code nextListingId} that has not been handed out yet: the id
+     * generator moves past them at once, so no CREATE_LISTING can be given one while the import inserts it.
+     * @return The first reserved id; ids below it may already belong to other listings, including creates
+     *         still in flight, so an import must skip them.
+     */
+    public int reserveListingIds(int nextListingId) {
+        return idGenerator.getAndAccumulate(nextListingId, Math::max);
+    }
+
+    /**
+     * Bulk insert for IMPORT: like {@link #addListings}, but every listing keeps its id, which must have been
+     * reserved with {@link #reserveListingIds}. Ids already present are skipped. Each listing is journaled as
+     * a single addition, and each touched category's count moves once for the whole batch.
+     * @return The number of listings inserted.
+     */
+    public int importListings(List<Listing> batch) {
+        int[] categoryIds = new int[batch.size()];
+        int added = 0;
+        for (Listing imported : batch) {
+            if (listings.containsKey(imported.getId())) continue;
+            Listing listing = newListing(imported.getId(), imported.getOwner(), imported.getTitle(), imported.getDescription(),
+                    imported.getPrice(), imported.getCategory(), imported.getCreatedAt());
+            if (journal.record(Mutation.addListing(listing), () -> insertListing(listing))) {
+                categoryIds[added++] = listing.getCategoryId();
+            }
+        }
+        ranking.updateAll(categoryIds, added, 1);
+
+        log.debug("Imported {} of {} listings", added, batch.size());
+        return added;
+    }
+
+    /**
+     * Collects the ids from the owner's index, then removes them as one batch. Each removal is still
+     * journaled as a single deletion, so recovery and replication need no bulk record.
+     */
+    @Override
+    public int deleteUserListings(CharSequence owner, CharSequence categoryName) {
+        int ownerId = users.idOf(owner);
+        int categoryId = categoryName == null ? -1 : categories.idOf(categoryName);
+        if (ownerId < 0 || (categoryName != null && categoryId < 0)) return 0;
+
+        int[] ids = ownerView(ownerId).stream(SortKey.TIME, false)
+                .filter(listing -> categoryId < 0 || listing.getCategoryId() == categoryId)
+                .mapToInt(Listing::getId)
+                .toArray();
+        int removed = removeAll(ids);
+        log.debug("Deleted {} listings of user {}", removed, owner);
+        return removed;
     }
 
     @Override
@@ -79,15 +269,40 @@ public class MarketplaceRepository implements MarketplaceReader, MarketplaceWrit
 
     @Override
     public void deleteListing(int id) {
-        Listing removed = listings.remove(id);
-        if (removed != null) {
-            updateCategoryRanking(removed.getCategory(), -1);
-        }
+        if (!listings.containsKey(id)) return;
+        journal.record(Mutation.deleteListing(id), () -> applyDeleteListing(id));
     }
 
     @Override
     public String getCachedTopCategory() {
-        return cachedTopCategory;
+        return ranking.top();
+    }
+
+    @Override
+    public CategoryView getOwnerView(CharSequence username) {
+        int ownerId = users.idOf(username);
+        return ownerId < 0 ? EMPTY_CATEGORY : ownerView(ownerId);
+    }
+
+    @Override
+    public List<CategoryCount> getTopCategories(int n) {
+        return ranking.top(n);
+    }
+
+    @Override
+    public List<CategoryCount> getTrendingCategories(TrendWindow window, int n) {
+        return trending.top(window, n);
+    }
+
+    @Override
+    public long listingVersion(int id) {
+        return listingVersions.get(id & (LISTING_VERSION_STRIPES - 1));
+    }
+
+    @Override
+    public long categoryVersion(CharSequence categoryName) {
+        int categoryId = categories.idOf(categoryName);
+        return categoryId < 0 ? 0 : categories.get(categoryId).index.version();
     }
 
     @Override
@@ -96,49 +311,324 @@ public class MarketplaceRepository implements MarketplaceReader, MarketplaceWrit
     }
 
     /**
-     * Internal logic to maintain the cached top category during writes.
-     * Synchronized to prevent race conditions during the refresh of the top value.
+     * Served from the per-category index, so the cost is proportional to the category size only.
      */
-    private synchronized void updateCategoryRanking(String category, int delta) {
-        String normalized = category.toLowerCase();
-        int newCount = categoryCounts.merge(normalized, delta, Integer::sum);
+    @Override
+    public List<Listing> getListingsByCategory(String categoryName) {
+        return getCategoryView(categoryName).stream(SortKey.PRICE, false).collect(Collectors.toList());
+    }
 
-        if (this.cachedTopCategory.isEmpty()) {
-            if (newCount > 0) {
-                this.cachedTopCategory = formatCategoryDisplay(normalized);
-            }
-            return;
+    @Override
+    public CategoryView getCategoryView(CharSequence categoryName) {
+        int categoryId = categories.idOf(categoryName);
+        return categoryId < 0 ? EMPTY_CATEGORY : categories.get(categoryId).index.snapshot();
+    }
+
+    /**
+     * Served from the inverted index; see {@link SearchResults} for how a query is planned.
+     */
+    @Override
+    public CategoryView search(List<String> terms, CharSequence categoryName) {
+        if (readYourWrites) {
+            searchIndexing.awaitSequence(events.cursor());
         }
+        if (categoryName == null) {
+            List<CategoryView> snapshots = ownIndexes.stream().map(SortedCategoryIndex::snapshot).collect(Collectors.toList());
+            return searchIndex.search(terms, new MergedCategoryView(snapshots), -1, listings::get);
+        }
+        int categoryId = categories.idOf(categoryName);
+        if (categoryId < 0) return EMPTY_CATEGORY;
+        return searchIndex.search(terms, categories.get(categoryId).index.snapshot(), categoryId, listings::get);
+    }
 
-        String currentTopNormalized = this.cachedTopCategory.toLowerCase();
-        int currentTopCount = categoryCounts.getOrDefault(currentTopNormalized, 0);
+    @Override
+    public int listingCount() {
+        return listings.size();
+    }
 
-        // Tie-breaking: A leader is only replaced if a challenger's count is strictly greater
-        if (newCount > currentTopCount) {
-            this.cachedTopCategory = formatCategoryDisplay(normalized);
-        } else if (normalized.equals(currentTopNormalized) && delta < 0) {
-            reEvaluateIncumbent(currentTopNormalized, newCount);
+    @Override
+    public int categoryCount() {
+        return categories.size();
+    }
+
+    @Override
+    public int rankingCapacity() {
+        return ranking.capacity();
+    }
+
+    @Override
+    public long incumbentReEvaluations() {
+        return ranking.reEvaluations();
+    }
+
+    @Override
+    public long incumbentReEvaluationNanos() {
+        return ranking.reEvaluationNanos();
+    }
+
+    @Override
+    public long pendingListingEvents() {
+        return events.backlog();
+    }
+
+    /**
+     * @return The bus every listing insert and removal is published to; projections may subscribe to it.
+     */
+    public ListingEventBus listingEvents() {
+        return events;
+    }
+
+    // ---- Recovery support: used by the persistence layer to rebuild state without re-journaling ----
+
+    /**
+     * Routes all subsequent mutations through the given journal.
+     */
+    public void attachJournal(MutationJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Idempotent registration used during replay.
+     */
+    public void restoreUser(String username) {
+        users.add(username, new User(username));
+    }
+
+    /**
+     * Idempotent insert used during replay; keeps the original id and advances the id generator past it.
+     */
+    public void restoreListing(Listing listing) {
+        idGenerator.accumulateAndGet(listing.getId() + 1, Math::max);
+        if (!listings.containsKey(listing.getId())) {
+            int categoryId = categories.intern(listing.getCategory(), this::newCategory);
+            int ownerId = users.idOf(listing.getOwner());
+            applyAddListing(listing.toBuilder()
+                    .category(canonical(categories, categoryId, listing.getCategory()))
+                    .owner(canonical(users, ownerId, listing.getOwner()))
+                    .categoryId(categoryId)
+                    .ownerId(ownerId)
+                    .build());
+        }
+    }
+
+    /**
+     * Idempotent removal used during replay.
+     */
+    public void restoreDeletion(int id) {
+        applyDeleteListing(id);
+    }
+
+    /**
+     * Advances the id generator so recovered state never reissues an id.
+     */
+    public void restoreNextListingId(int nextId) {
+        idGenerator.accumulateAndGet(nextId, Math::max);
+    }
+
+    /**
+     * Re-applies the incumbent recorded in a snapshot, which bulk loading cannot reconstruct on ties.
+     */
+    public void restoreTopCategory(String topCategory) {
+        int categoryId = categories.idOf(topCategory);
+        if (categoryId >= 0) {
+            ranking.restoreTop(categoryId);
+        }
+    }
+
+    public int getNextListingId() {
+        return idGenerator.get();
+    }
+
+    /**
+     * @return A live, weakly consistent view of all users; iterating it does not copy.
+     */
+    public Collection<User> usersView() {
+        return Collections.unmodifiableCollection(users.values());
+    }
+
+    /**
+     * @return The category names as first spelled, in category id order.
+     */
+    public List<String> categoryNames() {
+        List<String> names = new ArrayList<>(categories.size());
+        for (CategoryEntry entry : categories.values()) {
+            names.add(entry.category.getName());
+        }
+        return names;
+    }
+
+    /**
+     * @return A live, weakly consistent view of all listings; iterating it does not copy.
+     */
+    public Collection<Listing> listingsView() {
+        return Collections.unmodifiableCollection(listings.values());
+    }
+
+    private Listing newListing(int id, String owner, String title, String desc, double price, String categoryName, long createdAt) {
+        // Ensure Category entity exists to avoid "stringly-typed" logic
+        int categoryId = categories.intern(categoryName, this::newCategory);
+        int ownerId = users.idOf(owner);
+
+        return Listing.builder()
+                .id(id)
+                .title(title)
+                .description(desc)
+                .price(price)
+                .createdAt(createdAt)
+                .category(canonical(categories, categoryId, categoryName))
+                .owner(canonical(users, ownerId, owner))
+                .categoryId(categoryId)
+                .ownerId(ownerId)
+                .build();
+    }
+
+    private int removeAll(int[] ids) {
+        int[] categoryIds = new int[ids.length];
+        int removed = 0;
+        for (int id : ids) {
+            Listing listing = listings.get(id);
+            if (listing != null && journal.record(Mutation.deleteListing(id), () -> removeListing(id) != null)) {
+                categoryIds[removed++] = listing.getCategoryId();
+            }
         }
+        ranking.updateAll(categoryIds, removed, -1);
+        return removed;
+    }
+
+    private boolean applyAddListing(Listing listing) {
+        if (!insertListing(listing)) return false;
+        ranking.update(listing.getCategoryId(), 1);
+        return true;
     }
 
-    private void reEvaluateIncumbent(String incumbent, int incumbentCount) {
-        String bestCategory = incumbent;
-        int maxCount = incumbentCount;
+    private boolean applyDeleteListing(int id) {
+        Listing removed = removeListing(id);
+        if (removed == null) return false;
+        ranking.update(removed.getCategoryId(), -1);
+        return true;
+    }
 
-        for (Map.Entry<String, Integer> entry : categoryCounts.entrySet()) {
-            int count = entry.getValue();
-            if (count > maxCount) {
-                maxCount = count;
-                bestCategory = entry.getKey();
+    // Table, index and trending maintenance, then the event for the other views; callers update the ranking
+    private boolean insertListing(Listing listing) {
+        synchronized (guard(listing.getId())) {
+            if (!listings.putIfAbsent(listing)) return false;
+            categories.get(listing.getCategoryId()).index.add(listing);
+            if (listing.getOwnerId() >= 0) {
+                ownerIndex(listing.getOwnerId()).add(listing);
             }
+            trending.record(listing.getCategoryId(), listing.getCreatedAt(), 1);
+            events.publish(ListingEvent.Type.ADDED, listing);
+            listingVersions.incrementAndGet(listing.getId() & (LISTING_VERSION_STRIPES - 1));
+        }
+        return true;
+    }
+
+    private Listing removeListing(int id) {
+        synchronized (guard(id)) {
+            Listing removed = listings.remove(id);
+            if (removed == null) return null;
+            categories.get(removed.getCategoryId()).index.remove(removed);
+            if (removed.getOwnerId() >= 0) {
+                ownerIndex(removed.getOwnerId()).remove(removed);
+            }
+            trending.record(removed.getCategoryId(), removed.getCreatedAt(), -1);
+            events.publish(ListingEvent.Type.REMOVED, removed);
+            listingVersions.incrementAndGet(id & (LISTING_VERSION_STRIPES - 1));
+            return removed;
+        }
+    }
+
+    private Object guard(int id) {
+        return listingGuards[id & (LISTING_GUARD_STRIPES - 1)];
+    }
+
+    private static Object[] newGuards(int stripes) {
+        Object[] guards = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            guards[i] = new Object();
+        }
+        return guards;
+    }
+
+    private CategoryView ownerView(int ownerId) {
+        SortedCategoryIndex[] current = ownerIndexes;
+        SortedCategoryIndex index = ownerId < current.length ? current[ownerId] : null;
+        return index != null ? index.snapshot() : EMPTY_CATEGORY;
+    }
+
+    private SortedCategoryIndex ownerIndex(int ownerId) {
+        SortedCategoryIndex[] current = ownerIndexes;
+        SortedCategoryIndex index = ownerId < current.length ? current[ownerId] : null;
+        return index != null ? index : newOwnerIndex(ownerId);
+    }
+
+    // A grown array is published by the volatile write; an index read racily is safe through its final fields
+    private synchronized SortedCategoryIndex newOwnerIndex(int ownerId) {
+        SortedCategoryIndex[] current = ownerIndexes;
+        if (ownerId >= current.length) {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, ownerId + 1));
+        }
+        if (current[ownerId] == null) {
+            current[ownerId] = new SortedCategoryIndex();
+        }
+        ownerIndexes = current;
+        return current[ownerId];
+    }
+
+    // Runs on the search index subscriber's thread, in publication order
+    private void indexForSearch(ListingEvent event, long sequence, boolean endOfBatch) {
+        if (event.getType() == ListingEvent.Type.ADDED) {
+            searchIndex.add(event.getListing());
+        } else {
+            searchIndex.remove(event.getListing(), listings::containsKey);
+        }
+    }
+
+    // Runs under the symbol table's insert lock, once per category
+    private CategoryEntry newCategory(String name) {
+        CategoryEntry entry = new CategoryEntry(name);
+        ownIndexes.add(entry.index);
+        return entry;
+    }
+
+    /**
+     * Reuses the interned String instance when the spelling matches, so listings share one copy.
+     */
+    private static String canonical(SymbolTable<?> table, int id, String spelling) {
+        if (id < 0) return spelling;
+        String interned = table.nameOf(id);
+        return interned.equals(spelling) ? interned : spelling;
+    }
+
+    /**
+     * Users, categories, the category ranking and the trending counters; one per repository, or shared by
+     * the shards of a {@link ShardedMarketplaceRepository} so names resolve to the same ids and ties break
+     * the same way.
+     */
+    static final class Catalog {
+        final SymbolTable<User> users = new SymbolTable<>();
+        final SymbolTable<CategoryEntry> categories = new SymbolTable<>();
+        final CategoryRanking ranking = new CategoryRanking(this::categoryName);
+        final TrendingCategories trending;
+
+        Catalog(Clock clock) {
+            this.trending = new TrendingCategories(this::categoryName, clock);
         }
 
-        this.cachedTopCategory = maxCount > 0 ? formatCategoryDisplay(bestCategory) : "";
+        private String categoryName(int categoryId) {
+            return categories.get(categoryId).category.getName();
+        }
     }
 
-    private String formatCategoryDisplay(String cat) {
-        if (cat == null || cat.isEmpty()) return "";
-        Category entity = categories.get(cat.toLowerCase());
-        return (entity != null) ? entity.getName() : cat;
+    /**
+     * Per-category state: the display entity plus the pre-sorted listing index.
+     */
+    private static final class CategoryEntry {
+        final Category category;
+        final SortedCategoryIndex index = new SortedCategoryIndex();
+
+        CategoryEntry(String name) {
+            this.category = new Category(name);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.carousell.marketplace.repository;
+
+/**
+ * Point-in-time repository figures for the metrics layer.
+ * Reads are cheap and never block writers.
+ */
+public interface MarketplaceStatistics {
+    int listingCount();
+    int categoryCount();
+
+    /**
+     * @return The capacity of the category ranking's per-category count array.
+     */
+    int rankingCapacity();
+
+    /**
+     * @return How often the top category was re-evaluated because the incumbent lost a listing.
+     */
+    long incumbentReEvaluations();
+    long incumbentReEvaluationNanos();
+
+    /**
+     * @return Listing changes published but not yet applied by every asynchronous view, e.g. the search index.
+     */
+    long pendingListingEvents();
+}
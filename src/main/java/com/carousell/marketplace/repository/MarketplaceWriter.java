@@ -1,5 +1,9 @@
 package com.carousell.marketplace.repository;
 
+import com.carousell.marketplace.model.Listing;
+
+import java.util.List;
+
 /**
  * Interface for commands that modify data.
  * Updated return type to boolean to allow the caller to detect registration
@@ -12,7 +16,32 @@ public interface MarketplaceWriter {
      */
     boolean registerUser(String username);
 
-    int addListing(String owner, String title, String desc, double price, String cat, String time);
+    /**
+     * @param createdAt Epoch millis of the creation time, see {@link com.carousell.marketplace.util.Timestamps}.
+     * @return The assigned listing id.
+     */
+    int addListing(String owner, String title, String desc, double price, String cat, long createdAt);
 
     void deleteListing(int id);
+
+    /**
+     * Bulk variant of {@link #addListing} that updates category counts once per batch.
+     * @param drafts Validated listings to create; ids are assigned here and the draft ids are ignored.
+     * @return The assigned ids, in draft order.
+     */
+    int[] addListings(List<Listing> drafts);
+
+    /**
+     * Bulk variant of {@link #deleteListing} that updates category counts once per batch.
+     */
+    void deleteListings(int[] ids);
+
+    /**
+     * Deletes every listing of the owner, optionally only those in one category, updating category counts
+     * once per batch like {@link #deleteListings}.
+     * @param owner Matched case-insensitively.
+     * @param categoryName Matched case-insensitively; null for every category.
+     * @return The number of listings deleted.
+     */
+    int deleteUserListings(CharSequence owner, CharSequence categoryName);
 }
\ No newline at end of file
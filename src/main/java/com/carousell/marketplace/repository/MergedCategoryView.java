@@ -0,0 +1,81 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * All listings in either order, merged lazily from the per-category indexes: reading the first K rows
+ * costs O(C log C + K log C) for C categories, without a global index.
+ */
+final class MergedCategoryView implements CategoryView {
+
+    private final List<? extends CategoryView> parts;
+
+    MergedCategoryView(List<? extends CategoryView> parts) {
+        this.parts = parts;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (CategoryView part : parts) {
+            size += part.size();
+        }
+        return size;
+    }
+
+    @Override
+    public Stream<Listing> stream(SortKey key, boolean descending) {
+        Comparator<Listing> order = descending ? key.comparator().reversed() : key.comparator();
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, parts.size()), (a, b) -> order.compare(a.next, b.next));
+        for (CategoryView part : parts) {
+            Iterator<Listing> rows = part.stream(key, descending).iterator();
+            if (rows.hasNext()) {
+                heads.add(new Head(rows));
+            }
+        }
+        Iterator<Listing> merged = new Iterator<Listing>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Listing next() {
+                Head head = heads.poll();
+                if (head == null) throw new NoSuchElementException();
+                Listing next = head.next;
+                if (head.advance()) {
+                    heads.add(head);
+                }
+                return next;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private static final class Head {
+        final Iterator<Listing> rows;
+        Listing next;
+
+        Head(Iterator<Listing> rows) {
+            this.rows = rows;
+            this.next = rows.next();
+        }
+
+        boolean advance() {
+            if (!rows.hasNext()) return false;
+            next = rows.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Mutation;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Hook through which the repository routes every mutation.
+ * A journal records the mutation first and then applies it, so nothing becomes visible before it is logged.
+ */
+public interface MutationJournal {
+
+    /**
+     * Journal used when persistence is disabled: applies the mutation without recording it.
+     */
+    MutationJournal DIRECT = (mutation, apply) -> apply.getAsBoolean();
+
+    /**
+     * @param mutation The mutation to record.
+     * @param apply Applies the mutation to the in-memory state.
+     * @return The result of {@code apply}.
+     */
+    boolean record(Mutation mutation, BooleanSupplier apply);
+}
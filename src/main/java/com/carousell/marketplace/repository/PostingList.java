@@ -0,0 +1,160 @@
+package com.carousell.marketplace.repository;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Listing ids containing one search term, delta- and varint-encoded in ascending order.
+ * Ids usually arrive in ascending order and are appended in place; the few that arrive late, e.g. from
+ * concurrent writers, wait in a small sorted side array until it is merged into the encoded run.
+ * <p>
+ * Readers take an immutable snapshot and never lock. Deleted ids are not removed eagerly: the list
+ * counts them and is rewritten once they make up half of it, so deletes stay O(1) amortized.
+ */
+final class PostingList {
+
+    private static final int MAX_LATE = 128;
+    private static final int MIN_COMPACTION = 64;
+
+    private volatile Postings current = Postings.EMPTY;
+
+    // Guarded by this
+    private int removed;
+
+    synchronized void add(int id) {
+        Postings postings = current;
+        if (id > postings.last) {
+            current = postings.append(id);
+        } else if (id != postings.last && Arrays.binarySearch(postings.late, id) < 0) {
+            Postings withLate = postings.withLate(id);
+            current = withLate.late.length > MAX_LATE ? Postings.encode(withLate.decode()) : withLate;
+        }
+    }
+
+    /**
+     * Records that one listing containing the term was deleted, compacting the list when enough have been.
+     * @param isLive Tells which ids still exist.
+     */
+    synchronized void removed(IntPredicate isLive) {
+        removed++;
+        Postings postings = current;
+        if (removed >= MIN_COMPACTION && removed * 2 >= postings.size()) {
+            current = Postings.encode(Arrays.stream(postings.decode()).filter(isLive).toArray());
+            removed = 0;
+        }
+    }
+
+    /**
+     * @return The approximate number of live ids, used to pick the cheapest way to run a query.
+     */
+    int estimatedSize() {
+        return current.size();
+    }
+
+    /**
+     * @return The ids in ascending order; may include recently deleted ids.
+     */
+    int[] toArray() {
+        return current.decode();
+    }
+
+    /**
+     * Immutable view of the encoded ids. Snapshots share the byte array: appends only write past the
+     * length of every published snapshot, so a reader never sees bytes change under it.
+     */
+    private static final class Postings {
+        static final Postings EMPTY = new Postings(new byte[0], 0, 0, 0, new int[0]);
+
+        final byte[] data;
+        final int length;
+        final int count;
+        final int last;
+        final int[] late;
+
+        Postings(byte[] data, int length, int count, int last, int[] late) {
+            this.data = data;
+            this.length = length;
+            this.count = count;
+            this.last = last;
+            this.late = late;
+        }
+
+        int size() {
+            return count + late.length;
+        }
+
+        Postings append(int id) {
+            byte[] target = data;
+            if (length + 5 > target.length) {
+                target = Arrays.copyOf(data, Math.max(16, length + (length >> 1) + 5));
+            }
+            int end = writeVarint(target, length, id - last);
+            return new Postings(target, end, count + 1, id, late);
+        }
+
+        Postings withLate(int id) {
+            int[] merged = new int[late.length + 1];
+            int position = -Arrays.binarySearch(late, id) - 1;
+            System.arraycopy(late, 0, merged, 0, position);
+            merged[position] = id;
+            System.arraycopy(late, position, merged, position + 1, late.length - position);
+            return new Postings(data, length, count, last, merged);
+        }
+
+        int[] decode() {
+            int[] ids = new int[count];
+            int value = 0;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+                ids[i] = value;
+            }
+            return late.length == 0 ? ids : merge(ids, late);
+        }
+
+        static Postings encode(int[] sortedIds) {
+            byte[] data = new byte[Math.max(16, sortedIds.length * 2)];
+            int length = 0;
+            int last = 0;
+            for (int id : sortedIds) {
+                if (length + 5 > data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                length = writeVarint(data, length, id - last);
+                last = id;
+            }
+            return new Postings(data, length, sortedIds.length, last, EMPTY.late);
+        }
+
+        private static int writeVarint(byte[] target, int position, int value) {
+            while ((value & ~0x7F) != 0) {
+                target[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            target[position++] = (byte) value;
+            return position;
+        }
+
+        private static int[] merge(int[] a, int[] b) {
+            int[] merged = new int[a.length + b.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < a.length || j < b.length) {
+                int next = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+                if (n == 0 || merged[n - 1] != next) {
+                    merged[n++] = next;
+                }
+            }
+            return n == merged.length ? merged : Arrays.copyOf(merged, n);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Listings matching every term of a query, readable in either {@link SortKey} order.
+ * The plan is picked per read from the posting list sizes:
+ * <ul>
+ *     <li>every term is common: walk the pre-sorted scope and check each listing's text, so a page costs
+ *     a few rows per result;</li>
+ *     <li>few ids survive the intersection: fetch and sort them;</li>
+ *     <li>otherwise: walk the pre-sorted scope, keeping listings whose id is in the intersection.</li>
+ * </ul>
+ * Terms too common to be worth decoding are checked against the listing text instead.
+ */
+final class SearchResults implements CategoryView {
+
+    // A term occurring in at least 1/SCAN_FRACTION of the scope is cheaper to check per listing than to decode
+    private static final int SCAN_FRACTION = 8;
+    // Intersections up to this size are sorted directly
+    private static final int SORT_LIMIT = 4096;
+
+    private final List<PostingList> postings;
+    private final List<String> terms;
+    private final CategoryView scope;
+    private final int categoryId;
+    private final IntFunction<Listing> lookup;
+
+    /**
+     * @param postings The posting lists of the terms, rarest first.
+     * @param terms The terms, in the same order.
+     */
+    SearchResults(List<PostingList> postings, List<String> terms, CategoryView scope, int categoryId, IntFunction<Listing> lookup) {
+        this.postings = postings;
+        this.terms = terms;
+        this.scope = scope;
+        this.categoryId = categoryId;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Counts the matches, which runs the whole query.
+     */
+    @Override
+    public int size() {
+        return (int) stream(SortKey.PRICE, false).count();
+    }
+
+    @Override
+    public Stream<Listing> stream(SortKey key, boolean descending) {
+        int scopeSize = scope.size();
+        if (isCommon(postings.get(0), scopeSize)) {
+            return scope.stream(key, descending).filter(listing -> containsAll(listing, terms));
+        }
+
+        int[] ids = postings.get(0).toArray();
+        List<String> unverified = new ArrayList<>();
+        for (int i = 1; i < postings.size() && ids.length > 0; i++) {
+            if (isCommon(postings.get(i), scopeSize)) {
+                unverified.add(terms.get(i));
+            } else {
+                ids = intersect(ids, postings.get(i).toArray());
+            }
+        }
+        if (ids.length == 0) return Stream.empty();
+
+        if (ids.length <= SORT_LIMIT) {
+            List<Listing> matches = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                Listing listing = lookup.apply(id);
+                if (listing != null && (categoryId < 0 || listing.getCategoryId() == categoryId)
+                        && containsAll(listing, unverified)) {
+                    matches.add(listing);
+                }
+            }
+            Comparator<Listing> order = descending ? key.comparator().reversed() : key.comparator();
+            matches.sort(order);
+            return matches.stream();
+        }
+
+        int base = ids[0];
+        BitSet members = new BitSet(ids[ids.length - 1] - base + 1);
+        for (int id : ids) {
+            members.set(id - base);
+        }
+        return scope.stream(key, descending).filter(listing -> listing.getId() >= base
+                && members.get(listing.getId() - base) && containsAll(listing, unverified));
+    }
+
+    private static boolean isCommon(PostingList list, int scopeSize) {
+        return (long) list.estimatedSize() * SCAN_FRACTION >= scopeSize;
+    }
+
+    private static boolean containsAll(Listing listing, List<String> terms) {
+        for (String term : terms) {
+            if (!TextTokenizer.containsTerm(listing.getTitle(), term)
+                    && !TextTokenizer.containsTerm(listing.getDescription(), term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Intersects two ascending id arrays, galloping through the longer one when the sizes are lopsided.
+     */
+    static int[] intersect(int[] small, int[] large) {
+        if (small.length > large.length) {
+            int[] swap = small;
+            small = large;
+            large = swap;
+        }
+        int[] result = new int[small.length];
+        int n = 0;
+        int j = 0;
+        boolean gallop = small.length * 16 < large.length;
+        for (int i = 0; i < small.length && j < large.length; i++) {
+            int id = small[i];
+            if (gallop) {
+                int step = 1;
+                while (j + step < large.length && large[j + step] < id) step <<= 1;
+                int lo = j;
+                int hi = Math.min(j + step, large.length - 1);
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (large[mid] < id) lo = mid + 1;
+                    else hi = mid;
+                }
+                j = lo;
+            } else {
+                while (j < large.length && large[j] < id) j++;
+            }
+            if (j < large.length && large[j] == id) {
+                result[n++] = id;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
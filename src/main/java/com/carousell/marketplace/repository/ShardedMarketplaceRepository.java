@@ -0,0 +1,331 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.model.Listing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PreDestroy;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Heap repository partitioned by category for write scaling across cores.
+ * Each category is hash-routed to one of N shards, which owns that category's listings: its own listing
+ * table, category indexes, full-text index and id allocation. Writers to categories on different shards
+ * share no counters or locks apart from the lock-free, per-category ranking.
+ * <p>
+ * Listing ids are handed to shards in blocks of {@value #BLOCK_SIZE}, so the global id counter is touched
+ * once per block instead of once per listing, and a block-to-shard table resolves GET_LISTING by id.
+ * Ids therefore stay unique and increase within a shard, but consecutive listings in different categories
+ * may not get consecutive ids. Users, category names and the ranking live in a shared catalog, so
+ * GET_TOP_CATEGORY is still O(1) and breaks ties exactly like the unsharded repository.
+ * Durable persistence is only available with the unsharded heap store.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "marketplace.storage", name = "mode", havingValue = "sharded")
+public class ShardedMarketplaceRepository implements MarketplaceReader, MarketplaceWriter, MarketplaceStatistics {
+
+    private static final int FIRST_ID = 100001;
+    private static final int BLOCK_SHIFT = 12;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final MarketplaceRepository[] shards;
+
+    // Block index (id >> BLOCK_SHIFT) of the next unclaimed block, and the owning shard + 1 of each block
+    private final AtomicInteger nextBlock = new AtomicInteger(FIRST_ID >> BLOCK_SHIFT);
+    private final AtomicIntegerArray blockOwners = new AtomicIntegerArray((Integer.MAX_VALUE >> BLOCK_SHIFT) + 1);
+
+    public ShardedMarketplaceRepository(int shardCount) {
+        this(shardCount, MarketplaceRepository.DEFAULT_EVENT_BUFFER_SIZE, true);
+    }
+
+    /**
+     * @param shardCount The number of shards; 0 uses one per available processor.
+     * @param eventBufferSize Capacity of each shard's listing event ring.
+     * @param readYourWrites false lets SEARCH answer from indexes that may lag the latest writes.
+     */
+    @Autowired
+    public ShardedMarketplaceRepository(
+            @Value("${marketplace.storage.shards:0}") int shardCount,
+            @Value("${marketplace.events.buffer-size:65536}") int eventBufferSize,
+            @Value("${marketplace.events.read-your-writes:true}") boolean readYourWrites) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        MarketplaceRepository.Catalog catalog = new MarketplaceRepository.Catalog(Clock.systemDefaultZone());
+        this.shards = new MarketplaceRepository[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new MarketplaceRepository(catalog, new BlockAllocator(i), BLOCK_SHIFT, eventBufferSize, readYourWrites);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (MarketplaceRepository shard : shards) {
+            shard.close();
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public boolean registerUser(String username) {
+        return shards[0].registerUser(username);
+    }
+
+    @Override
+    public boolean userExists(CharSequence username) {
+        return shards[0].userExists(username);
+    }
+
+    @Override
+    public int userId(CharSequence username) {
+        return shards[0].userId(username);
+    }
+
+    @Override
+    public int addListing(String owner, String title, String desc, double price, String categoryName, long createdAt) {
+        return shardOf(categoryName).addListing(owner, title, desc, price, categoryName, createdAt);
+    }
+
+    /**
+     * Hands each run of consecutive drafts routed to the same shard to that shard in one call. Runs are
+     * applied in order, so ranking ties resolve as if the drafts were added one at a time.
+     */
+    @Override
+    public int[] addListings(List<Listing> drafts) {
+        int[] ids = new int[drafts.size()];
+        int start = 0;
+        while (start < drafts.size()) {
+            MarketplaceRepository shard = shardOf(drafts.get(start).getCategory());
+            int end = start + 1;
+            while (end < drafts.size() && shardOf(drafts.get(end).getCategory()) == shard) {
+                end++;
+            }
+            int[] runIds = shard.addListings(drafts.subList(start, end));
+            System.arraycopy(runIds, 0, ids, start, runIds.length);
+            start = end;
+        }
+        return ids;
+    }
+
+    @Override
+    public Listing getListing(int id) {
+        MarketplaceRepository shard = shardOf(id);
+        return shard == null ? null : shard.getListing(id);
+    }
+
+    @Override
+    public void deleteListing(int id) {
+        MarketplaceRepository shard = shardOf(id);
+        if (shard != null) {
+            shard.deleteListing(id);
+        }
+    }
+
+    @Override
+    public void deleteListings(int[] ids) {
+        int start = 0;
+        while (start < ids.length) {
+            MarketplaceRepository shard = shardOf(ids[start]);
+            int end = start + 1;
+            while (end < ids.length && shardOf(ids[end]) == shard) {
+                end++;
+            }
+            if (shard != null) {
+                shard.deleteListings(Arrays.copyOfRange(ids, start, end));
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * A category's listings live on one shard; otherwise each shard deletes its share as one batch.
+     */
+    @Override
+    public int deleteUserListings(CharSequence owner, CharSequence categoryName) {
+        if (categoryName != null) return shardOf(categoryName).deleteUserListings(owner, categoryName);
+        int removed = 0;
+        for (MarketplaceRepository shard : shards) {
+            removed += shard.deleteUserListings(owner, null);
+        }
+        return removed;
+    }
+
+    @Override
+    public List<Listing> getAllListings() {
+        List<Listing> all = new ArrayList<>(listingCount());
+        for (MarketplaceRepository shard : shards) {
+            all.addAll(shard.listingsView());
+        }
+        return all;
+    }
+
+    @Override
+    public List<Listing> getListingsByCategory(String categoryName) {
+        return shardOf(categoryName).getListingsByCategory(categoryName);
+    }
+
+    @Override
+    public CategoryView getCategoryView(CharSequence categoryName) {
+        return shardOf(categoryName).getCategoryView(categoryName);
+    }
+
+    @Override
+    public String getCachedTopCategory() {
+        return shards[0].getCachedTopCategory();
+    }
+
+    /**
+     * Merges every shard's index of the owner's listings by sort key.
+     */
+    @Override
+    public CategoryView getOwnerView(CharSequence username) {
+        List<CategoryView> views = new ArrayList<>(shards.length);
+        for (MarketplaceRepository shard : shards) {
+            views.add(shard.getOwnerView(username));
+        }
+        return new MergedCategoryView(views);
+    }
+
+    @Override
+    public List<CategoryCount> getTopCategories(int n) {
+        return shards[0].getTopCategories(n);
+    }
+
+    @Override
+    public List<CategoryCount> getTrendingCategories(TrendWindow window, int n) {
+        return shards[0].getTrendingCategories(window, n);
+    }
+
+    @Override
+    public long listingVersion(int id) {
+        MarketplaceRepository shard = shardOf(id);
+        return shard == null ? 0 : shard.listingVersion(id);
+    }
+
+    @Override
+    public long categoryVersion(CharSequence categoryName) {
+        return shardOf(categoryName).categoryVersion(categoryName);
+    }
+
+    /**
+     * A category search runs on its shard; a global one merges every shard's results by sort key.
+     */
+    @Override
+    public CategoryView search(List<String> terms, CharSequence categoryName) {
+        if (categoryName != null) return shardOf(categoryName).search(terms, categoryName);
+        List<CategoryView> results = new ArrayList<>(shards.length);
+        for (MarketplaceRepository shard : shards) {
+            results.add(shard.search(terms, null));
+        }
+        return new MergedCategoryView(results);
+    }
+
+    @Override
+    public int listingCount() {
+        int count = 0;
+        for (MarketplaceRepository shard : shards) {
+            count += shard.listingCount();
+        }
+        return count;
+    }
+
+    @Override
+    public int categoryCount() {
+        return shards[0].categoryCount();
+    }
+
+    @Override
+    public int rankingCapacity() {
+        return shards[0].rankingCapacity();
+    }
+
+    @Override
+    public long incumbentReEvaluations() {
+        return shards[0].incumbentReEvaluations();
+    }
+
+    @Override
+    public long incumbentReEvaluationNanos() {
+        return shards[0].incumbentReEvaluationNanos();
+    }
+
+    @Override
+    public long pendingListingEvents() {
+        long pending = 0;
+        for (MarketplaceRepository shard : shards) {
+            pending += shard.pendingListingEvents();
+        }
+        return pending;
+    }
+
+    private MarketplaceRepository shardOf(CharSequence categoryName) {
+        return shards[Math.floorMod(SymbolTable.hash(categoryName), shards.length)];
+    }
+
+    private MarketplaceRepository shardOf(int id) {
+        if (id < FIRST_ID) return null;
+        int owner = blockOwners.get(id >> BLOCK_SHIFT);
+        return owner == 0 ? null : shards[owner - 1];
+    }
+
+    /**
+     * Per-shard id source: carves ids out of the shard's current block and claims fresh blocks when it runs out.
+     * Writers to the same shard share one counter; the global block counter is touched once per block.
+     * A request that does not fit in the rest of the block abandons it, leaving a gap in the ids.
+     */
+    private final class BlockAllocator implements IntUnaryOperator {
+        private final int shard;
+        private volatile Block current = new Block(0, 0);
+
+        BlockAllocator(int shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public int applyAsInt(int count) {
+            while (true) {
+                Block block = current;
+                int first = block.next.getAndAdd(count);
+                if (first <= block.end - count) return first;
+                claim(block, count);
+            }
+        }
+
+        private synchronized void claim(Block exhausted, int count) {
+            if (current != exhausted) return;
+            int blocks = (count + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+            int firstBlock = nextBlock.getAndAdd(blocks);
+            if (firstBlock + blocks - 1 > Integer.MAX_VALUE >> BLOCK_SHIFT) {
+                throw new IllegalStateException("Listing ids exhausted");
+            }
+            for (int i = 0; i < blocks; i++) {
+                blockOwners.set(firstBlock + i, shard + 1);
+            }
+            // Only the first block is partial, starting at the first listing id
+            int start = Math.max(FIRST_ID, firstBlock << BLOCK_SHIFT);
+            long end = ((long) firstBlock + blocks) << BLOCK_SHIFT;
+            current = new Block(start, (int) Math.min(end, Integer.MAX_VALUE));
+        }
+    }
+
+    private static final class Block {
+        final AtomicInteger next;
+        final int end;
+
+        Block(int start, int end) {
+            this.next = new AtomicInteger(start);
+            this.end = end;
+        }
+    }
+}
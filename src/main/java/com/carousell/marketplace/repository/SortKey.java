@@ -0,0 +1,31 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+
+import java.util.Comparator;
+
+/**
+ * Orderings maintained by the per-category indexes.
+ * The listing id is used as a tie-breaker so every key is unique within an index.
+ */
+public enum SortKey {
+    // Hand-written rather than composed so index inserts avoid a chain of lambda calls per comparison
+    PRICE((a, b) -> {
+        int byPrice = Double.compare(a.getPrice(), b.getPrice());
+        return byPrice != 0 ? byPrice : Integer.compare(a.getId(), b.getId());
+    }),
+    TIME((a, b) -> {
+        int byTime = Long.compare(a.getCreatedAt(), b.getCreatedAt());
+        return byTime != 0 ? byTime : Integer.compare(a.getId(), b.getId());
+    });
+
+    private final Comparator<Listing> comparator;
+
+    SortKey(Comparator<Listing> comparator) {
+        this.comparator = comparator;
+    }
+
+    public Comparator<Listing> comparator() {
+        return comparator;
+    }
+}
@@ -0,0 +1,147 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Concurrent per-category index holding one sorted tree per {@link SortKey}.
+ * Every change publishes a new immutable {@link Snapshot} with one CAS, so a reader holds a point-in-time view
+ * in which the size and both orderings agree, however many writes follow, and nothing is copied to get it.
+ * Inserts and removals are O(log N); the first K listings of either ordering are read in O(log N + K).
+ * A price or creation-time range is read as a sub-range of the matching tree rather than a scan.
+ */
+class SortedCategoryIndex {
+
+    static final Snapshot EMPTY = new Snapshot(new ListingTree(SortKey.PRICE.comparator()), new ListingTree(SortKey.TIME.comparator()), 0);
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(EMPTY);
+
+    void add(Listing listing) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            ListingTree byPrice = snapshot.byPrice.with(listing);
+            if (byPrice == snapshot.byPrice) return;
+            Snapshot next = new Snapshot(byPrice, snapshot.byTime.with(listing), snapshot.version + 1);
+            if (current.compareAndSet(snapshot, next)) return;
+        }
+    }
+
+    void remove(Listing listing) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            ListingTree byPrice = snapshot.byPrice.without(listing);
+            if (byPrice == snapshot.byPrice) return;
+            Snapshot next = new Snapshot(byPrice, snapshot.byTime.without(listing), snapshot.version + 1);
+            if (current.compareAndSet(snapshot, next)) return;
+        }
+    }
+
+    /**
+     * @return The latest published version; it stays unchanged, whatever is written afterwards.
+     */
+    Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Bumped once per applied change, see MarketplaceReader#categoryVersion.
+     */
+    long version() {
+        return current.get().version;
+    }
+
+    private static Listing probe(double price, long createdAt, int id) {
+        return Listing.builder().id(id).price(price).createdAt(createdAt).build();
+    }
+
+    private static boolean bounds(ListingRange range, SortKey key) {
+        return key == SortKey.PRICE ? range.hasPriceBounds() : range.hasTimeBounds();
+    }
+
+    /**
+     * One version of the index. Listings are immutable, so the whole view is.
+     */
+    static final class Snapshot implements CategoryView {
+        private final ListingTree byPrice;
+        private final ListingTree byTime;
+        private final long version;
+
+        private Snapshot(ListingTree byPrice, ListingTree byTime, long version) {
+            this.byPrice = byPrice;
+            this.byTime = byTime;
+            this.version = version;
+        }
+
+        @Override
+        public int size() {
+            return byPrice.size();
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public Stream<Listing> stream(SortKey key, boolean descending) {
+            return (key == SortKey.PRICE ? byPrice : byTime).stream(descending);
+        }
+
+        @Override
+        public CategoryView range(ListingRange range) {
+            return range.isUnbounded() ? this : new RangeView(range);
+        }
+
+        /**
+         * @return The listings of the key's tree that fall within the range's bounds on that key.
+         */
+        private Stream<Listing> bounded(SortKey key, ListingRange range, boolean descending) {
+            // Probes carry extreme ids so every real listing with an equal key falls on the intended side
+            if (key == SortKey.PRICE) {
+                return byPrice.stream(
+                        probe(range.getMinPrice(), 0, Integer.MIN_VALUE), true,
+                        probe(range.getMaxPrice(), 0, Integer.MAX_VALUE), true, descending);
+            }
+            return byTime.stream(
+                    probe(0, range.getCreatedAfter(), Integer.MAX_VALUE), false,
+                    probe(0, range.getCreatedBefore(), Integer.MIN_VALUE), false, descending);
+        }
+
+        /**
+         * Sub-range of the snapshot. When the requested ordering is bounded, the page is read straight from
+         * that tree and only the other dimension is filtered; otherwise the bounded tree is scanned and its
+         * matches sorted.
+         */
+        private final class RangeView implements CategoryView {
+            private final ListingRange range;
+
+            RangeView(ListingRange range) {
+                this.range = range;
+            }
+
+            @Override
+            public int size() {
+                SortKey key = bounds(range, SortKey.PRICE) ? SortKey.PRICE : SortKey.TIME;
+                return (int) bounded(key, range, false).filter(range::contains).count();
+            }
+
+            @Override
+            public long version() {
+                return version;
+            }
+
+            @Override
+            public Stream<Listing> stream(SortKey key, boolean descending) {
+                if (bounds(range, key)) {
+                    return bounded(key, range, descending).filter(range::contains);
+                }
+                SortKey other = key == SortKey.PRICE ? SortKey.TIME : SortKey.PRICE;
+                Comparator<Listing> order = descending ? key.comparator().reversed() : key.comparator();
+                return bounded(other, range, false).filter(range::contains).sorted(order);
+            }
+        }
+    }
+}
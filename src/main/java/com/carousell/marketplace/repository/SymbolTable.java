@@ -0,0 +1,194 @@
+package com.carousell.marketplace.repository;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+
+/**
+ * Case-insensitive symbol table that assigns dense int ids to names such as usernames and categories.
+ * Lookups are lock-free and allocation-free: names are hashed and compared character by character with
+ * case folding instead of being lower-cased into a temporary String. Inserts are rare and serialized.
+ * Each symbol carries a value, e.g. the entity the name identifies; ids are never reused.
+ *
+ * @param <T> The value stored per symbol.
+ */
+public final class SymbolTable<T> {
+
+    private static final int EMPTY = 0;
+
+    private volatile Table<T> table = new Table<>(16);
+
+    /**
+     * @return The id of the name, or -1 if it has not been interned.
+     */
+    public int idOf(CharSequence name) {
+        if (name == null) return -1;
+        Table<T> current = table;
+        int hash = hash(name);
+        for (int slot = hash & current.mask; ; slot = (slot + 1) & current.mask) {
+            int entry = current.slots.getAcquire(slot);
+            if (entry == EMPTY) return -1;
+            int id = entry - 1;
+            if (matches(current.names[id], name)) return id;
+        }
+    }
+
+    /**
+     * Returns the id of the name, creating the symbol with a value from the factory if needed.
+     */
+    public int intern(String name, Function<String, T> factory) {
+        int id = idOf(name);
+        return id >= 0 ? id : insert(name, factory);
+    }
+
+    /**
+     * Adds the name only if no case-insensitive match exists.
+     * @return The new id, or -1 if the name was already present.
+     */
+    public int add(String name, T value) {
+        if (idOf(name) >= 0) return -1;
+        synchronized (this) {
+            if (idOf(name) >= 0) return -1;
+            return insertLocked(name, value);
+        }
+    }
+
+    public T get(int id) {
+        return table.values[id];
+    }
+
+    /**
+     * @return The spelling under which the symbol was first interned.
+     */
+    public String nameOf(int id) {
+        return table.names[id];
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * @return A live view of the symbol values in id order; iterating it does not copy.
+     */
+    public Collection<T> values() {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                Table<T> snapshot = table;
+                int size = snapshot.size;
+                return new Iterator<T>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public T next() {
+                        if (next >= size) throw new NoSuchElementException();
+                        return snapshot.values[next++];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return table.size;
+            }
+        };
+    }
+
+    private synchronized int insert(String name, Function<String, T> factory) {
+        int id = idOf(name);
+        return id >= 0 ? id : insertLocked(name, factory.apply(name));
+    }
+
+    private int insertLocked(String name, T value) {
+        Table<T> current = table;
+        if (current.size == current.names.length) {
+            current = current.grow();
+        }
+
+        int id = current.size;
+        current.names[id] = name;
+        current.values[id] = value;
+        current.size = id + 1;
+
+        int slot = hash(name) & current.mask;
+        while (current.slots.get(slot) != EMPTY) {
+            slot = (slot + 1) & current.mask;
+        }
+        // Release store publishes the name and value written above to lock-free readers
+        current.slots.setRelease(slot, id + 1);
+        table = current;
+        return id;
+    }
+
+    /**
+     * Case-insensitive hash: names that match each other hash equally, e.g. for routing a name to a shard.
+     */
+    public static int hash(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + fold(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String candidate, CharSequence name) {
+        if (candidate.length() != name.length()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char a = candidate.charAt(i);
+            char b = name.charAt(i);
+            if (a != b && fold(a) != fold(b)) return false;
+        }
+        return true;
+    }
+
+    // Same folding as String.equalsIgnoreCase
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static final class Table<T> {
+        // Open-addressing slots holding id + 1, kept at most half full
+        final AtomicIntegerArray slots;
+        final int mask;
+        final String[] names;
+        final T[] values;
+        volatile int size;
+
+        @SuppressWarnings("unchecked")
+        Table(int capacity) {
+            this.slots = new AtomicIntegerArray(capacity * 2);
+            this.mask = capacity * 2 - 1;
+            this.names = new String[capacity];
+            this.values = (T[]) new Object[capacity];
+        }
+
+        private Table(int capacity, Table<T> from) {
+            this.slots = new AtomicIntegerArray(capacity * 2);
+            this.mask = capacity * 2 - 1;
+            this.names = Arrays.copyOf(from.names, capacity);
+            this.values = Arrays.copyOf(from.values, capacity);
+            this.size = from.size;
+            for (int id = 0; id < size; id++) {
+                int slot = hash(names[id]) & mask;
+                while (slots.get(slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots.set(slot, id + 1);
+            }
+        }
+
+        Table<T> grow() {
+            return new Table<>(names.length * 2, this);
+        }
+    }
+}
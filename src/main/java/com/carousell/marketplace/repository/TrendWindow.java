@@ -0,0 +1,38 @@
+package com.carousell.marketplace.repository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sliding windows tracked for TRENDING_CATEGORIES, each a ring of fixed-width time buckets.
+ * A window covers its latest {@code buckets} buckets, so it slides forward one bucket at a time.
+ */
+public enum TrendWindow {
+    HOUR(TimeUnit.MINUTES.toMillis(1), 60),
+    DAY(TimeUnit.HOURS.toMillis(1), 24);
+
+    private final long bucketMillis;
+    private final int buckets;
+
+    TrendWindow(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = buckets;
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+
+    public int buckets() {
+        return buckets;
+    }
+
+    /**
+     * @return The window with that name, matched case-insensitively, or null if there is none.
+     */
+    public static TrendWindow of(String name) {
+        for (TrendWindow window : values()) {
+            if (window.name().equalsIgnoreCase(name)) return window;
+        }
+        return null;
+    }
+}
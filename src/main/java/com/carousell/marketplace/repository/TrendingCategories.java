@@ -0,0 +1,214 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.util.Timestamps;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+
+/**
+ * Per-category listing counts over the sliding {@link TrendWindow}s, by listing creation time.
+ * <p>
+ * For each window a category keeps a ring of buckets and a running total. A slot packs the bucket number
+ * with its count, so recording a listing is one CAS on the category's own slot plus an add to its total,
+ * with no lock shared between writers. The ring has one slot more than the window, so the bucket that is
+ * about to start never shares a slot with the oldest one still counted.
+ * <p>
+ * Writers never read the clock: they compare against the current bucket, which a background ticker advances.
+ * When a window moves on, the ticker subtracts the buckets that left it from the totals, so a top-N query
+ * reads one total per category and never touches the listings. Listings dated before the window, or past
+ * the next bucket, are not counted.
+ */
+class TrendingCategories {
+
+    static final long TICK_MILLIS = 1000;
+
+    private static final TrendWindow[] WINDOWS = TrendWindow.values();
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final IntFunction<String> displayName;
+    private final Clock clock;
+    private final ScheduledExecutorService ticker;
+
+    // Bucket number of the clock's current time, by window ordinal; only moved forward by tick()
+    private final AtomicLongArray currentBuckets = new AtomicLongArray(WINDOWS.length);
+
+    // Indexed by category id; only grown when a category is first recorded
+    private volatile Counter[] counters = new Counter[16];
+
+    /**
+     * @param displayName Maps a category id to the name shown by TRENDING_CATEGORIES.
+     * @param clock Source of the current time, read as a wall clock in its zone like {@link Timestamps#now()}.
+     */
+    TrendingCategories(IntFunction<String> displayName, Clock clock) {
+        this.displayName = displayName;
+        this.clock = clock;
+        long now = Timestamps.now(clock);
+        for (TrendWindow window : WINDOWS) {
+            currentBuckets.set(window.ordinal(), Math.floorDiv(now, window.bucketMillis()));
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "marketplace-trending");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the ticker; the windows stay where they were.
+     */
+    void close() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Counts a listing in, or with a negative delta out of, every window its creation time falls into.
+     * Removals never take a bucket below zero, so deleting a listing that was never counted is harmless.
+     */
+    void record(int categoryId, long createdAt, int delta) {
+        Counter counter = null;
+        for (TrendWindow window : WINDOWS) {
+            int w = window.ordinal();
+            long bucket = Math.floorDiv(createdAt, window.bucketMillis());
+            long current = currentBuckets.get(w);
+            if (bucket > current + 1 || bucket <= current - window.buckets()) continue;
+            if (counter == null) {
+                counter = counter(categoryId);
+            }
+            counter.add(w, bucket, delta);
+        }
+    }
+
+    /**
+     * Moves each window to the clock's current bucket and expires the buckets it left behind. Runs on the
+     * ticker; a clock that moves backwards leaves the windows in place until it catches up again.
+     */
+    synchronized void tick() {
+        long now = Timestamps.now(clock);
+        boolean moved = false;
+        for (TrendWindow window : WINDOWS) {
+            long bucket = Math.floorDiv(now, window.bucketMillis());
+            if (bucket > currentBuckets.get(window.ordinal())) {
+                currentBuckets.set(window.ordinal(), bucket);
+                moved = true;
+            }
+        }
+        if (!moved) return;
+        // Every slot rather than the one that just left, so a write that raced the previous move is expired too
+        for (Counter counter : counters) {
+            if (counter == null) continue;
+            for (TrendWindow window : WINDOWS) {
+                counter.expire(window.ordinal(), currentBuckets.get(window.ordinal()) - window.buckets());
+            }
+        }
+    }
+
+    /**
+     * @return Up to {@code n} categories with listings in the window, by descending count, lower ids first on ties.
+     */
+    List<CategoryCount> top(TrendWindow window, int n) {
+        if (n <= 0) return Collections.emptyList();
+        int w = window.ordinal();
+        // Smallest retained entry at the head: count in the high half, inverted id in the low half
+        PriorityQueue<Long> leaders = new PriorityQueue<>(Math.min(n, 16) + 1);
+        Counter[] current = counters;
+        for (int categoryId = 0; categoryId < current.length; categoryId++) {
+            Counter counter = current[categoryId];
+            int count = counter == null ? 0 : counter.totals.get(w);
+            if (count <= 0) continue;
+            leaders.add((long) count << 32 | (Integer.MAX_VALUE - categoryId));
+            if (leaders.size() > n) {
+                leaders.poll();
+            }
+        }
+        List<CategoryCount> result = new ArrayList<>(leaders.size());
+        while (!leaders.isEmpty()) {
+            long entry = leaders.poll();
+            result.add(new CategoryCount(displayName.apply(Integer.MAX_VALUE - (int) entry), (int) (entry >>> 32)));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private Counter counter(int categoryId) {
+        Counter[] current = counters;
+        Counter counter = categoryId < current.length ? current[categoryId] : null;
+        return counter != null ? counter : createCounter(categoryId);
+    }
+
+    private synchronized Counter createCounter(int categoryId) {
+        Counter[] current = counters;
+        if (categoryId >= current.length) {
+            current = Arrays.copyOf(current, Math.max(categoryId + 1, current.length * 2));
+        }
+        if (current[categoryId] == null) {
+            current[categoryId] = new Counter();
+        }
+        counters = current;
+        return current[categoryId];
+    }
+
+    private static long pack(long bucket, int count) {
+        return bucket << 32 | (count & COUNT_MASK);
+    }
+
+    /**
+     * One category's bucket rings and running totals, by window ordinal. A total always moves by the
+     * difference its slot's CAS made, so each counted listing is added and subtracted exactly once.
+     */
+    private static final class Counter {
+        final AtomicLongArray[] rings = new AtomicLongArray[WINDOWS.length];
+        final AtomicIntegerArray totals = new AtomicIntegerArray(WINDOWS.length);
+
+        Counter() {
+            for (TrendWindow window : WINDOWS) {
+                rings[window.ordinal()] = new AtomicLongArray(window.buckets() + 1);
+            }
+        }
+
+        void add(int w, long bucket, int delta) {
+            AtomicLongArray ring = rings[w];
+            int index = (int) Math.floorMod(bucket, (long) ring.length());
+            while (true) {
+                long slot = ring.get(index);
+                long stamp = slot >> 32;
+                int count = (int) slot;
+                int updated;
+                if (stamp == bucket) {
+                    updated = Math.max(0, count + delta);
+                } else if (stamp < bucket && delta > 0) {
+                    // The slot's previous bucket left the window; whatever the ticker has not expired yet goes now
+                    updated = delta;
+                } else {
+                    return;
+                }
+                if (ring.compareAndSet(index, slot, pack(bucket, updated))) {
+                    totals.addAndGet(w, updated - count);
+                    return;
+                }
+            }
+        }
+
+        void expire(int w, long lastExpiredBucket) {
+            AtomicLongArray ring = rings[w];
+            for (int i = 0; i < ring.length(); i++) {
+                long slot = ring.get(i);
+                int count = (int) slot;
+                if (count != 0 && (slot >> 32) <= lastExpiredBucket && ring.compareAndSet(i, slot, pack(slot >> 32, 0))) {
+                    totals.addAndGet(w, -count);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.carousell.marketplace.server;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One client socket. Its event loop reads request lines into a queue; a worker drains the queue in order,
+ * never more than one worker at a time, and hands the framed responses back to the loop for writing.
+ * Reading pauses while too many requests are pending, so a pipelining client cannot exhaust memory.
+ * Neither can a single endless line: one over the server's limit is answered with an error and the connection closed.
+ * Responses are streamed in chunks, so a large GET_CATEGORY page never sits in memory as a whole. While a client
+ * is too far behind reading, its connection is parked between responses: the worker returns to the pool and
+ * the loop reschedules the connection once the socket has drained. Within one response the worker can only
+ * wait, for at most the server's write timeout, after which the connection is closed.
+ */
+class Connection {
+
+    // Responses handled in one worker turn before yielding to other connections
+    private static final int MAX_REQUESTS_PER_TURN = 64;
+    // Characters buffered by a worker before they are handed to the loop
+    private static final int CHUNK_SIZE = 32 * 1024;
+    // Bytes queued for the socket beyond which a worker waits for the client to catch up
+    private static final int MAX_QUEUED_BYTES = 1024 * 1024;
+    // Bytes queued beyond which the next request waits, parked; half the cap so a response smaller than the
+    // other half never makes its worker wait
+    private static final int PARK_QUEUED_BYTES = MAX_QUEUED_BYTES / 2;
+    // Queued in place of a line over the server's limit; compared by identity, so no client line can equal it
+    private static final String OVERSIZED = new String("");
+
+    private final MarketplaceServer server;
+    private final EventLoop loop;
+    private final SocketChannel channel;
+    SelectionKey key;
+
+    // Loop thread only
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private boolean inputClosed;
+    // Set once a line was too long: the rest of the input is discarded and the connection closes when answered
+    private boolean rejected;
+
+    private volatile boolean closed;
+
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean interestUpdateQueued = new AtomicBoolean();
+
+    // Used by the one worker draining this connection; handed between workers through the scheduled flag
+    private final ResponseSink sink = new ResponseSink();
+
+    // Guarded by itself: filled by workers, written by the loop
+    private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+    private long queuedBytes;
+    // Set while the connection waits for the client to read, with requests left and the scheduled flag held
+    private boolean parked;
+
+    Connection(MarketplaceServer server, EventLoop loop, SocketChannel channel) {
+        this.server = server;
+        this.loop = loop;
+        this.channel = channel;
+    }
+
+    void read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        if (read < 0) {
+            inputClosed = true;
+            if (lineLength > 0 && !rejected) {
+                enqueue(new String(line, 0, lineLength, StandardCharsets.UTF_8));
+                lineLength = 0;
+            }
+            updateInterest();
+            return;
+        }
+
+        buffer.flip();
+        if (rejected) return;
+        boolean enqueued = false;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                enqueue(new String(line, 0, length, StandardCharsets.UTF_8));
+                lineLength = 0;
+                enqueued = true;
+            } else {
+                if (lineLength == server.maxLineBytes()) {
+                    // Answered after the requests before it; nothing after it is read
+                    rejected = true;
+                    line = null;
+                    lineLength = 0;
+                    enqueue(OVERSIZED);
+                    updateInterest();
+                    return;
+                }
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, Math.min(line.length * 2, server.maxLineBytes()));
+                }
+                line[lineLength++] = b;
+            }
+        }
+        if (enqueued && pending.get() >= server.maxPipelined()) {
+            updateInterest();
+        }
+    }
+
+    void write() throws IOException {
+        boolean resume = false;
+        try {
+            synchronized (output) {
+                ByteBuffer next;
+                while ((next = output.peek()) != null) {
+                    int written = channel.write(next);
+                    queuedBytes -= written;
+                    if (written > 0) {
+                        output.notifyAll();
+                    }
+                    if (parked && queuedBytes <= PARK_QUEUED_BYTES) {
+                        parked = false;
+                        resume = true;
+                    }
+                    if (next.hasRemaining()) return;
+                    output.poll();
+                }
+            }
+            updateInterest();
+        } finally {
+            if (resume) {
+                server.schedule(this);
+            }
+        }
+    }
+
+    /**
+     * Worker task: answers queued requests in arrival order.
+     */
+    void drain() {
+        int handled = 0;
+        boolean parkedNow = false;
+        String request;
+        try {
+            while (handled < MAX_REQUESTS_PER_TURN && !requests.isEmpty()) {
+                if (sink.park()) {
+                    parkedNow = true;
+                    break;
+                }
+                request = requests.poll();
+                server.queued(-1);
+                long before = sink.written;
+                boolean answered = true;
+                if (request == OVERSIZED) {
+                    sink.append(MarketplaceServer.REQUEST_TOO_LONG);
+                } else {
+                    answered = server.handle(request, sink);
+                }
+                handled++;
+                if (!answered) continue;
+                if (sink.written != before) {
+                    sink.append('\n');
+                }
+                sink.append('\n');
+            }
+            sink.flush();
+        } catch (IOException e) {
+            // The client went away mid-response; nobody is left to answer
+            sink.discard();
+            while (requests.poll() != null) {
+                server.queued(-1);
+            }
+        }
+        // Only after the responses are queued, so the loop never sees an idle connection with answers in flight
+        pending.addAndGet(-handled);
+        requestInterestUpdate();
+        // The loop hands the connection to a worker again once the client catches up
+        if (parkedNow) return;
+
+        scheduled.set(false);
+        // A request may have arrived after the last poll but before the flag was cleared
+        if (!requests.isEmpty() && scheduled.compareAndSet(false, true)) {
+            server.schedule(this);
+        }
+    }
+
+    void close() {
+        if (closed) return;
+        boolean wasParked;
+        synchronized (output) {
+            closed = true;
+            wasParked = parked;
+            parked = false;
+            output.clear();
+            output.notifyAll();
+        }
+        // No worker will drain a parked connection again, so its requests leave the server's queue here
+        if (wasParked) {
+            while (requests.poll() != null) {
+                server.queued(-1);
+            }
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+        server.connectionClosed();
+    }
+
+    private void enqueue(String request) {
+        requests.add(request);
+        pending.incrementAndGet();
+        server.queued(1);
+        if (scheduled.compareAndSet(false, true)) {
+            server.schedule(this);
+        }
+    }
+
+    private void requestInterestUpdate() {
+        if (interestUpdateQueued.compareAndSet(false, true)) {
+            loop.execute(() -> {
+                interestUpdateQueued.set(false);
+                updateInterest();
+            });
+        }
+    }
+
+    /**
+     * Loop thread: reads while the pipeline has room, writes while responses are queued, and closes once the
+     * client has hung up, or sent a line that was too long, and every response has been written.
+     */
+    private void updateInterest() {
+        if (closed || !key.isValid()) return;
+        boolean hasOutput;
+        synchronized (output) {
+            hasOutput = !output.isEmpty();
+        }
+        if ((inputClosed || rejected) && !hasOutput && pending.get() == 0) {
+            close();
+            return;
+        }
+        int ops = 0;
+        // A rejected connection keeps reading only to discard what the client is still sending
+        if (!inputClosed && (rejected || pending.get() < server.maxPipelined())) ops |= SelectionKey.OP_READ;
+        if (hasOutput) ops |= SelectionKey.OP_WRITE;
+        key.interestOps(ops);
+    }
+
+    /**
+     * Worker-side response buffer: collects small responses into one write and cuts large ones into chunks.
+     */
+    private final class ResponseSink implements Appendable {
+        private final StringBuilder buffer = new StringBuilder(1024);
+        // Characters appended so far, to tell empty responses apart
+        long written;
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            buffer.append(csq, start, end);
+            written += end - start;
+            if (buffer.length() >= CHUNK_SIZE) {
+                flush();
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            buffer.append(c);
+            written++;
+            if (buffer.length() >= CHUNK_SIZE) {
+                flush();
+            }
+            return this;
+        }
+
+        /**
+         * Hands the buffered characters to the loop, first waiting while the client is too far behind.
+         * @throws IOException if the connection was closed, or the client read nothing for the write timeout.
+         */
+        void flush() throws IOException {
+            if (buffer.length() == 0) return;
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toString().getBytes(StandardCharsets.UTF_8));
+            buffer.setLength(0);
+            synchronized (output) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(server.writeTimeoutMs());
+                while (!closed && queuedBytes > MAX_QUEUED_BYTES) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        loop.execute(Connection.this::close);
+                        throw new IOException("Client stopped reading");
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(output, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the client");
+                    }
+                }
+                if (closed) throw new IOException("Connection closed");
+                output.add(bytes);
+                queuedBytes += bytes.remaining();
+            }
+            requestInterestUpdate();
+        }
+
+        /**
+         * Between responses: flushes, then parks the connection if the client is too far behind.
+         * @return true if parked; the worker must leave the connection to the loop.
+         * @throws IOException if the connection was closed.
+         */
+        boolean park() throws IOException {
+            flush();
+            synchronized (output) {
+                if (closed) throw new IOException("Connection closed");
+                if (queuedBytes <= PARK_QUEUED_BYTES) return false;
+                parked = true;
+            }
+            requestInterestUpdate();
+            return true;
+        }
+
+        void discard() {
+            buffer.setLength(0);
+        }
+    }
+}
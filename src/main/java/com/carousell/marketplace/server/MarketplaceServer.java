@@ -0,0 +1,223 @@
+package com.carousell.marketplace.server;
+
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.util.CommandLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP front end speaking the shell's line protocol: one command per line, answered in order.
+ * Each response is written as its lines followed by an empty line, so multi-line responses such as
+ * GET_CATEGORY can be delimited; an empty response is a single empty line. Blank request lines are ignored.
+ * <p>
+ * Clients may pipeline any number of requests. Sockets are multiplexed by a few NIO event loops; commands
+ * run on a bounded worker pool, at most one task per connection at a time, which keeps responses ordered
+ * while different connections execute in parallel. Commands that reach the server's disk, such as EXPORT and
+ * IMPORT, are only run locally and rejected here.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "marketplace.server", name = "enabled", havingValue = "true")
+public class MarketplaceServer {
+
+    static final String LOCAL_ONLY = "Error - command not available over the network";
+    static final String REQUEST_TOO_LONG = "Error - request too long";
+    static final long DEFAULT_WRITE_TIMEOUT_MS = 30_000;
+    static final int DEFAULT_MAX_LINE_BYTES = 64 * 1024;
+
+    private final CommandDispatcher dispatcher;
+    private final String host;
+    private final int port;
+    private final int ioThreads;
+    private final int workerThreads;
+    private final int maxConnections;
+    private final int maxPipelined;
+    private final long writeTimeoutMs;
+    private final int maxLineBytes;
+
+    private final ThreadLocal<CommandLine> lines = ThreadLocal.withInitial(CommandLine::new);
+    private final AtomicInteger connections = new AtomicInteger();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private ServerSocketChannel serverChannel;
+    private EventLoop[] loops;
+    private ExecutorService workers;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    public MarketplaceServer(CommandDispatcher dispatcher, String host, int port, int ioThreads, int workerThreads,
+                             int maxConnections, int maxPipelined) {
+        this(dispatcher, host, port, ioThreads, workerThreads, maxConnections, maxPipelined, DEFAULT_WRITE_TIMEOUT_MS,
+                DEFAULT_MAX_LINE_BYTES);
+    }
+
+    /**
+     * @param writeTimeoutMs How long a worker streaming a response waits for a client that stopped reading
+     *                       before the connection is closed.
+     * @param maxLineBytes Longest request line accepted; a longer one is answered with an error and the
+     *                     connection closed.
+     */
+    @Autowired
+    public MarketplaceServer(
+            CommandDispatcher dispatcher,
+            @Value("${marketplace.server.host:0.0.0.0}") String host,
+            @Value("${marketplace.server.port:7070}") int port,
+            @Value("${marketplace.server.io-threads:1}") int ioThreads,
+            @Value("${marketplace.server.worker-threads:0}") int workerThreads,
+            @Value("${marketplace.server.max-connections:10000}") int maxConnections,
+            @Value("${marketplace.server.max-pipelined-requests:1024}") int maxPipelined,
+            @Value("${marketplace.server.write-timeout-ms:30000}") long writeTimeoutMs,
+            @Value("${marketplace.server.max-line-bytes:65536}") int maxLineBytes) {
+        this.dispatcher = dispatcher;
+        this.host = host;
+        this.port = port;
+        this.ioThreads = Math.max(1, ioThreads);
+        this.workerThreads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+        this.maxConnections = maxConnections;
+        this.maxPipelined = maxPipelined;
+        this.writeTimeoutMs = writeTimeoutMs;
+        this.maxLineBytes = Math.max(1, maxLineBytes);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        // One queued task per connection at most, so the queue can never overflow
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxConnections), threadFactory("marketplace-worker", true));
+
+        loops = new EventLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new EventLoop(this, "marketplace-io-" + i);
+            loops[i].start();
+        }
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(host, port), 1024);
+        running = true;
+        acceptor = threadFactory("marketplace-acceptor", true).newThread(this::acceptLoop);
+        acceptor.start();
+        log.info("Marketplace server listening on {} ({} io threads, {} workers)",
+                serverChannel.getLocalAddress(), ioThreads, workerThreads);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        if (loops != null) {
+            for (EventLoop loop : loops) {
+                loop.shutdown();
+            }
+        }
+        if (workers != null) {
+            workers.shutdown();
+        }
+        stopped.countDown();
+    }
+
+    /**
+     * Blocks until the server is stopped, i.e. until the application context closes.
+     */
+    public void awaitTermination() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * @return The bound port; useful when configured with port 0.
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    int maxPipelined() {
+        return maxPipelined;
+    }
+
+    long writeTimeoutMs() {
+        return writeTimeoutMs;
+    }
+
+    int maxLineBytes() {
+        return maxLineBytes;
+    }
+
+    void connectionClosed() {
+        connections.decrementAndGet();
+    }
+
+    /**
+     * Tracks requests read but not yet handled, across all connections, for admission control.
+     */
+    void queued(int delta) {
+        dispatcher.queued(delta);
+    }
+
+    void schedule(Connection connection) {
+        workers.execute(connection::drain);
+    }
+
+    /**
+     * Executes one request line on a worker thread, streaming the response to the sink.
+     * @return false for a blank line, which gets no response.
+     */
+    boolean handle(String request, Appendable out) throws IOException {
+        CommandLine line = lines.get().parse(request);
+        if (line.size() == 0) return false;
+        String name = line.string(0);
+        if (dispatcher.isLocalOnly(name)) {
+            out.append(LOCAL_ONLY);
+            return true;
+        }
+        dispatcher.execute(name, line, out);
+        return true;
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                if (connections.incrementAndGet() > maxConnections) {
+                    connections.decrementAndGet();
+                    channel.close();
+                    continue;
+                }
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failed to accept a connection", e);
+                }
+            }
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory threadFactory(String prefix, boolean daemon) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+}
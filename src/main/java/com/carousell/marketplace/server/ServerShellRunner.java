@@ -0,0 +1,40 @@
+package com.carousell.marketplace.server;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.shell.ShellRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a headless server running: with {@code marketplace.server.enabled=true} and the interactive shell
+ * disabled, the application serves TCP clients until it is shut down instead of treating its arguments
+ * as a shell command. With the interactive shell enabled, the server runs alongside the prompt.
+ */
+@Component
+@Order(ServerShellRunner.PRECEDENCE)
+@ConditionalOnProperty(prefix = "marketplace.server", name = "enabled", havingValue = "true")
+public class ServerShellRunner implements ShellRunner {
+
+    public static final int PRECEDENCE = -150;
+
+    private final MarketplaceServer server;
+    private final boolean interactive;
+
+    public ServerShellRunner(MarketplaceServer server,
+                             @Value("${spring.shell.interactive.enabled:true}") boolean interactive) {
+        this.server = server;
+        this.interactive = interactive;
+    }
+
+    @Override
+    public boolean canRun(ApplicationArguments args) {
+        return !interactive;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        server.awaitTermination();
+    }
+}
@@ -0,0 +1,202 @@
+package com.carousell.marketplace.util;
+
+import java.util.Arrays;
+
+/**
+ * Tokenized command line that records token offsets instead of copying substrings.
+ * Tokens are separated by runs of spaces; spaces inside single quotes belong to the token, and the quotes
+ * are kept in the raw token so {@link #get} matches the strings returned by {@link Parser#parse}.
+ * <p>
+ * An instance is reusable: {@link #parse} overwrites the previous tokens without allocating once its
+ * arrays have grown to the longest line seen. Views returned by {@link #get} and {@link #unquoted} are
+ * flyweights that stay valid only until the next {@link #parse}. Instances are not thread-safe.
+ */
+public final class CommandLine {
+
+    private CharSequence[] sources = new CharSequence[8];
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private Token[] views = new Token[8];
+    private int size;
+
+    /**
+     * Wraps already split arguments, e.g. from the shell controller, without re-tokenizing them.
+     */
+    public static CommandLine of(String... args) {
+        CommandLine line = new CommandLine();
+        for (String arg : args) {
+            line.add(arg, 0, arg.length());
+        }
+        return line;
+    }
+
+    /**
+     * Splits the line in a single pass, replacing any previously parsed tokens.
+     * A blank line yields no tokens.
+     */
+    public CommandLine parse(CharSequence line) {
+        size = 0;
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) <= ' ') end--;
+        int i = 0;
+        while (i < end && line.charAt(i) <= ' ') i++;
+
+        int tokenStart = i;
+        boolean quoted = false;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == ' ' && !quoted) {
+                if (i > tokenStart) {
+                    add(line, tokenStart, i);
+                }
+                tokenStart = i + 1;
+            }
+        }
+        if (end > tokenStart) {
+            add(line, tokenStart, end);
+        }
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return A view of the raw token, quotes included.
+     */
+    public CharSequence get(int index) {
+        Token view = view(index);
+        return view.reset(starts[index], ends[index]);
+    }
+
+    /**
+     * @return A view of the token without one leading and one trailing single quote, like {@link Parser#stripQuotes}.
+     */
+    public CharSequence unquoted(int index) {
+        Token view = view(index);
+        int start = unquotedStart(index);
+        return view.reset(start, unquotedEnd(index, start));
+    }
+
+    public String string(int index) {
+        checkIndex(index);
+        return sources[index].subSequence(starts[index], ends[index]).toString();
+    }
+
+    public String unquotedString(int index) {
+        checkIndex(index);
+        int start = unquotedStart(index);
+        return sources[index].subSequence(start, unquotedEnd(index, start)).toString();
+    }
+
+    /**
+     * Case-sensitive comparison of the raw token, used to match command names without copying them.
+     */
+    public boolean is(int index, String value) {
+        checkIndex(index);
+        int start = starts[index];
+        int length = ends[index] - start;
+        if (length != value.length()) return false;
+        CharSequence source = sources[index];
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses the raw token as a decimal int without materializing it.
+     * @throws NumberFormatException if the token is not a valid int.
+     */
+    public int intValue(int index) {
+        checkIndex(index);
+        return Integer.parseInt(sources[index], starts[index], ends[index], 10);
+    }
+
+    /**
+     * @return The tokens as strings, quotes included.
+     */
+    public String[] toArray() {
+        String[] tokens = new String[size];
+        for (int i = 0; i < size; i++) {
+            tokens[i] = string(i);
+        }
+        return tokens;
+    }
+
+    private void add(CharSequence source, int start, int end) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            views = Arrays.copyOf(views, capacity);
+        }
+        sources[size] = source;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    private int unquotedStart(int index) {
+        int start = starts[index];
+        return start < ends[index] && sources[index].charAt(start) == '\'' ? start + 1 : start;
+    }
+
+    private int unquotedEnd(int index, int unquotedStart) {
+        int end = ends[index];
+        return end > unquotedStart && sources[index].charAt(end - 1) == '\'' ? end - 1 : end;
+    }
+
+    private Token view(int index) {
+        checkIndex(index);
+        Token view = views[index];
+        if (view == null) {
+            view = views[index] = new Token();
+        }
+        view.source = sources[index];
+        return view;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Token " + index + " of " + size);
+    }
+
+    /**
+     * Reusable view of one token's characters.
+     */
+    private static final class Token implements CharSequence {
+        private CharSequence source;
+        private int start;
+        private int end;
+
+        Token reset(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return source.subSequence(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(start, end).toString();
+        }
+    }
+}
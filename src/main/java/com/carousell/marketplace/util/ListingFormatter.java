@@ -0,0 +1,88 @@
+package com.carousell.marketplace.util;
+
+import com.carousell.marketplace.model.Listing;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the {@code title|description|price|created_at|category|username} row of a listing.
+ * Produces the same text as {@code String.format("%s|%s|%.0f|%s|%s|%s", ...)} without parsing a format
+ * string or boxing the price; whole prices below 10^15 are written digit by digit, other finite prices are
+ * rounded through {@link BigDecimal}, and NaN and the infinities are written by name.
+ */
+@UtilityClass
+public class ListingFormatter {
+
+    // Whole doubles below this magnitude convert to long exactly
+    private static final double EXACT_LONG_LIMIT = 1e15;
+
+    public static String format(Listing listing) {
+        StringBuilder row = new StringBuilder(64 + listing.getTitle().length() + listing.getDescription().length());
+        try {
+            appendRow(row, listing);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return row.toString();
+    }
+
+    public static void appendRow(Appendable out, Listing listing) throws IOException {
+        out.append(listing.getTitle()).append('|')
+                .append(listing.getDescription()).append('|');
+        appendPrice(out, listing.getPrice());
+        out.append('|');
+        Timestamps.appendTo(out, listing.getCreatedAt());
+        out.append('|').append(listing.getCategory())
+                .append('|').append(listing.getOwner());
+    }
+
+    /**
+     * Writes one row per listing, separated by line breaks, as the stream produces them.
+     */
+    public static void appendRows(Appendable out, Stream<Listing> listings) throws IOException {
+        Iterator<Listing> rows = listings.iterator();
+        boolean first = true;
+        while (rows.hasNext()) {
+            if (!first) {
+                out.append('\n');
+            }
+            appendRow(out, rows.next());
+            first = false;
+        }
+    }
+
+    /**
+     * Appends the price rounded half-up to a whole number, like {@code %.0f}, which writes NaN and the
+     * infinities by name.
+     */
+    static void appendPrice(Appendable out, double price) throws IOException {
+        if (!Double.isFinite(price)) {
+            out.append(Double.toString(price));
+        } else if (price == Math.rint(price) && Math.abs(price) < EXACT_LONG_LIMIT) {
+            appendLong(out, (long) price);
+        } else {
+            // Formatter rounds the shortest decimal representation of the double, as BigDecimal.valueOf does
+            out.append(BigDecimal.valueOf(price).setScale(0, RoundingMode.HALF_UP).toPlainString());
+        }
+    }
+
+    private static void appendLong(Appendable out, long value) throws IOException {
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + (value / divisor) % 10));
+        }
+    }
+}
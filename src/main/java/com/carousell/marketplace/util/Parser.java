@@ -2,18 +2,47 @@ package com.carousell.marketplace.util;
 
 import lombok.experimental.UtilityClass;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @UtilityClass
 public class Parser {
-    // Regex to split by space while preserving content within single quotes
-    private static final String SPLIT_REGEX = " +(?=(?:[^']*'[^']*')*[^']*$)";
 
+    /**
+     * Splits a command line on runs of spaces, keeping spaces inside single quotes.
+     * Quotes are kept in the tokens and removed by {@link #stripQuotes}.
+     * Hot paths should reuse a {@link CommandLine} instead, which does not copy the tokens.
+     */
     public static String[] parse(String input) {
         if (input == null) return new String[0];
-        return input.trim().split(SPLIT_REGEX);
+        CommandLine line = new CommandLine().parse(input);
+        return line.size() == 0 ? new String[]{""} : line.toArray();
     }
 
     public static String stripQuotes(String input) {
         if (input == null) return "";
-        return input.replaceAll("^'|'$", "");
+        int start = input.startsWith("'") ? 1 : 0;
+        int end = input.length() > start && input.endsWith("'") ? input.length() - 1 : input.length();
+        return input.substring(start, end);
+    }
+
+    /**
+     * Parses trailing optional arguments of the form {@code name=value}.
+     * @param line The tokenized input from the CLI.
+     * @param from The index of the first optional argument.
+     * @return Option names (lower-cased) mapped to their unquoted values.
+     * @throws IllegalArgumentException if an argument is not a {@code name=value} pair.
+     */
+    public static Map<String, String> parseOptions(CommandLine line, int from) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = from; i < line.size(); i++) {
+            String arg = line.string(i);
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Malformed option: " + arg);
+            }
+            options.put(arg.substring(0, separator).toLowerCase(), stripQuotes(arg.substring(separator + 1)));
+        }
+        return options;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.carousell.marketplace.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures time since the JVM started, for reporting time-to-first-command.
+ */
+@UtilityClass
+public class StartupClock {
+
+    /**
+     * @return Milliseconds since the JVM started, as recorded by the JVM itself.
+     */
+    public static long millisSinceStart() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
@@ -0,0 +1,62 @@
+package com.carousell.marketplace.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits listing text into search terms: maximal runs of letters and digits, lower-cased.
+ * Used both to index titles and descriptions and to parse SEARCH queries, so the two always agree.
+ */
+@UtilityClass
+public class TextTokenizer {
+
+    public static boolean isTermChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * @return The distinct lower-cased terms of the text, in order of first appearance.
+     */
+    public static List<String> terms(CharSequence text) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            if (i < length && isTermChar(text.charAt(i))) {
+                term.append(Character.toLowerCase(text.charAt(i)));
+            } else if (term.length() > 0) {
+                String value = term.toString();
+                if (!terms.contains(value)) {
+                    terms.add(value);
+                }
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Checks whether the text contains the lower-cased term as a whole term, without tokenizing into Strings.
+     */
+    public static boolean containsTerm(CharSequence text, String term) {
+        int length = text.length();
+        int termLength = term.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !isTermChar(text.charAt(i))) i++;
+            int start = i;
+            while (i < length && isTermChar(text.charAt(i))) i++;
+            if (i - start == termLength && regionMatches(text, start, term)) return true;
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, String term) {
+        for (int j = 0; j < term.length(); j++) {
+            if (Character.toLowerCase(text.charAt(start + j)) != term.charAt(j)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package com.carousell.marketplace.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Conversions between the "yyyy-MM-dd HH:mm:ss" listing timestamps and comparable epoch-millis values.
+ * The wall-clock time is encoded as if it were UTC, so a timestamp always round-trips to the same text
+ * regardless of the JVM's time zone.
+ */
+@UtilityClass
+public class Timestamps {
+
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * @return The current local wall-clock time, truncated to seconds like the text format.
+     */
+    public static long now() {
+        return now(Clock.systemDefaultZone());
+    }
+
+    /**
+     * @return The clock's wall-clock time in its zone, truncated to seconds like the text format.
+     */
+    public static long now(Clock clock) {
+        return toEpochMillis(LocalDateTime.now(clock).truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * @throws java.time.format.DateTimeParseException if the text does not match {@link #FORMATTER}.
+     */
+    public static long toEpochMillis(String timestamp) {
+        return toEpochMillis(LocalDateTime.parse(timestamp, FORMATTER));
+    }
+
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static String format(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC).format(FORMATTER);
+    }
+
+    /**
+     * Appends the same text as {@link #format} digit by digit, without building date objects.
+     */
+    public static void appendTo(Appendable out, long epochMillis) throws IOException {
+        long days = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        int secondOfDay = (int) (Math.floorMod(epochMillis, MILLIS_PER_DAY) / 1000);
+
+        // Civil date from days since 1970-01-01 (proleptic Gregorian), by 400-year eras
+        long shifted = days + 719_468;
+        long era = Math.floorDiv(shifted, 146_097);
+        long dayOfEra = shifted - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < 1000 || year > 9999) {
+            // Outside four digits the formatter adds signs and padding; not worth duplicating
+            out.append(format(epochMillis));
+            return;
+        }
+        appendDigits(out, (int) year, 4);
+        out.append('-');
+        appendDigits(out, month, 2);
+        out.append('-');
+        appendDigits(out, day, 2);
+        out.append(' ');
+        appendDigits(out, secondOfDay / 3600, 2);
+        out.append(':');
+        appendDigits(out, secondOfDay / 60 % 60, 2);
+        out.append(':');
+        appendDigits(out, secondOfDay % 60, 2);
+    }
+
+    private static void appendDigits(Appendable out, int value, int width) throws IOException {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.carousell.marketplace;
 
 import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.metrics.CommandMetrics;
+import com.carousell.marketplace.util.CommandLine;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +24,12 @@ class MarketplaceIntegrationTests {
     @Autowired
     private Map<String, Command> commands;
 
+    @Autowired
+    private CommandDispatcher dispatcher;
+
+    @Autowired
+    private CommandMetrics commandMetrics;
+
     @Test
     @DisplayName("Should register a new user successfully")
     void testRegistration() {
@@ -47,4 +56,24 @@ class MarketplaceIntegrationTests {
         // Sports was first, it should stay as the top category
         assertThat(topCat.execute(new String[]{"GET_TOP_CATEGORY", "user1"})).isEqualTo("Sports");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should record latency and errors per command and report them through STATS")
+    void testCommandMetrics() {
+        dispatcher.execute("REGISTER", CommandLine.of("REGISTER", "metricsUser"));
+        dispatcher.execute("GET_LISTING", CommandLine.of("GET_LISTING", "metricsUser", "1"));
+        dispatcher.execute("GET_LISTING", CommandLine.of("GET_LISTING", "metricsUser", "abc"));
+
+        assertThat(commandMetrics.snapshot())
+                .filteredOn(stats -> stats.getCommand().equals("GET_LISTING"))
+                .singleElement()
+                .satisfies(stats -> {
+                    assertThat(stats.getCount()).isGreaterThanOrEqualTo(2);
+                    assertThat(stats.getErrorsByResponse()).containsKeys("Error - not found", "Error - invalid listing id");
+                });
+
+        String stats = dispatcher.execute("STATS", CommandLine.of("STATS"));
+        assertThat(stats).startsWith("command|count|errors|p50_us|p99_us|p999_us|max_us\n");
+        assertThat(stats).contains("\nGET_LISTING|", "\nlistings|", "\nerror|GET_LISTING|Error - not found|");
+    }
+}
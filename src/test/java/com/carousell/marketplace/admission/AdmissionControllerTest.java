@@ -0,0 +1,82 @@
+package com.carousell.marketplace.admission;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.command.GetCategoryCommand;
+import com.carousell.marketplace.command.TestCommands;
+import com.carousell.marketplace.metrics.CommandMetrics;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.CommandLine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Per-user rate limiting and load shedding in the dispatcher.
+ */
+class AdmissionControllerTest {
+
+    @Test
+    @DisplayName("Should rate limit each user by command cost and shed heavy users first under overload")
+    void testAdmissionControl() {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            Map<String, Command> admitted = TestCommands.forRepository(repository);
+            admitted.put("GET_CATEGORY", new GetCategoryCommand(repository, ResponseCache.disabled()));
+            AtomicLong nanos = new AtomicLong();
+            // 10 tokens per second, bursts of 4; a category page costs 2
+            AdmissionController admission = new AdmissionController(repository, 10, 4, Map.of("GET_CATEGORY", 2),
+                    8, TimeUnit.MILLISECONDS.toNanos(5), nanos::get);
+            CommandDispatcher limited = new CommandDispatcher(admitted, new CommandMetrics(new SimpleMeterRegistry()), admission);
+            assertThat(limited.execute("REGISTER", CommandLine.of("REGISTER", "flooder"))).isEqualTo("Success");
+            assertThat(limited.execute("REGISTER", CommandLine.of("REGISTER", "Polite"))).isEqualTo("Success");
+
+            // The flooder's burst runs out; every spelling of the name draws from the same bucket
+            for (int i = 0; i < 4; i++) {
+                assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY", i % 2 == 0 ? "flooder" : "FLOODER"))).isEmpty();
+            }
+            assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY", "flooder"))).isEqualTo(AdmissionController.RATE_LIMITED);
+            assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY", "polite"))).isEmpty();
+
+            // Tokens come back at the configured rate; a costlier command needs more of them
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            assertThat(limited.execute("GET_CATEGORY", CommandLine.of("GET_CATEGORY", "flooder", "'Books'", "sort_price", "asc"))).isEqualTo(AdmissionController.RATE_LIMITED);
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            assertThat(limited.execute("GET_CATEGORY", CommandLine.of("GET_CATEGORY", "flooder", "'Books'", "sort_price", "asc"))).isEqualTo("Error - category not found");
+            assertThat(limited.execute("GET_CATEGORY", CommandLine.of("GET_CATEGORY", "flooder", "'Books'", "sort_price", "asc"))).isEqualTo(AdmissionController.RATE_LIMITED);
+
+            // Slow commands: users who spent more than half their burst are shed, the rest keep going
+            for (int i = 0; i < 100; i++) {
+                admission.completed(TimeUnit.MILLISECONDS.toNanos(50));
+            }
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY", "polite"))).isEmpty();
+            assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY", "polite"))).isEmpty();
+            assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY", "polite"))).isEqualTo(AdmissionController.OVERLOADED);
+            for (int i = 0; i < 100; i++) {
+                admission.completed(0);
+            }
+            assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY", "polite"))).isEmpty();
+
+            // A full server queue turns everything away, including commands without a user
+            admission.queued(9);
+            assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY", "flooder"))).isEqualTo(AdmissionController.OVERLOADED);
+            assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY"))).isEqualTo(AdmissionController.OVERLOADED);
+            limited.queued(-9);
+            for (int i = 0; i < 10; i++) {
+                assertThat(limited.execute("GET_TOP_CATEGORY", CommandLine.of("GET_TOP_CATEGORY"))).isEqualTo("Error - invalid arguments");
+            }
+
+            assertThatThrownBy(() -> new AdmissionController(repository, 10, 4, Map.of("SEARCH", 5), 0, 0, nanos::get))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            repository.close();
+        }
+    }
+}
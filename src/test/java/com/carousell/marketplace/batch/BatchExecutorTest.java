@@ -0,0 +1,76 @@
+package com.carousell.marketplace.batch;
+
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.command.CreateListingCommand;
+import com.carousell.marketplace.command.DeleteListingCommand;
+import com.carousell.marketplace.command.TestCommands;
+import com.carousell.marketplace.metrics.CommandMetrics;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.Parser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch mode, compared with executing the same lines one by one.
+ */
+class BatchExecutorTest {
+
+    @Test
+    @DisplayName("Should answer a batch exactly like line-by-line execution")
+    void testBatchExecution() throws IOException {
+        String script = String.join("\n",
+                "REGISTER user1",
+                "REGISTER user2",
+                "CREATE_LISTING user1 'Ball' 'Desc' 10 'Sports'",
+                "CREATE_LISTING user1 'Phone' 'Desc' 300 'Electronics'",
+                "CREATE_LISTING user1 'Laptop' 'Desc' 900 'Electronics'",
+                "CREATE_LISTING user1 'Bat' 'Desc' 20 'Sports'",
+                "CREATE_LISTING user1 'Empty' '' 20 'Sports'",
+                "CREATE_LISTING ghost 'Ball' 'Desc' 10 'Sports'",
+                "DELETE_LISTING user2 100001",
+                "DELETE_LISTING user1 100002",
+                "DELETE_LISTING user1 100002",
+                "",
+                "GET_TOP_CATEGORY user1",
+                "CREATE_LISTING user2 'Lego' 'Desc' 30 'Toys'",
+                "DELETE_LISTING user2 100005",
+                "GET_LISTING user1 100005",
+                "UNKNOWN user1");
+
+        MarketplaceRepository sequential = new MarketplaceRepository();
+        MarketplaceRepository batched = new MarketplaceRepository();
+        try {
+            Map<String, Command> sequentialCommands = TestCommands.forRepository(sequential);
+            StringBuilder expected = new StringBuilder();
+            for (String line : script.split("\n")) {
+                String[] args = Parser.parse(line);
+                if (args[0].isEmpty()) continue;
+                Command command = sequentialCommands.get(args[0]);
+                expected.append(command == null ? "Error - unknown command" : command.execute(args)).append('\n');
+            }
+
+            Map<String, Command> batchedCommands = TestCommands.forRepository(batched);
+            CommandDispatcher dispatcher = new CommandDispatcher(batchedCommands, new CommandMetrics(new SimpleMeterRegistry()));
+            BatchExecutor executor = new BatchExecutor(dispatcher, batched,
+                    (CreateListingCommand) batchedCommands.get("CREATE_LISTING"),
+                    (DeleteListingCommand) batchedCommands.get("DELETE_LISTING"), 3);
+            StringWriter out = new StringWriter();
+            assertThat(executor.execute(new BufferedReader(new StringReader(script)), out)).isEqualTo(16);
+
+            assertThat(out.toString()).isEqualTo(expected.toString());
+            assertThat(out.toString()).contains("Error - listing owner mismatch\nSuccess\nError - listing does not exist\nSports\n");
+            assertThat(batched.getTopCategories(3)).isEqualTo(sequential.getTopCategories(3));
+        } finally {
+            sequential.close();
+            batched.close();
+        }
+    }
+}
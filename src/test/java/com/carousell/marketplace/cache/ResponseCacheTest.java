@@ -0,0 +1,91 @@
+package com.carousell.marketplace.cache;
+
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.GetCategoryCommand;
+import com.carousell.marketplace.command.GetListingCommand;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The read-through response cache and its version-based invalidation.
+ */
+class ResponseCacheTest {
+
+    @Test
+    @DisplayName("Should serve cached responses until a write bumps the listing or category version")
+    void testResponseCache() throws Exception {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            repository.registerUser("user1");
+            int phone = repository.addListing("user1", "Phone", "Desc", 300, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            ResponseCache cache = new ResponseCache(1 << 20);
+            Command getListing = new GetListingCommand(repository, cache);
+            Command getCategory = new GetCategoryCommand(repository, cache);
+            String[] category = {"GET_CATEGORY", "user1", "'electronics'", "sort_price", "dsc"};
+
+            assertThat(getListing.execute(new String[]{"GET_LISTING", "user1", String.valueOf(phone)})).startsWith("Phone|");
+            assertThat(getListing.execute(new String[]{"GET_LISTING", "user1", String.valueOf(phone)})).startsWith("Phone|");
+            assertThat(getCategory.execute(category)).startsWith("Phone|");
+            assertThat(getCategory.execute(new String[]{"GET_CATEGORY", "user1", "'ELECTRONICS'", "sort_price", "dsc"})).startsWith("Phone|");
+            assertThat(cache.hitCount()).isEqualTo(2);
+
+            repository.addListing("user1", "Laptop", "Desc", 900, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+            assertThat(getCategory.execute(category)).startsWith("Laptop|");
+            repository.deleteListing(phone);
+            assertThat(getListing.execute(new String[]{"GET_LISTING", "user1", String.valueOf(phone)})).isEqualTo("Error - not found");
+            assertThat(getCategory.execute(category)).doesNotContain("Phone");
+
+            // Concurrent writers never leave a stale page behind once they finish
+            Command uncached = new GetCategoryCommand(repository, ResponseCache.disabled());
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<java.util.concurrent.Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        int id = repository.addListing("user1", "Item", "Desc", i, "Electronics", 0);
+                        if (i % 3 == 0) {
+                            repository.deleteListing(id);
+                        }
+                    }
+                }));
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        getCategory.execute(new String[]{"GET_CATEGORY", "user1", "'Electronics'", "sort_price", "asc", "limit=5"});
+                    }
+                }));
+            }
+            for (java.util.concurrent.Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            String[] page = {"GET_CATEGORY", "user1", "'Electronics'", "sort_price", "asc", "limit=5"};
+            assertThat(getCategory.execute(page)).isEqualTo(uncached.execute(page));
+
+            // A scan of one-off keys does not displace an entry that keeps being read
+            ResponseCache small = new ResponseCache(64 * 1024);
+            small.put("hot", 1, "hot response");
+            for (int i = 0; i < 5_000; i++) {
+                if (i % 20 == 0) {
+                    assertThat(small.get("hot", 1)).as("hot entry after %d one-off keys", i).isEqualTo("hot response");
+                }
+                small.get("key" + i, 1);
+                small.put("key" + i, 1, "response " + i);
+            }
+            assertThat(small.get("hot", 1)).isEqualTo("hot response");
+            assertThat(small.get("hot", 2)).isNull();
+            assertThat(small.weightedSize()).isLessThanOrEqualTo(small.maxBytes());
+            assertThat(small.evictionCount()).isPositive();
+        } finally {
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.CategoryView;
+import com.carousell.marketplace.repository.ListingRange;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.repository.SortKey;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GET_CATEGORY run against a dedicated repository, outside the Spring context.
+ */
+class GetCategoryCommandTest {
+
+    @Test
+    @DisplayName("Should only return listings from the requested category")
+    void testGetCategoryUsesCategoryIndex() {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            Command getCategory = new GetCategoryCommand(repository, new ResponseCache(1 << 20));
+            repository.registerUser("user1");
+
+            repository.addListing("user1", "Phone", "Desc", 300, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            repository.addListing("user1", "Ball", "Desc", 10, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+            int laptop = repository.addListing("user1", "Laptop", "Desc", 900, "electronics", Timestamps.toEpochMillis("2024-01-01 10:00:02"));
+
+            assertThat(getCategory.execute(new String[]{"GET_CATEGORY", "user1", "'Electronics'", "sort_price", "dsc"}))
+                    .isEqualTo("Laptop|Desc|900|2024-01-01 10:00:02|electronics|user1\n"
+                            + "Phone|Desc|300|2024-01-01 10:00:00|Electronics|user1");
+
+            repository.deleteListing(laptop);
+            assertThat(repository.getListingsByCategory("ELECTRONICS")).hasSize(1);
+            assertThat(getCategory.execute(new String[]{"GET_CATEGORY", "user1", "'Toys'", "sort_price", "dsc"}))
+                    .isEqualTo("Error - category not found");
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should page through the pre-sorted category views")
+    void testGetCategoryPagination() {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            Command getCategory = new GetCategoryCommand(repository, new ResponseCache(1 << 20));
+            repository.registerUser("user1");
+
+            repository.addListing("user1", "A", "Desc", 30, "Books", Timestamps.toEpochMillis("2024-01-01 10:00:02"));
+            repository.addListing("user1", "B", "Desc", 10, "Books", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            repository.addListing("user1", "C", "Desc", 20, "Books", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+
+            assertThat(getCategory.execute(new String[]{"GET_CATEGORY", "user1", "'Books'", "sort_price", "asc", "limit=2"}))
+                    .isEqualTo("B|Desc|10|2024-01-01 10:00:00|Books|user1\n"
+                            + "C|Desc|20|2024-01-01 10:00:01|Books|user1");
+            assertThat(getCategory.execute(new String[]{"GET_CATEGORY", "user1", "'Books'", "sort_time", "dsc", "offset=1", "limit=1"}))
+                    .isEqualTo("C|Desc|20|2024-01-01 10:00:01|Books|user1");
+            assertThat(getCategory.execute(new String[]{"GET_CATEGORY", "user1", "'Books'", "sort_time", "dsc", "limit=0"}))
+                    .isEqualTo("Error - invalid page parameters");
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should restrict GET_CATEGORY to price and creation-time ranges in either sort order")
+    void testCategoryRange() {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            repository.registerUser("user1");
+            long start = Timestamps.toEpochMillis("2024-01-01 00:00:00");
+            for (int i = 0; i < 200; i++) {
+                repository.addListing("user1", "Item " + i, "Desc", (i * 37) % 100, "Books", start + (i % 50) * 60_000L);
+            }
+            repository.deleteListing(100011);
+            GetCategoryCommand command = new GetCategoryCommand(repository, new ResponseCache(1 << 20));
+
+            assertThat(command.execute(new String[]{"GET_CATEGORY", "user1", "'Books'", "sort_price", "asc",
+                    "min_price=10", "max_price=10", "created_after='2024-01-01 00:09:00'", "limit=1"}))
+                    .isEqualTo("Item 30|Desc|10|2024-01-01 00:30:00|Books|user1");
+            assertThat(command.execute(new String[]{"GET_CATEGORY", "user1", "'Books'", "sort_price", "asc", "min_price=1000"})).isEmpty();
+            assertThat(command.execute(new String[]{"GET_CATEGORY", "user1", "'Books'", "sort_price", "asc", "min_price=cheap"}))
+                    .isEqualTo("Error - invalid range parameters");
+            assertThat(command.execute(new String[]{"GET_CATEGORY", "user1", "'Books'", "sort_price", "asc", "created_before='yesterday'"}))
+                    .isEqualTo("Error - invalid range parameters");
+
+            ListingRange[] ranges = {
+                    ListingRange.ALL,
+                    ListingRange.builder().minPrice(20).maxPrice(60).build(),
+                    ListingRange.builder().createdAfter(start + 10 * 60_000L).createdBefore(start + 30 * 60_000L).build(),
+                    ListingRange.builder().minPrice(5.5).createdBefore(start + 20 * 60_000L).build()
+            };
+            for (ListingRange range : ranges) {
+                for (SortKey key : SortKey.values()) {
+                    for (boolean descending : new boolean[]{false, true}) {
+                        List<Integer> expected = repository.getAllListings().stream()
+                                .filter(range::contains)
+                                .sorted(descending ? key.comparator().reversed() : key.comparator())
+                                .map(Listing::getId)
+                                .collect(Collectors.toList());
+                        CategoryView view = repository.getCategoryView("books", range);
+                        assertThat(view.stream(key, descending).map(Listing::getId))
+                                .as("%s by %s", range, key)
+                                .containsExactlyElementsOf(expected);
+                        assertThat(view.size()).isEqualTo(expected.size());
+                    }
+                }
+            }
+        } finally {
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.MappedMarketplaceRepository;
+import com.carousell.marketplace.repository.MarketplaceReader;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.repository.ShardedMarketplaceRepository;
+import com.carousell.marketplace.repository.SortKey;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MY_LISTINGS and DELETE_USER_LISTINGS across the storage modes.
+ */
+class MyListingsCommandTest {
+
+    @Test
+    @DisplayName("Should page through a user's own listings and bulk-delete them by owner and category")
+    void testUserListings(@TempDir Path columnsDir) throws IOException {
+        MarketplaceRepository heap = new MarketplaceRepository();
+        ShardedMarketplaceRepository sharded = new ShardedMarketplaceRepository(3);
+        MappedMarketplaceRepository mapped = new MappedMarketplaceRepository(columnsDir.toString());
+        try {
+            Command myListings = new MyListingsCommand(heap);
+            Command deleteListing = new DeleteListingCommand(heap, heap);
+            Command deleteUserListings = new DeleteUserListingsCommand(heap, heap);
+            heap.registerUser("Seller");
+            heap.registerUser("buyer");
+            heap.addListing("Seller", "Lamp", "Desc", 30, "Home", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            heap.addListing("buyer", "Ball", "Desc", 10, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+            heap.addListing("Seller", "Bat", "Desc", 20, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:02"));
+            int chair = heap.addListing("Seller", "Chair", "Desc", 40, "Home", Timestamps.toEpochMillis("2024-01-01 10:00:03"));
+
+            assertThat(myListings.execute(new String[]{"MY_LISTINGS", "seller", "sort_time", "dsc", "limit=2"}))
+                    .isEqualTo("Chair|Desc|40|2024-01-01 10:00:03|Home|Seller\n"
+                            + "Bat|Desc|20|2024-01-01 10:00:02|Sports|Seller");
+            assertThat(myListings.execute(new String[]{"MY_LISTINGS", "SELLER", "sort_price", "asc", "offset=1", "limit=1"}))
+                    .isEqualTo("Lamp|Desc|30|2024-01-01 10:00:00|Home|Seller");
+            assertThat(myListings.execute(new String[]{"MY_LISTINGS", "nobody", "sort_time", "dsc"})).isEqualTo("Error - unknown user");
+            assertThat(myListings.execute(new String[]{"MY_LISTINGS", "buyer", "sort_time", "dsc", "limit=0"}))
+                    .isEqualTo("Error - invalid page parameters");
+
+            // Ownership is matched by user id, so any spelling of the owner's name works
+            assertThat(deleteListing.execute(new String[]{"DELETE_LISTING", "buyer", String.valueOf(chair)})).isEqualTo("Error - listing owner mismatch");
+            assertThat(deleteListing.execute(new String[]{"DELETE_LISTING", "SELLER", String.valueOf(chair)})).isEqualTo("Success");
+
+            assertThat(deleteUserListings.execute(new String[]{"DELETE_USER_LISTINGS", "seller", "'Toys'"})).isEqualTo("Error - category not found");
+            assertThat(deleteUserListings.execute(new String[]{"DELETE_USER_LISTINGS", "seller", "'sports'"})).isEqualTo("1");
+            assertThat(heap.getTopCategories(2)).containsExactly(new CategoryCount("Sports", 1), new CategoryCount("Home", 1));
+            assertThat(deleteUserListings.execute(new String[]{"DELETE_USER_LISTINGS", "seller"})).isEqualTo("1");
+            assertThat(deleteUserListings.execute(new String[]{"DELETE_USER_LISTINGS", "seller"})).isEqualTo("0");
+            assertThat(myListings.execute(new String[]{"MY_LISTINGS", "seller", "sort_time", "dsc"})).isEmpty();
+            assertThat(heap.getCachedTopCategory()).isEqualTo("Sports");
+            assertThat(heap.getListingsByCategory("Home")).isEmpty();
+
+            // The other stores answer the same owner queries: merged across shards, scanned from columns
+            List<Listing> drafts = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                drafts.add(Listing.builder().owner(i % 3 == 0 ? "seller" : "buyer").title("Item " + i).description("Desc")
+                        .price(i).category("Category" + (i % 7)).createdAt(i).build());
+            }
+            sharded.registerUser("seller");
+            sharded.registerUser("buyer");
+            mapped.registerUser("seller");
+            mapped.registerUser("buyer");
+            sharded.addListings(drafts);
+            mapped.addListings(drafts);
+            for (MarketplaceReader reader : List.<MarketplaceReader>of(sharded, mapped)) {
+                assertThat(reader.getOwnerView("SELLER").size()).isEqualTo(100);
+                assertThat(reader.getOwnerView("seller").stream(SortKey.PRICE, true).limit(2).map(Listing::getTitle))
+                        .containsExactly("Item 297", "Item 294");
+            }
+            assertThat(sharded.deleteUserListings("seller", "category0")).isEqualTo(15);
+            assertThat(mapped.deleteUserListings("seller", "category0")).isEqualTo(15);
+            assertThat(sharded.deleteUserListings("seller", null)).isEqualTo(85);
+            assertThat(mapped.deleteUserListings("seller", null)).isEqualTo(85);
+            assertThat(sharded.getTopCategories(7)).isEqualTo(mapped.getTopCategories(7));
+            assertThat(sharded.listingCount()).isEqualTo(200);
+            assertThat(mapped.listingCount()).isEqualTo(200);
+        } finally {
+            heap.close();
+            sharded.close();
+            mapped.close();
+        }
+    }
+}
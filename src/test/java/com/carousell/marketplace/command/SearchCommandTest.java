@@ -0,0 +1,84 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.repository.SortKey;
+import com.carousell.marketplace.util.TextTokenizer;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SEARCH over the inverted index.
+ */
+class SearchCommandTest {
+
+    @Test
+    @DisplayName("Should find listings containing all search terms, in the requested order, across every query plan")
+    void testSearch() {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            repository.registerUser("user1");
+            repository.addListing("user1", "Vintage Camera", "Film camera, works well", 120, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            repository.addListing("user1", "Camera bag", "Fits any vintage camera", 30, "Accessories", Timestamps.toEpochMillis("2024-01-02 10:00:00"));
+            repository.addListing("user1", "Vintage lamp", "Brass", 45, "Home", Timestamps.toEpochMillis("2024-01-03 10:00:00"));
+            repository.addListing("user1", "Cameras", "Plural only", 10, "Electronics", Timestamps.toEpochMillis("2024-01-04 10:00:00"));
+            SearchCommand search = new SearchCommand(repository);
+
+            assertThat(search.execute(new String[]{"SEARCH", "user1", "'VINTAGE camera'", "sort_price", "asc"}))
+                    .isEqualTo("Camera bag|Fits any vintage camera|30|2024-01-02 10:00:00|Accessories|user1\n"
+                            + "Vintage Camera|Film camera, works well|120|2024-01-01 10:00:00|Electronics|user1");
+            assertThat(search.execute(new String[]{"SEARCH", "user1", "'camera'", "sort_time", "dsc", "category='electronics'"}))
+                    .startsWith("Vintage Camera|");
+            assertThat(search.execute(new String[]{"SEARCH", "user1", "'camera'", "sort_time", "dsc", "limit=1"}))
+                    .startsWith("Camera bag|");
+            assertThat(search.execute(new String[]{"SEARCH", "user1", "'vintage tripod'", "sort_price", "asc"})).isEmpty();
+            assertThat(search.execute(new String[]{"SEARCH", "user1", "'!!'", "sort_price", "asc"})).isEqualTo("Error - invalid search terms");
+            assertThat(search.execute(new String[]{"SEARCH", "user1", "'camera'", "sort_price", "asc", "category=Toys"})).isEqualTo("Error - category not found");
+            assertThat(search.execute(new String[]{"SEARCH", "ghost", "'camera'", "sort_price", "asc"})).isEqualTo("Error - unknown user");
+            repository.deleteListing(100001);
+            assertThat(search.execute(new String[]{"SEARCH", "user1", "'film'", "sort_price", "asc"})).isEmpty();
+
+            // Enough listings to exercise the scan, sort and bitset plans, late ids and posting list compaction
+            List<Listing> drafts = new ArrayList<>();
+            for (int i = 0; i < 40_000; i++) {
+                String title = "Item" + (i % 9 == 0 ? " alpha" : "") + (i % 11 == 0 ? " beta" : "") + (i % 400 == 0 ? " gamma" : "");
+                drafts.add(Listing.builder().owner("user1").title(title).description("common words").price(i % 997)
+                        .category(i % 2 == 0 ? "Books" : "Toys").createdAt(Timestamps.toEpochMillis("2024-02-01 00:00:00")).build());
+            }
+            repository.addListings(drafts);
+            for (int id = 100005; id < 100405; id++) {
+                repository.deleteListing(id);
+            }
+            for (int i = 400; i < 36_000; i += 400) {
+                repository.deleteListing(100005 + i);
+            }
+            repository.restoreListing(Listing.builder().id(100010).owner("user1").title("Late alpha beta gamma").description("common")
+                    .price(5).category("Books").createdAt(Timestamps.toEpochMillis("2024-03-01 00:00:00")).build());
+
+            for (String query : new String[]{"common", "alpha", "beta", "alpha common", "alpha beta", "gamma alpha", "beta gamma"}) {
+                List<String> terms = TextTokenizer.terms(query);
+                for (String category : new String[]{null, "Books"}) {
+                    for (SortKey key : SortKey.values()) {
+                        List<Integer> expected = repository.getAllListings().stream()
+                                .filter(l -> category == null || l.getCategory().equals(category))
+                                .filter(l -> terms.stream().allMatch(t -> TextTokenizer.containsTerm(l.getTitle(), t)
+                                        || TextTokenizer.containsTerm(l.getDescription(), t)))
+                                .sorted(key.comparator().reversed())
+                                .map(Listing::getId)
+                                .collect(Collectors.toList());
+                        assertThat(repository.search(terms, category).stream(key, true).map(Listing::getId))
+                                .as("%s in %s by %s", query, category, key)
+                                .containsExactlyElementsOf(expected);
+                    }
+                }
+            }
+        } finally {
+            repository.close();
+        }
+    }
+}
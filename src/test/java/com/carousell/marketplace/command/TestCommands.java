@@ -0,0 +1,24 @@
+package com.carousell.marketplace.command;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import lombok.experimental.UtilityClass;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The core commands wired to a dedicated repository, for tests that run them without the Spring context.
+ */
+@UtilityClass
+public class TestCommands {
+
+    public static Map<String, Command> forRepository(MarketplaceRepository repository) {
+        Map<String, Command> commands = new HashMap<>();
+        commands.put("REGISTER", new RegisterCommand(repository, repository));
+        commands.put("CREATE_LISTING", new CreateListingCommand(repository, repository));
+        commands.put("DELETE_LISTING", new DeleteListingCommand(repository, repository));
+        commands.put("GET_LISTING", new GetListingCommand(repository, new ResponseCache(1 << 20)));
+        commands.put("GET_TOP_CATEGORY", new GetTopCategoryCommand(repository));
+        return commands;
+    }
+}
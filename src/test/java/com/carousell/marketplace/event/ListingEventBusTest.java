@@ -0,0 +1,56 @@
+package com.carousell.marketplace.event;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.TextTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Delivery of listing change events to subscribers.
+ */
+class ListingEventBusTest {
+
+    @Test
+    @DisplayName("Should deliver every listing change to event subscribers in order, through a ring smaller than the burst")
+    void testListingEvents() throws InterruptedException {
+        MarketplaceRepository repository = new MarketplaceRepository(8, false);
+        try {
+            repository.registerUser("user1");
+            List<String> projected = new ArrayList<>();
+            ListingEventBus.Subscription subscription = repository.listingEvents().subscribe("test", (event, sequence, endOfBatch) ->
+                    projected.add((event.getType() == ListingEvent.Type.ADDED ? "+" : "-") + event.getListing().getId()));
+
+            List<Listing> drafts = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                drafts.add(Listing.builder().owner("user1").title("Bulk " + i).description("Desc").price(i).category("Books").createdAt(i).build());
+            }
+            repository.addListings(drafts);
+            for (int i = 0; i < 500; i++) {
+                repository.addListing("user1", "Single " + i, i % 2 == 0 ? "even" : "odd", i, "Toys", i);
+            }
+            repository.deleteListings(new int[]{100001, 100002});
+            repository.deleteListing(100501);
+
+            subscription.awaitSequence(repository.listingEvents().cursor());
+            assertThat(projected).hasSize(1003);
+            assertThat(projected.subList(0, 2)).containsExactly("+100001", "+100002");
+            assertThat(projected.subList(1000, 1003)).containsExactly("-100001", "-100002", "-100501");
+
+            // Without read-your-writes, SEARCH sees the changes once the index subscriber has caught up
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (repository.pendingListingEvents() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(repository.pendingListingEvents()).isZero();
+            assertThat(repository.search(TextTokenizer.terms("even"), "Toys").size()).isEqualTo(249);
+            assertThat(repository.search(TextTokenizer.terms("bulk"), null).size()).isEqualTo(498);
+        } finally {
+            repository.close();
+        }
+    }
+}
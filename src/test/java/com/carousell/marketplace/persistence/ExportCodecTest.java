@@ -0,0 +1,134 @@
+package com.carousell.marketplace.persistence;
+
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.ExportCommand;
+import com.carousell.marketplace.command.ImportCommand;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.CommandLine;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPORT and IMPORT through the binary export format.
+ */
+class ExportCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip the marketplace through EXPORT and IMPORT")
+    void testExportImport(@TempDir Path exportDir) throws Exception {
+        MarketplaceRepository source = new MarketplaceRepository();
+        MarketplaceRepository target = new MarketplaceRepository();
+        MarketplaceRepository existing = new MarketplaceRepository();
+        try {
+            source.registerUser("Alice");
+            source.registerUser("Bob");
+            int ball = source.addListing("Alice", "Ball", "Desc", 10, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            source.addListing("Bob", "Phone", "Desc", 300, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+            source.addListing("Bob", "Bat", "Desc", 20, "Sports", Timestamps.toEpochMillis("2024-01-01 09:00:00"));
+            int laptop = source.addListing("Alice", "Laptop", "Desc", 900.5, "electronics", Timestamps.toEpochMillis("2024-01-01 10:00:02"));
+            // Spans several blocks, so strings are split across them
+            int manual = source.addListing("Bob", "Manual", "page ".repeat(500_000), 5, "Books", Timestamps.toEpochMillis("2024-01-01 10:00:03"));
+            int removed = source.addListing("Bob", "Gone", "Desc", 1, "Books", Timestamps.toEpochMillis("2024-01-01 10:00:04"));
+            source.deleteListing(removed);
+            // Sports reached 2 listings first and keeps the lead on the tie
+            assertThat(source.getCachedTopCategory()).isEqualTo("Sports");
+
+            String directory = exportDir.toString();
+            Command export = new ExportCommand(Optional.of(source), directory);
+            assertThat(export.execute(CommandLine.of("EXPORT", "'plain.mktx'"))).isEqualTo("5");
+            assertThat(export.execute(CommandLine.of("EXPORT", "'deflated.mktx'", "compressed"))).isEqualTo("5");
+            assertThat(Files.size(exportDir.resolve("deflated.mktx"))).isLessThan(Files.size(exportDir.resolve("plain.mktx")));
+            assertThat(export.execute(CommandLine.of("EXPORT", "'../escape.mktx'"))).isEqualTo("Error - invalid file name");
+            assertThat(export.execute(CommandLine.of("EXPORT", "'plain.mktx'", "zip"))).isEqualTo("Error - invalid arguments");
+            assertThat(new ExportCommand(Optional.empty(), directory).execute(CommandLine.of("EXPORT", "'x.mktx'")))
+                    .isEqualTo("Error - not supported by this storage mode");
+
+            Command importInto = new ImportCommand(Optional.of(target), directory);
+            assertThat(importInto.isWrite()).isTrue();
+            assertThat(importInto.execute(CommandLine.of("IMPORT", "'plain.mktx'"))).isEqualTo("5");
+            assertThat(target.userExists("bob")).isTrue();
+            Listing copy = target.getListing(laptop);
+            assertThat(copy.getOwner()).isEqualTo("Alice");
+            assertThat(copy.getCategory()).isEqualTo("Electronics");
+            assertThat(copy.getPrice()).isEqualTo(900.5);
+            assertThat(copy.getCreatedAt()).isEqualTo(Timestamps.toEpochMillis("2024-01-01 10:00:02"));
+            assertThat(target.getListing(manual).getDescription()).isEqualTo(source.getListing(manual).getDescription());
+            assertThat(target.getListing(removed)).isNull();
+            assertThat(target.getCachedTopCategory()).isEqualTo("Sports");
+            assertThat(target.getListingsByCategory("sports")).extracting(Listing::getTitle).containsExactlyInAnyOrder("Ball", "Bat");
+            assertThat(target.getOwnerView("bob").size()).isEqualTo(3);
+            // Ids handed out after an import never reuse an exported one, deleted or not
+            assertThat(target.addListing("Alice", "Kite", "Desc", 15, "Toys", Timestamps.toEpochMillis("2024-01-01 11:00:00")))
+                    .isEqualTo(removed + 1);
+
+            // Into a marketplace with data of its own: taken ids are skipped, and the counts decide the top category
+            existing.registerUser("Carol");
+            assertThat(existing.addListing("Carol", "Puzzle", "Desc", 8, "Toys", Timestamps.toEpochMillis("2024-01-01 08:00:00"))).isEqualTo(ball);
+            Command importExisting = new ImportCommand(Optional.of(existing), directory);
+            assertThat(importExisting.execute(CommandLine.of("IMPORT", "'deflated.mktx'"))).isEqualTo("4");
+            assertThat(existing.getListing(ball).getOwner()).isEqualTo("Carol");
+            assertThat(existing.getCachedTopCategory()).isEqualTo("Electronics");
+
+
+            // Creates running during an import never share an id with an imported listing
+            MarketplaceRepository busy = new MarketplaceRepository();
+            ExecutorService pool = Executors.newSingleThreadExecutor();
+            try {
+                busy.registerUser("Dave");
+                Future<List<Integer>> creates = pool.submit(() -> {
+                    List<Integer> created = new ArrayList<>();
+                    for (int i = 0; i < 2_000; i++) {
+                        created.add(busy.addListing("Dave", "Own " + i, "Desc", 1, "Toys", Timestamps.toEpochMillis("2024-01-01 08:00:00")));
+                    }
+                    return created;
+                });
+                long imported = Long.parseLong(new ImportCommand(Optional.of(busy), directory).execute(CommandLine.of("IMPORT", "'plain.mktx'")));
+                List<Integer> created = creates.get(60, TimeUnit.SECONDS);
+                for (int i = 0; i < created.size(); i++) {
+                    assertThat(busy.getListing(created.get(i)).getTitle()).isEqualTo("Own " + i);
+                }
+                assertThat(busy.listingCount()).isEqualTo(created.size() + imported);
+            } finally {
+                pool.shutdownNow();
+                busy.close();
+            }
+
+            assertThat(importExisting.execute(CommandLine.of("IMPORT", "'missing.mktx'"))).isEqualTo("Error - file not found");
+            Files.writeString(exportDir.resolve("garbage.mktx"), "not an export");
+            assertThat(importExisting.execute(CommandLine.of("IMPORT", "'garbage.mktx'"))).isEqualTo("Error - invalid export file");
+            // A string length far beyond the data, or out of range, fails as a bad file rather than an allocation
+            for (int length : new int[]{1 << 30, -16}) {
+                ByteBuffer corrupt = ByteBuffer.allocate(32).putInt(0x4D4B5458).putInt(1).put((byte) 0)
+                        .putInt(9).putInt(9).putInt(100001);
+                // The block holds the next listing id, then a 5-byte varint string length
+                long value = length & 0xFFFF_FFFFL;
+                while (value >= 0x80) {
+                    corrupt.put((byte) (value | 0x80));
+                    value >>>= 7;
+                }
+                corrupt.put((byte) value);
+                Files.write(exportDir.resolve("corrupt.mktx"), Arrays.copyOf(corrupt.array(), corrupt.position()));
+                assertThat(importExisting.execute(CommandLine.of("IMPORT", "'corrupt.mktx'"))).isEqualTo("Error - invalid export file");
+            }
+        } finally {
+            source.close();
+            target.close();
+            existing.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.carousell.marketplace.persistence;
+
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recovery from a snapshot and the write-ahead log.
+ */
+class MarketplacePersistenceTest {
+
+    @Test
+    @DisplayName("Should recover state from the snapshot and the write-ahead log tail")
+    void testPersistenceRecovery(@TempDir Path dataDir) throws IOException {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        MarketplaceRepository recovered = new MarketplaceRepository();
+        try {
+            MarketplacePersistence persistence = new MarketplacePersistence(
+                    repository, dataDir.toString(), FsyncPolicy.ALWAYS, 100, 0, 1 << 20);
+            persistence.start();
+
+            repository.registerUser("Alice");
+            int sports = repository.addListing("Alice", "Ball", "Desc", 10, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            repository.addListing("Alice", "Phone", "Desc", 300, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+            persistence.snapshot();
+
+            // Tail after the snapshot: Electronics takes the lead once Sports loses its only listing
+            repository.deleteListing(sports);
+            int laptop = repository.addListing("Alice", "Laptop", "Desc", 900, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:02"));
+            persistence.close();
+
+            MarketplacePersistence recovery = new MarketplacePersistence(
+                    recovered, dataDir.toString(), FsyncPolicy.ALWAYS, 100, 0, 1 << 20);
+            recovery.start();
+            try {
+                assertThat(recovered.userExists("alice")).isTrue();
+                assertThat(recovered.getListing(sports)).isNull();
+                assertThat(recovered.getListing(laptop).getTitle()).isEqualTo("Laptop");
+                assertThat(recovered.getListingsByCategory("electronics")).hasSize(2);
+                assertThat(recovered.getCachedTopCategory()).isEqualTo("Electronics");
+                assertThat(recovered.addListing("Alice", "Bat", "Desc", 20, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:03")))
+                        .isEqualTo(laptop + 1);
+            } finally {
+                recovery.close();
+            }
+        } finally {
+            repository.close();
+            recovered.close();
+        }
+    }
+}
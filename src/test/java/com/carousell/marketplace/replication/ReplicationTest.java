@@ -0,0 +1,98 @@
+package com.carousell.marketplace.replication;
+
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.command.CreateListingCommand;
+import com.carousell.marketplace.command.GetTopCategoryCommand;
+import com.carousell.marketplace.metrics.CommandMetrics;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.CommandLine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Leader/follower replication over loopback sockets.
+ */
+class ReplicationTest {
+
+    @Test
+    @DisplayName("Should replicate mutations to a read-only follower, catching up from a snapshot or the backlog")
+    void testReplication() throws Exception {
+        MarketplaceRepository leaderRepository = new MarketplaceRepository();
+        MarketplaceRepository followerRepository = new MarketplaceRepository();
+        try {
+            leaderRepository.registerUser("user1");
+            for (int i = 0; i < 100; i++) {
+                leaderRepository.addListing("user1", "Item " + i, "Desc", i, "Category" + (i % 3), i);
+            }
+            ReplicationLeader leader = new ReplicationLeader(leaderRepository, Optional.empty(), "127.0.0.1", 0, 1024, 10);
+            leader.start();
+
+            Map<String, Command> followerCommands = new HashMap<>();
+            followerCommands.put("CREATE_LISTING", new CreateListingCommand(followerRepository, followerRepository));
+            followerCommands.put("GET_TOP_CATEGORY", new GetTopCategoryCommand(followerRepository));
+            CommandDispatcher followerDispatcher = new CommandDispatcher(followerCommands, new CommandMetrics(new SimpleMeterRegistry()), "follower");
+            ReplicationFollower follower = new ReplicationFollower(followerRepository, "127.0.0.1", leader.getPort(), 5000, 5000);
+            try {
+                // The first connection loads a snapshot of the 100 listings written before the leader started
+                follower.start();
+                assertThat(followerRepository.listingCount()).isEqualTo(100);
+
+                leaderRepository.registerUser("user2");
+                int added = leaderRepository.addListing("user2", "Streamed", "Desc", 5, "Category2", 1000);
+                leaderRepository.deleteListing(100001);
+                leaderRepository.deleteListing(100004);
+                assertThat(follower.awaitPosition(leader.position(), 5000)).isTrue();
+                assertThat(followerRepository.userExists("USER2")).isTrue();
+                assertThat(followerRepository.getListing(added).getTitle()).isEqualTo("Streamed");
+                assertThat(followerRepository.getListing(100001)).isNull();
+                assertThat(followerRepository.listingCount()).isEqualTo(leaderRepository.listingCount());
+                assertThat(followerRepository.getCachedTopCategory()).isEqualTo(leaderRepository.getCachedTopCategory());
+                assertThat(follower.lagRecords()).isZero();
+                assertThat(follower.connections()).isEqualTo(1);
+
+                // Writes are only accepted by the leader
+                assertThat(followerDispatcher.execute("CREATE_LISTING", CommandLine.of("CREATE_LISTING user1 'x' 'y' 1 Z".split(" "))))
+                        .isEqualTo("Error - read-only replica");
+                assertThat(followerDispatcher.execute("GET_TOP_CATEGORY", CommandLine.of(new String[]{"GET_TOP_CATEGORY", "user1"})))
+                        .isEqualTo(leaderRepository.getCachedTopCategory());
+                assertThatThrownBy(() -> followerRepository.registerUser("user3")).isInstanceOf(IllegalStateException.class);
+
+                // A follower that reconnects within the backlog resumes after its last applied record
+                follower.stop();
+                leaderRepository.deleteListing(added);
+                leaderRepository.addListing("user1", "While away", "Desc", 7, "Category0", 2000);
+                follower.start();
+                assertThat(follower.awaitPosition(leader.position(), 5000)).isTrue();
+                assertThat(followerRepository.getListing(added)).isNull();
+                assertThat(followerRepository.listingCount()).isEqualTo(leaderRepository.listingCount());
+
+                // One that fell behind the backlog gets a new snapshot, dropping listings deleted meanwhile
+                follower.stop();
+                for (int id = 100010; id < 100100; id++) {
+                    leaderRepository.deleteListing(id);
+                }
+                for (int i = 0; i < 2000; i++) {
+                    leaderRepository.addListing("user2", "Later " + i, "Desc", i, "Category1", 3000 + i);
+                }
+                follower.start();
+                assertThat(follower.awaitPosition(leader.position(), 5000)).isTrue();
+                assertThat(followerRepository.listingCount()).isEqualTo(leaderRepository.listingCount());
+                assertThat(followerRepository.getListing(100050)).isNull();
+                assertThat(followerRepository.getTopCategories(3)).isEqualTo(leaderRepository.getTopCategories(3));
+            } finally {
+                follower.stop();
+                leader.stop();
+            }
+        } finally {
+            leaderRepository.close();
+            followerRepository.close();
+        }
+    }
+}
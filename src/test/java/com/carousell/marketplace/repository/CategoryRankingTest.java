@@ -0,0 +1,64 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.GetTopCategoriesCommand;
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Category ranking and its incumbent-wins-ties rule.
+ */
+class CategoryRankingTest {
+
+    @Test
+    @DisplayName("Should rank categories by count while the incumbent keeps ties")
+    void testTopCategoriesLeaderboard() throws InterruptedException {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            Command topCategories = new GetTopCategoriesCommand(repository);
+            repository.registerUser("user1");
+
+            int ball = repository.addListing("user1", "Ball", "Desc", 10, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            repository.addListing("user1", "Phone", "Desc", 300, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+            repository.addListing("user1", "Bat", "Desc", 20, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:02"));
+            repository.addListing("user1", "Laptop", "Desc", 900, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:03"));
+            repository.addListing("user1", "Lego", "Desc", 30, "Toys", Timestamps.toEpochMillis("2024-01-01 10:00:04"));
+
+            // Sports reached 2 first, so it keeps the lead over Electronics
+            assertThat(topCategories.execute(new String[]{"GET_TOP_CATEGORIES", "user1", "3"}))
+                    .isEqualTo("Sports|2\nElectronics|2\nToys|1");
+
+            repository.deleteListing(ball);
+            assertThat(repository.getCachedTopCategory()).isEqualTo("Electronics");
+            assertThat(topCategories.execute(new String[]{"GET_TOP_CATEGORIES", "user1", "2"}))
+                    .isEqualTo("Electronics|2\nSports|1");
+            assertThat(topCategories.execute(new String[]{"GET_TOP_CATEGORIES", "user1", "zero"}))
+                    .isEqualTo("Error - invalid count");
+
+            // Concurrent writers on distinct categories must leave exact counts behind
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            for (int t = 0; t < 4; t++) {
+                String category = "Bulk" + t;
+                pool.execute(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        int id = repository.addListing("user1", "Item", "Desc", i, category, Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+                        if (i % 2 == 0) repository.deleteListing(id);
+                    }
+                });
+            }
+            pool.shutdown();
+            assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(repository.getTopCategories(4)).extracting(CategoryCount::getCount).containsOnly(250);
+            assertThat(repository.getCachedTopCategory()).isEqualTo(repository.getTopCategories(1).get(0).getName());
+        } finally {
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.GetCategoryCommand;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The memory-mapped columnar store.
+ */
+class MappedMarketplaceRepositoryTest {
+
+    @Test
+    @DisplayName("Should serve listings from the memory-mapped columnar store")
+    void testMappedStore(@TempDir Path columnsDir) throws IOException {
+        MappedMarketplaceRepository repository = new MappedMarketplaceRepository(columnsDir.toString());
+        Command getCategory = new GetCategoryCommand(repository, new ResponseCache(1 << 20));
+        try {
+            repository.registerUser("user1");
+            int phone = repository.addListing("user1", "Phone", "Desc", 300, "Electronics", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            repository.addListing("user1", "Ball", "Desc", 10, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+            repository.addListing("user1", "Laptop", "Desc", 900, "electronics", Timestamps.toEpochMillis("2024-01-01 10:00:02"));
+
+            assertThat(repository.getListing(phone).getCreatedAt()).isEqualTo(Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            assertThat(repository.getCachedTopCategory()).isEqualTo("Electronics");
+            assertThat(getCategory.execute(new String[]{"GET_CATEGORY", "user1", "'Electronics'", "sort_time", "dsc"}))
+                    .isEqualTo("Laptop|Desc|900|2024-01-01 10:00:02|electronics|user1\n"
+                            + "Phone|Desc|300|2024-01-01 10:00:00|Electronics|user1");
+
+            repository.deleteListing(phone);
+            repository.deleteListing(phone);
+            assertThat(repository.getListing(phone)).isNull();
+            assertThat(repository.getListingsByCategory("electronics")).hasSize(1);
+            assertThat(repository.getAllListings()).hasSize(2);
+        } finally {
+            repository.close();
+        }
+    }
+}
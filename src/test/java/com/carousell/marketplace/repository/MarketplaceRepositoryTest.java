@@ -0,0 +1,137 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The heap repository on its own, without the commands in front of it.
+ */
+class MarketplaceRepositoryTest {
+
+    @Test
+    @DisplayName("Should match interned usernames and categories case-insensitively")
+    void testInternedSymbols() {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            assertThat(repository.registerUser("Alice")).isTrue();
+            assertThat(repository.registerUser("ALICE")).isFalse();
+            assertThat(repository.userExists("aLiCe")).isTrue();
+            assertThat(repository.userExists("bob")).isFalse();
+
+            int first = repository.addListing("alice", "Ball", "Desc", 10, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            int second = repository.addListing("Alice", "Bat", "Desc", 20, "SPORTS", Timestamps.toEpochMillis("2024-01-01 10:00:01"));
+
+            assertThat(repository.getListing(first).getCategoryId()).isEqualTo(repository.getListing(second).getCategoryId());
+            assertThat(repository.getListing(second).getOwner()).isEqualTo("Alice");
+            assertThat(repository.getListing(first).getOwner()).isEqualTo("alice");
+            assertThat(repository.getCachedTopCategory()).isEqualTo("Sports");
+            assertThat(repository.getListing(42)).isNull();
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep counts, indexes and the top category consistent under racing registers, adds and deletes")
+    void testContendedWriteInvariants() throws Exception {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            repository.registerUser("user1");
+            AtomicIntegerArray recent = new AtomicIntegerArray(256);
+            AtomicInteger registered = new AtomicInteger();
+            AtomicInteger unknownLeaders = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                SplittableRandom random = new SplittableRandom(t);
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        int roll = random.nextInt(10);
+                        if (roll == 0) {
+                            // Every thread races for the same few names
+                            if (repository.registerUser("racer" + random.nextInt(50))) registered.incrementAndGet();
+                        } else if (roll < 5) {
+                            recent.set(random.nextInt(256), repository.addListing("user1", "Item", "Desc", i, "Category" + random.nextInt(5), i));
+                        } else if (roll < 8) {
+                            // Ids are shared, so threads regularly delete the same listing
+                            int id = recent.get(random.nextInt(256));
+                            if (id != 0) repository.deleteListing(id);
+                        } else if (!repository.getCachedTopCategory().matches("|Category[0-4]")) {
+                            unknownLeaders.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            pool.shutdown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+
+            assertThat(unknownLeaders.get()).isZero();
+            assertThat(registered.get()).isEqualTo(50);
+            Map<String, Long> counts = repository.getAllListings().stream()
+                    .collect(Collectors.groupingBy(Listing::getCategory, Collectors.counting()));
+            assertThat(counts.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(repository.listingCount());
+            for (CategoryCount entry : repository.getTopCategories(5)) {
+                assertThat((long) entry.getCount()).isEqualTo(counts.get(entry.getName()));
+                assertThat(repository.getListingsByCategory(entry.getName())).hasSize(entry.getCount());
+            }
+            assertThat(repository.getTopCategories(5)).hasSize(counts.size());
+            assertThat(counts.get(repository.getCachedTopCategory())).isEqualTo(Collections.max(counts.values()));
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep deleted listings out of the category and owner views when a delete races the create")
+    void testConcurrentAddDelete() throws Exception {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            repository.registerUser("user1");
+            int count = 20_000;
+            int first = repository.getNextListingId();
+            Future<?> adder = pool.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    repository.addListing("user1", "Item " + i, "Desc", i, "Cat" + (i % 8), Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+                }
+            });
+            // Deletes each listing as soon as it is visible in the table, often before its indexes are updated
+            Future<?> deleter = pool.submit(() -> {
+                for (int id = first; id < first + count; id++) {
+                    while (repository.getListing(id) == null) {
+                        Thread.onSpinWait();
+                    }
+                    repository.deleteListing(id);
+                }
+            });
+            adder.get(60, TimeUnit.SECONDS);
+            deleter.get(60, TimeUnit.SECONDS);
+
+            assertThat(repository.listingCount()).isZero();
+            int indexed = repository.categoryNames().stream().mapToInt(name -> repository.getCategoryView(name).size()).sum();
+            assertThat(indexed).isEqualTo(repository.listingCount());
+            assertThat(repository.getOwnerView("user1").size()).isEqualTo(repository.listingCount());
+        } finally {
+            pool.shutdownNow();
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.util.TextTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The category-sharded store, checked against a single heap repository.
+ */
+class ShardedMarketplaceRepositoryTest {
+
+    @Test
+    @DisplayName("Should answer every read like the single repository when listings are sharded by category")
+    void testShardedRepository() {
+        MarketplaceRepository single = new MarketplaceRepository();
+        ShardedMarketplaceRepository sharded = new ShardedMarketplaceRepository(4);
+        try {
+            List<Listing> drafts = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                drafts.add(Listing.builder().owner("user1").title("Item " + i + (i % 7 == 0 ? " rare" : "")).description("Desc")
+                        .price(i % 501).category("Category" + (i % 13)).createdAt(i).build());
+            }
+            Map<Integer, Integer> shardedIds = new HashMap<>();
+            single.registerUser("user1");
+            sharded.registerUser("USER1");
+            assertThat(sharded.userExists("user1")).isTrue();
+
+            int[] singleIds = single.addListings(drafts.subList(0, 10_000));
+            int[] batchIds = sharded.addListings(drafts.subList(0, 10_000));
+            for (int i = 0; i < batchIds.length; i++) {
+                shardedIds.put(singleIds[i], batchIds[i]);
+            }
+            for (Listing draft : drafts.subList(10_000, 20_000)) {
+                int id = single.addListing(draft.getOwner(), draft.getTitle(), draft.getDescription(), draft.getPrice(), draft.getCategory(), draft.getCreatedAt());
+                shardedIds.put(id, sharded.addListing(draft.getOwner(), draft.getTitle(), draft.getDescription(), draft.getPrice(), draft.getCategory(), draft.getCreatedAt()));
+            }
+            assertThat(new HashSet<>(shardedIds.values())).hasSize(20_000);
+            for (int id = 100001; id < 120001; id += 3) {
+                single.deleteListing(id);
+                sharded.deleteListing(shardedIds.get(id));
+            }
+
+            assertThat(sharded.listingCount()).isEqualTo(single.listingCount());
+            assertThat(sharded.getCachedTopCategory()).isEqualTo(single.getCachedTopCategory());
+            assertThat(sharded.getTopCategories(5)).isEqualTo(single.getTopCategories(5));
+            for (int id = 100001; id < 120001; id += 97) {
+                Listing expected = single.getListing(id);
+                Listing actual = sharded.getListing(shardedIds.get(id));
+                assertThat(actual == null ? null : actual.getTitle()).isEqualTo(expected == null ? null : expected.getTitle());
+            }
+            assertThat(sharded.getListing(99_999)).isNull();
+            assertThat(sharded.getListing(Integer.MAX_VALUE)).isNull();
+            // Ids differ between the two, but within a category they are assigned in the same order
+            for (SortKey key : SortKey.values()) {
+                assertThat(sharded.getCategoryView("category5").stream(key, true).map(Listing::getTitle))
+                        .containsExactlyElementsOf(single.getCategoryView("CATEGORY5").stream(key, true).map(Listing::getTitle).collect(Collectors.toList()));
+            }
+            assertThat(sharded.search(TextTokenizer.terms("rare"), null).stream(SortKey.TIME, false).map(Listing::getTitle))
+                    .containsExactlyElementsOf(single.search(TextTokenizer.terms("rare"), null).stream(SortKey.TIME, false).map(Listing::getTitle).collect(Collectors.toList()));
+            assertThat(sharded.search(TextTokenizer.terms("rare"), "Category3").stream(SortKey.PRICE, false).map(Listing::getTitle))
+                    .containsExactlyElementsOf(single.search(TextTokenizer.terms("rare"), "Category3").stream(SortKey.PRICE, false).map(Listing::getTitle).collect(Collectors.toList()));
+        } finally {
+            single.close();
+            sharded.close();
+        }
+    }
+}
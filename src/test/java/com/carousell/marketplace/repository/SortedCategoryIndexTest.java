@@ -0,0 +1,65 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Versioned snapshots of the category index.
+ */
+class SortedCategoryIndexTest {
+
+    @Test
+    @DisplayName("Should keep a category view at the version it was taken while writes continue")
+    void testCategorySnapshots() {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            repository.registerUser("user1");
+            long start = Timestamps.toEpochMillis("2024-01-01 00:00:00");
+            SplittableRandom random = new SplittableRandom(7);
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                ids.add(repository.addListing("user1", "Item " + i, "Desc", random.nextInt(100), "Books", start + random.nextInt(1_000) * 1_000L));
+            }
+            CategoryView before = repository.getCategoryView("books");
+            ListingRange cheap = ListingRange.builder().maxPrice(20).build();
+            List<Integer> cheapBefore = before.range(cheap).stream(SortKey.TIME, true).map(Listing::getId).collect(Collectors.toList());
+            long version = before.version();
+            assertThat(version).isEqualTo(repository.categoryVersion("books"));
+
+            for (int i = 0; i < 500; i++) {
+                repository.deleteListing(ids.get(random.nextInt(ids.size())));
+                repository.addListing("user1", "Late " + i, "Desc", random.nextInt(100), "Books", start);
+            }
+
+            // The old view still answers as of its version, in both orders and over ranges
+            assertThat(before.size()).isEqualTo(2_000);
+            assertThat(before.version()).isEqualTo(version).isLessThan(repository.categoryVersion("books"));
+            assertThat(before.stream(SortKey.PRICE, false).map(Listing::getId)).containsExactlyInAnyOrderElementsOf(ids);
+            assertThat(before.stream(SortKey.TIME, false).map(Listing::getTitle)).noneMatch(title -> title.startsWith("Late"));
+            assertThat(before.range(cheap).stream(SortKey.TIME, true).map(Listing::getId)).containsExactlyElementsOf(cheapBefore);
+
+            // The current view agrees with the table in every order
+            CategoryView after = repository.getCategoryView("books");
+            for (SortKey key : SortKey.values()) {
+                for (boolean descending : new boolean[]{false, true}) {
+                    List<Integer> expected = repository.getAllListings().stream()
+                            .sorted(descending ? key.comparator().reversed() : key.comparator())
+                            .map(Listing::getId)
+                            .collect(Collectors.toList());
+                    assertThat(after.stream(key, descending).map(Listing::getId)).containsExactlyElementsOf(expected);
+                }
+            }
+            assertThat(after.size()).isEqualTo(repository.listingCount());
+            assertThat(repository.getOwnerView("user1").size()).isEqualTo(repository.listingCount());
+        } finally {
+            repository.close();
+        }
+    }
+}
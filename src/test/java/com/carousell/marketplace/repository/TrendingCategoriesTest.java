@@ -0,0 +1,110 @@
+package com.carousell.marketplace.repository;
+
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.TrendingCategoriesCommand;
+import com.carousell.marketplace.model.CategoryCount;
+import com.carousell.marketplace.util.Timestamps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sliding-window trending counts, driven by a manual clock.
+ */
+class TrendingCategoriesTest {
+
+    @Test
+    @DisplayName("Should count listings per category over sliding hour and day windows as the clock moves")
+    void testTrendingCategories() {
+        ManualClock clock = new ManualClock(Instant.parse("2024-01-01T10:00:00Z"));
+        MarketplaceRepository repository = new MarketplaceRepository(1024, true, clock);
+        try {
+            Command trending = new TrendingCategoriesCommand(repository);
+            repository.registerUser("user1");
+            repository.addListing("user1", "Ball", "Desc", 10, "Sports", Timestamps.toEpochMillis("2024-01-01 09:59:30"));
+            repository.addListing("user1", "Bat", "Desc", 20, "Sports", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            repository.addListing("user1", "Lego", "Desc", 30, "Toys", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+            int phone = repository.addListing("user1", "Phone", "Desc", 300, "Electronics", Timestamps.toEpochMillis("2024-01-01 09:30:00"));
+            repository.addListing("user1", "Book", "Desc", 5, "Books", Timestamps.toEpochMillis("2024-01-01 08:00:00"));
+            // Before the day window: never counted
+            repository.addListing("user1", "Stamp", "Desc", 1, "Antiques", Timestamps.toEpochMillis("2023-12-31 09:00:00"));
+
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "hour", "10"}))
+                    .isEqualTo("Sports|2\nToys|1\nElectronics|1");
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "DAY", "2"}))
+                    .isEqualTo("Sports|2\nToys|1");
+            assertThat(repository.getTrendingCategories(TrendWindow.DAY, 10)).extracting(CategoryCount::getName)
+                    .containsExactly("Sports", "Toys", "Electronics", "Books");
+
+            // 10:31: the 09:30 bucket has left the hour, the 09:59 one has not
+            clock.advance(Duration.ofMinutes(31));
+            repository.tickTrendingWindows();
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "hour", "10"}))
+                    .isEqualTo("Sports|2\nToys|1");
+
+            // Deleting a listing only counted by the day window must not take the hour below zero
+            repository.deleteListing(phone);
+            assertThat(repository.getTrendingCategories(TrendWindow.HOUR, 10)).extracting(CategoryCount::getName)
+                    .containsExactly("Sports", "Toys");
+            assertThat(repository.getTrendingCategories(TrendWindow.DAY, 10)).extracting(CategoryCount::getName)
+                    .containsExactly("Sports", "Toys", "Books");
+
+            // 11:00:30: everything has left the hour; a listing of the current minute counts at once
+            clock.advance(Duration.ofSeconds(29 * 60 + 30));
+            repository.tickTrendingWindows();
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "hour", "10"})).isEmpty();
+            repository.addListing("user1", "Car", "Desc", 9000, "Vehicles", Timestamps.toEpochMillis("2024-01-01 11:00:10"));
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "hour", "10"})).isEqualTo("Vehicles|1");
+
+            // A day later only the last hour's bucket of the day window is left
+            clock.advance(Duration.ofHours(23));
+            repository.tickTrendingWindows();
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "day", "10"})).isEqualTo("Vehicles|1");
+            clock.advance(Duration.ofHours(1));
+            repository.tickTrendingWindows();
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "day", "10"})).isEmpty();
+            assertThat(repository.getTopCategories(1)).containsExactly(new CategoryCount("Sports", 2));
+
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "week", "10"})).isEqualTo("Error - invalid window");
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "user1", "hour", "0"})).isEqualTo("Error - invalid count");
+            assertThat(trending.execute(new String[]{"TRENDING_CATEGORIES", "nobody", "hour", "10"})).isEqualTo("Error - unknown user");
+        } finally {
+            repository.close();
+        }
+    }
+
+    /**
+     * A UTC clock that only moves when told to, so sliding windows can be checked without waiting.
+     */
+    private static final class ManualClock extends Clock {
+        private volatile Instant now;
+
+        ManualClock(Instant start) {
+            this.now = start;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.carousell.marketplace.server;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.CommandDispatcher;
+import com.carousell.marketplace.command.ExportCommand;
+import com.carousell.marketplace.command.GetCategoryCommand;
+import com.carousell.marketplace.command.TestCommands;
+import com.carousell.marketplace.metrics.CommandMetrics;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import com.carousell.marketplace.util.Timestamps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The TCP server, driven through real sockets on an ephemeral port.
+ */
+class MarketplaceServerTest {
+
+    @Test
+    @DisplayName("Should answer pipelined requests over TCP in order, framing each response with an empty line")
+    void testServerPipelining(@TempDir Path exportDir) throws Exception {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            Map<String, Command> serverCommands = TestCommands.forRepository(repository);
+            serverCommands.put("GET_CATEGORY", new GetCategoryCommand(repository, new ResponseCache(1 << 20)));
+            serverCommands.put("EXPORT", new ExportCommand(Optional.of(repository), exportDir.toString()));
+            MarketplaceServer server = new MarketplaceServer(
+                    new CommandDispatcher(serverCommands, new CommandMetrics(new SimpleMeterRegistry())),
+                    "127.0.0.1", 0, 2, 2, 100, 4);
+            server.start();
+            try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+                socket.setSoTimeout(10_000);
+                StringBuilder requests = new StringBuilder("REGISTER user1\r\n\n");
+                for (int i = 0; i < 20; i++) {
+                    requests.append("CREATE_LISTING user1 'Item ").append(i).append("' 'Desc' 10 'Books'\n");
+                }
+                requests.append("GET_CATEGORY user1 'Books' sort_price asc limit=2\nGET_TOP_CATEGORY user1\nEXPORT 'dump.mktx'\nUNKNOWN");
+                // Every request in one write, then half-close: the server still answers all of them
+                socket.getOutputStream().write(requests.toString().getBytes(StandardCharsets.UTF_8));
+                socket.shutdownOutput();
+
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                StringBuilder expected = new StringBuilder("Success\n\n");
+                for (int i = 0; i < 20; i++) {
+                    expected.append(100001 + i).append("\n\n");
+                }
+                expected.append("Item ");
+                StringBuilder received = new StringBuilder();
+                String response;
+                while ((response = in.readLine()) != null) {
+                    received.append(response).append('\n');
+                }
+                assertThat(received.toString()).startsWith(expected.toString());
+                assertThat(received.toString())
+                        .endsWith("\n\nBooks\n\nError - command not available over the network\n\nError - unknown command\n\n");
+                assertThat(received.toString().split("\n\n")).hasSize(25);
+                // Rejected before it ran, so nothing was written to the server's disk
+                assertThat(exportDir).isEmptyDirectory();
+            } finally {
+                server.stop();
+            }
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep serving other clients while one stops reading its pipelined responses")
+    void testServerSlowClient() throws Exception {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        repository.registerUser("user1");
+        String description = String.join("", Collections.nCopies(20, "Long description "));
+        for (int i = 0; i < 500; i++) {
+            repository.addListing("user1", "Item " + i, description, 10 + i, "Books", Timestamps.toEpochMillis("2024-01-01 10:00:00"));
+        }
+        Map<String, Command> serverCommands = TestCommands.forRepository(repository);
+        serverCommands.put("GET_CATEGORY", new GetCategoryCommand(repository, new ResponseCache(1 << 20)));
+        // A single worker: if it waited for the stalled client, nobody else would be answered
+        MarketplaceServer server = new MarketplaceServer(
+                new CommandDispatcher(serverCommands, new CommandMetrics(new SimpleMeterRegistry())),
+                "127.0.0.1", 0, 1, 1, 100, 1000);
+        server.start();
+        try (Socket stalled = new Socket("127.0.0.1", server.getPort());
+             Socket other = new Socket("127.0.0.1", server.getPort())) {
+            StringBuilder requests = new StringBuilder();
+            for (int i = 0; i < 500; i++) {
+                requests.append("GET_CATEGORY user1 'Books' sort_price asc limit=100\n");
+            }
+            // Several megabytes of responses that are never read
+            stalled.getOutputStream().write(requests.toString().getBytes(StandardCharsets.UTF_8));
+            stalled.getOutputStream().flush();
+            Thread.sleep(500);
+
+            other.setSoTimeout(5_000);
+            other.getOutputStream().write("GET_TOP_CATEGORY user1\n".getBytes(StandardCharsets.UTF_8));
+            BufferedReader in = new BufferedReader(new InputStreamReader(other.getInputStream(), StandardCharsets.UTF_8));
+            assertThat(in.readLine()).isEqualTo("Books");
+        } finally {
+            server.stop();
+            repository.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer a request line over the limit with an error and close the connection")
+    void testServerRequestTooLong() throws Exception {
+        MarketplaceRepository repository = new MarketplaceRepository();
+        MarketplaceServer server = new MarketplaceServer(
+                new CommandDispatcher(TestCommands.forRepository(repository), new CommandMetrics(new SimpleMeterRegistry())),
+                "127.0.0.1", 0, 1, 1, 100, 16, 30_000, 1024);
+        server.start();
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(10_000);
+            // A request before the long line is still answered, the one after it is not
+            String requests = "REGISTER user1\nREGISTER '" + String.join("", Collections.nCopies(2000, "x")) + "'\nREGISTER user2\n";
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.UTF_8));
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            StringBuilder received = new StringBuilder();
+            String response;
+            while ((response = in.readLine()) != null) {
+                received.append(response).append('\n');
+            }
+            assertThat(received.toString()).isEqualTo("Success\n\nError - request too long\n\n");
+            assertThat(repository.userExists("user2")).isFalse();
+        } finally {
+            server.stop();
+            repository.close();
+        }
+    }
+}
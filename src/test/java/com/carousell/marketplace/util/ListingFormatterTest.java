@@ -0,0 +1,98 @@
+package com.carousell.marketplace.util;
+
+import com.carousell.marketplace.cache.ResponseCache;
+import com.carousell.marketplace.command.Command;
+import com.carousell.marketplace.command.GetCategoryCommand;
+import com.carousell.marketplace.command.TestCommands;
+import com.carousell.marketplace.model.Listing;
+import com.carousell.marketplace.repository.MarketplaceRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Row formatting, checked against the String.format output it replaced.
+ */
+class ListingFormatterTest {
+
+    @Test
+    @DisplayName("Should stream GET_CATEGORY rows with the same text as the String.format based output")
+    void testStreamingCategoryOutput() throws IOException {
+        for (double price : new double[]{1, 10, 12.5, 0.5, 2.675, 99.4999, 123456789.5, 1e16, 1e300}) {
+            Listing listing = Listing.builder().title("T").description("D").price(price)
+                    .createdAt(Timestamps.toEpochMillis("2024-01-01 00:00:00")).category("Books").owner("user1").build();
+            assertThat(ListingFormatter.format(listing)).isEqualTo(String.format("%s|%s|%.0f|%s|%s|%s",
+                    "T", "D", price, "2024-01-01 00:00:00", "Books", "user1"));
+        }
+
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            repository.registerUser("user1");
+            for (int i = 0; i < 50; i++) {
+                repository.addListing("user1", "Item " + i, "Desc", 10 + i, "Books", Timestamps.toEpochMillis("2024-01-01 00:00:00"));
+            }
+            // Uncached, so every call renders row by row
+            GetCategoryCommand command = new GetCategoryCommand(repository, ResponseCache.disabled());
+            CommandLine line = CommandLine.of("GET_CATEGORY", "user1", "'Books'", "sort_price", "asc");
+
+            StringBuilder streamed = new StringBuilder();
+            command.execute(line, streamed);
+            assertThat(streamed.toString()).isEqualTo(command.execute(line)).startsWith("Item 0|Desc|10|");
+            assertThat(streamed.toString().split("\n")).hasSize(50);
+
+            // Rows reach the sink one at a time: a sink failing on the first line break stops the command there
+            StringBuilder firstRow = new StringBuilder();
+            Appendable failing = new Appendable() {
+                @Override
+                public Appendable append(CharSequence csq) {
+                    firstRow.append(csq);
+                    return this;
+                }
+
+                @Override
+                public Appendable append(CharSequence csq, int start, int end) {
+                    firstRow.append(csq, start, end);
+                    return this;
+                }
+
+                @Override
+                public Appendable append(char c) throws IOException {
+                    if (c == '\n') throw new IOException("client gone");
+                    firstRow.append(c);
+                    return this;
+                }
+            };
+            assertThatThrownBy(() -> command.execute(line, failing)).isInstanceOf(IOException.class);
+            assertThat(firstRow.toString()).isEqualTo("Item 0|Desc|10|2024-01-01 00:00:00|Books|user1");
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write NaN and infinite prices by name, as %.0f does")
+    void testNonFinitePrices() {
+        for (double price : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            Listing listing = Listing.builder().title("T").description("D").price(price)
+                    .createdAt(Timestamps.toEpochMillis("2024-01-01 00:00:00")).category("Books").owner("user1").build();
+            assertThat(ListingFormatter.format(listing)).isEqualTo(String.format("%s|%s|%.0f|%s|%s|%s",
+                    "T", "D", price, "2024-01-01 00:00:00", "Books", "user1"));
+        }
+
+        // 1e400 overflows to Infinity, passes the positive-price check and must still be readable back
+        MarketplaceRepository repository = new MarketplaceRepository();
+        try {
+            Map<String, Command> commands = TestCommands.forRepository(repository);
+            commands.get("REGISTER").execute(CommandLine.of("REGISTER", "user1"));
+            String id = commands.get("CREATE_LISTING")
+                    .execute(CommandLine.of("CREATE_LISTING", "user1", "'T'", "'D'", "1e400", "'Books'"));
+            assertThat(commands.get("GET_LISTING").execute(CommandLine.of("GET_LISTING", "user1", id)))
+                    .startsWith("T|D|Infinity|");
+        } finally {
+            repository.close();
+        }
+    }
+}